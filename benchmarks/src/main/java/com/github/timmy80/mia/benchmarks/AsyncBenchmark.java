@@ -0,0 +1,48 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.Async;
+import com.github.timmy80.mia.core.TimeLimit;
+
+/**
+ * Cost of {@link Async#callBefore(Executor, TimeLimit, Callable)} with and without a {@link TimeLimit}.<br>
+ * The jobs are executed by the calling Thread so that the score only covers the framework: job and future allocation,
+ * expiration check and time limit enforcement.
+ * @author anthony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncBenchmark {
+
+	private final Executor direct = Runnable::run;
+	private final Callable<Integer> callable = () -> 42;
+
+	@Benchmark
+	public CompletableFuture<Integer> callBeforeNoLimit() {
+		return Async.callBefore(direct, TimeLimit.noLimit(), callable);
+	}
+
+	@Benchmark
+	public CompletableFuture<Integer> callBeforeTimeLimit() {
+		return Async.callBefore(direct, TimeLimit.in(1000), callable);
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.timmy80.mia.benchmarks;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.Task;
+
+/**
+ * A {@link Task} without any behavior, used as an event consumer by the benchmarks.
+ * @author anthony
+ *
+ */
+public class BenchTask extends Task {
+
+	/**
+	 * Constructor
+	 * @param name the name of this Task
+	 * @param appCtx the application context of this Task
+	 */
+	public BenchTask(String name, ApplicationContext appCtx) {
+		super(name, appCtx);
+	}
+
+	@Override
+	public void eventStartTask() {
+		// nothing to be done
+	}
+}
@@ -0,0 +1,90 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.TaskParams;
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+
+/**
+ * Hand-off cost between Tasks for each {@link ExecutionMode}.<br>
+ * A token goes once around a ring of Tasks: every hop wakes up the next Task, which is a context switch
+ * in THREAD mode, an unpark of a virtual Thread in VIRTUAL_THREAD mode and a submission to a shared executor in POOLED
+ * and EVENT_LOOP modes.
+ * The score is the time of one hop.<br>
+ * VIRTUAL_THREAD requires Java 21. Run with <code>-p mode=THREAD,POOLED,EVENT_LOOP</code> on older runtimes.<br>
+ * See {@link ExecutionModeFootprint} for the memory cost of each mode.
+ * @author anthony
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+	private static final int TASKS = 1000;
+
+	@Param({"THREAD", "POOLED", "EVENT_LOOP", "VIRTUAL_THREAD"})
+	public String mode;
+
+	private ApplicationContext appCtx;
+	private BenchTask[] ring;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		TaskParams taskParams = new TaskParams();
+		taskParams.setExecutionMode(ExecutionMode.valueOf(mode));
+
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		appCtx = ApplicationContext.getInstance(params);
+
+		ring = new BenchTask[TASKS];
+		for(int i=0; i < ring.length; i++) {
+			ring[i] = new BenchTask("ring-" + mode + "-" + i, appCtx);
+			ring[i].start();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private void hop(int index, CompletableFuture<Void> done) {
+		int next = index + 1;
+		if(next == ring.length)
+			done.complete(null);
+		else
+			ring[next].execute(() -> hop(next, done));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TASKS)
+	public void ring() {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		ring[0].execute(() -> hop(0, done));
+		done.join();
+	}
+}
@@ -0,0 +1,75 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.TaskParams;
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+
+/**
+ * Memory cost of idle Tasks for each {@link ExecutionMode}.<br>
+ * Starts a number of idle Tasks and prints the live platform Threads, the used heap and the resident set size of the process
+ * before and after. The resident set size is only available on Linux.<br>
+ * <br>
+ * Usage: <code>java -cp benchmarks/target/benchmarks.jar com.github.timmy80.mia.benchmarks.ExecutionModeFootprint POOLED 10000</code>
+ * @author anthony
+ *
+ */
+public class ExecutionModeFootprint {
+
+	public static void main(String[] args) throws Exception {
+		ExecutionMode mode = (args.length > 0)? ExecutionMode.valueOf(args[0]) : ExecutionMode.THREAD;
+		int count = (args.length > 1)? Integer.parseInt(args[1]) : 10000;
+
+		TaskParams taskParams = new TaskParams();
+		taskParams.setExecutionMode(mode);
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		ApplicationContext appCtx = ApplicationContext.getInstance(params);
+
+		printFootprint("before", mode, 0);
+
+		BenchTask[] tasks = new BenchTask[count];
+		for(int i=0; i < count; i++) {
+			tasks[i] = new BenchTask("footprint-" + i, appCtx);
+			tasks[i].start();
+		}
+		// make sure every Task went through its first iteration
+		CompletableFuture<?>[] started = new CompletableFuture<?>[count];
+		for(int i=0; i < count; i++)
+			started[i] = tasks[i].runLater(() -> {});
+		CompletableFuture.allOf(started).join();
+		Thread.sleep(1000); // let the Tasks go idle
+
+		printFootprint("after", mode, count);
+
+		appCtx.stop();
+		appCtx.join();
+		System.exit(0);
+	}
+
+	private static void printFootprint(String step, ExecutionMode mode, int tasks) {
+		System.gc();
+		long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+		System.out.printf("%s mode=%s tasks=%d platformThreads=%d heapUsedKB=%d rssKB=%d%n",
+				step, mode, tasks, threads, heap / 1024, residentSetKB());
+	}
+
+	private static long residentSetKB() {
+		try {
+			for(String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+				if(line.startsWith("VmRSS:"))
+					return Long.parseLong(line.replaceAll("[^0-9]", ""));
+			}
+		} catch (IOException | NumberFormatException e) {
+			// not available on this platform
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,44 @@
+package com.github.timmy80.mia.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the hot paths of the framework with the JMH GC profiler, so that each score comes with the bytes
+ * allocated per operation (gc.alloc.rate.norm).<br>
+ * Any JMH command line option may be given, such as a regexp restricting the benchmarks or -rf json to keep a baseline.
+ * @author anthony
+ *
+ */
+public class HotPathBenchmarks {
+
+	private static final Class<?>[] BENCHMARKS = {
+			TaskExecuteBenchmark.class,
+			AsyncBenchmark.class,
+			TerminalBenchmark.class,
+			MessagingBenchmark.class,
+			TopicFilterBenchmark.class,
+			LogFmtBenchmark.class
+	};
+
+	/**
+	 * Entry point
+	 * @param args JMH command line options
+	 * @throws RunnerException if a benchmark fails
+	 * @throws CommandLineOptionException if the options are invalid
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmdLine = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		if(cmdLine.getIncludes().isEmpty()) {
+			for(Class<?> benchmark : BENCHMARKS)
+				options.include(benchmark.getSimpleName());
+		}
+		options.parent(cmdLine).addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
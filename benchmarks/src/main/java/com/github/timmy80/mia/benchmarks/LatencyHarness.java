@@ -0,0 +1,230 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.BlockingWaitStrategy;
+import com.github.timmy80.mia.core.BusySpinWaitStrategy;
+import com.github.timmy80.mia.core.SpinYieldParkWaitStrategy;
+import com.github.timmy80.mia.core.TaskParams;
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+import com.github.timmy80.mia.core.Terminal;
+import com.github.timmy80.mia.core.TerminalState;
+import com.github.timmy80.mia.core.TimeLimit;
+import com.github.timmy80.mia.messaging.MessageCtx;
+import com.github.timmy80.mia.messaging.Messaging;
+import com.github.timmy80.mia.messaging.ResponseHandler;
+import com.github.timmy80.mia.messaging.Subscriber;
+
+/**
+ * Request/reply latency between Tasks through {@link Messaging}, at a constant rate.<br>
+ * A client {@link Terminal} publishes requests to one (ping-pong) or several (fan-out) server Terminals, each running on its
+ * own Task, and records the latency of every request once all its responses have been handled by the client Task.<br>
+ * <br>
+ * The latency is measured from the time the request should have been sent according to the rate, not from the time it
+ * has actually been sent: a stall of the framework delays the following requests and is accounted for in their latency
+ * instead of being hidden (coordinated omission). The results are recorded in an HdrHistogram and printed in microseconds.<br>
+ * <br>
+ * Usage: <code>java -cp benchmarks/target/benchmarks.jar com.github.timmy80.mia.benchmarks.LatencyHarness [key=value ...]</code><br>
+ * <ul>
+ * <li>rate: requests per second. Default is 20000.</li>
+ * <li>duration: measured duration in seconds. Default is 10.</li>
+ * <li>warmup: duration in seconds before the measure. Default is 2.</li>
+ * <li>fanout: number of servers receiving each request. Default is 1 (ping-pong).</li>
+ * <li>wait: wait strategy of the Tasks: blocking, spin-yield-park or busy-spin. Default is blocking.</li>
+ * <li>capacity: capacity of the jobs queues. 0 for an unbounded queue. Default is 0.</li>
+ * <li>mode: {@link ExecutionMode} of the Tasks. Default is THREAD.</li>
+ * <li>poolThreads: number of Threads of the pool running POOLED Tasks. Default is the number of processors.</li>
+ * </ul>
+ * @author anthony
+ *
+ */
+public class LatencyHarness {
+
+	private static final String TOPIC = "harness/server/";
+
+	/**
+	 * A server answering every request with the request itself
+	 */
+	public static class PongTerminal extends Terminal<BenchTask> implements Subscriber<Long> {
+
+		/**
+		 * The only state of this Terminal
+		 */
+		public class Serving extends TerminalState {
+			@Override
+			protected void eventEntry() {
+				// nothing to be done
+			}
+		}
+
+		/**
+		 * Constructor
+		 * @param task the owning Task
+		 */
+		public PongTerminal(BenchTask task) {
+			super(task);
+		}
+
+		@Override
+		public void eventReceivePublish(MessageCtx<?> context, Long request) {
+			context.reply(request);
+		}
+	}
+
+	/**
+	 * The client recording the latency of the requests. Only accessed by its Task once started.
+	 */
+	public static class PingTerminal extends Terminal<BenchTask> implements ResponseHandler<Long> {
+
+		/**
+		 * The only state of this Terminal
+		 */
+		public class Measuring extends TerminalState {
+			@Override
+			protected void eventEntry() {
+				// nothing to be done
+			}
+		}
+
+		private final Histogram histogram = new Histogram(3);
+		private final Map<Long, Integer> pending = new HashMap<>();
+		private final int fanout;
+		private final long start;
+		private final long intervalNanos;
+		private final long measureStart;
+		private long completed = 0;
+
+		/**
+		 * Constructor
+		 * @param task the owning Task
+		 * @param fanout number of responses expected per request
+		 * @param start the intended send time of the first request as given by {@link System#nanoTime()}
+		 * @param intervalNanos the interval between two requests
+		 * @param warmupNanos the duration before the measure
+		 */
+		public PingTerminal(BenchTask task, int fanout, long start, long intervalNanos, long warmupNanos) {
+			super(task);
+			this.fanout = fanout;
+			this.start = start;
+			this.intervalNanos = intervalNanos;
+			this.measureStart = start + warmupNanos;
+		}
+
+		@Override
+		public void eventResponseReceived(MessageCtx<Long> context, Long request) {
+			if(fanout > 1) {
+				int received = pending.merge(request, 1, Integer::sum);
+				if(received < fanout)
+					return;
+				pending.remove(request);
+			}
+
+			long intended = start + request * intervalNanos;
+			if(intended >= measureStart)
+				histogram.recordValue(System.nanoTime() - intended);
+			completed++;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for(String arg : args) {
+			String[] kv = arg.split("=", 2);
+			if(kv.length != 2)
+				throw new IllegalArgumentException(String.format("Invalid argument %s: key=value expected", arg));
+			options.put(kv[0], kv[1]);
+		}
+		final int rate = Integer.parseInt(options.getOrDefault("rate", "20000"));
+		final int duration = Integer.parseInt(options.getOrDefault("duration", "10"));
+		final int warmup = Integer.parseInt(options.getOrDefault("warmup", "2"));
+		final int fanout = Integer.parseInt(options.getOrDefault("fanout", "1"));
+		final String wait = options.getOrDefault("wait", "blocking");
+		final int capacity = Integer.parseInt(options.getOrDefault("capacity", "0"));
+		final ExecutionMode mode = ExecutionMode.valueOf(options.getOrDefault("mode", "THREAD"));
+
+		TaskParams taskParams = new TaskParams();
+		taskParams.setExecutionMode(mode);
+		taskParams.setJobsCapacity(capacity);
+		switch(wait) {
+		case "spin-yield-park":
+			taskParams.setWaitStrategy(SpinYieldParkWaitStrategy::new);
+			break;
+		case "busy-spin":
+			taskParams.setWaitStrategy(BusySpinWaitStrategy::new);
+			break;
+		default:
+			taskParams.setWaitStrategy(BlockingWaitStrategy::new);
+		}
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		if(options.containsKey("poolThreads"))
+			params.setPoolThreads(Integer.parseInt(options.get("poolThreads")));
+		ApplicationContext appCtx = ApplicationContext.getInstance(params);
+
+		Messaging<Long, Long> messaging = new Messaging<>();
+		for(int i=0; i < fanout; i++) {
+			final String topic = TOPIC + i;
+			BenchTask server = new BenchTask("harness-server-" + i, appCtx);
+			server.start();
+			server.callLater(() -> {
+				PongTerminal t = new PongTerminal(server);
+				t.nextState(t.new Serving());
+				messaging.register(topic, server, t);
+				return null;
+			}).get();
+		}
+
+		final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		final long total = (long) rate * (warmup + duration);
+		final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+		BenchTask client = new BenchTask("harness-client", appCtx);
+		client.start();
+		PingTerminal ping = client.callLater(() -> {
+			PingTerminal t = new PingTerminal(client, fanout, start, intervalNanos, TimeUnit.SECONDS.toNanos(warmup));
+			t.nextState(t.new Measuring());
+			return t;
+		}).get();
+
+		System.out.printf("rate=%d duration=%ds warmup=%ds fanout=%d wait=%s capacity=%d mode=%s%n",
+				rate, duration, warmup, fanout, wait, capacity, mode);
+
+		// constant rate driver: late requests are sent immediately, their latency still counts from their intended time
+		for(long i=0; i < total; i++) {
+			final long intended = start + i * intervalNanos;
+			long delay;
+			while((delay = intended - System.nanoTime()) > 0)
+				LockSupport.parkNanos(delay);
+
+			for(int s=0; s < fanout; s++)
+				messaging.publish(TOPIC + s, i, TimeLimit.noLimit(), ping, client);
+		}
+
+		// wait for the last responses
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		long completed;
+		while((completed = client.callLater(() -> ping.completed).get()) < total && System.nanoTime() < deadline)
+			Thread.sleep(100);
+
+		Histogram histogram = client.callLater(() -> ping.histogram.copy()).get();
+		System.out.printf("requests=%d completed=%d%n", total, completed);
+		System.out.printf("latency(us) p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f p99.99=%.1f max=%.1f%n",
+				histogram.getValueAtPercentile(50) / 1000.0,
+				histogram.getValueAtPercentile(90) / 1000.0,
+				histogram.getValueAtPercentile(99) / 1000.0,
+				histogram.getValueAtPercentile(99.9) / 1000.0,
+				histogram.getValueAtPercentile(99.99) / 1000.0,
+				histogram.getMaxValue() / 1000.0);
+		histogram.outputPercentileDistribution(System.out, 1000.0);
+
+		appCtx.stop();
+		appCtx.join();
+		System.exit(0);
+	}
+}
@@ -0,0 +1,50 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.LogFmt;
+
+/**
+ * Cost of building and formatting a {@link LogFmt} line as done by the event logs of the Tasks and Terminals.
+ * @author anthony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogFmtBenchmark {
+
+	private final String id = "connection-42";
+	private final long elapsed = 1234;
+
+	@Benchmark
+	public String simple() {
+		return new LogFmt()
+				.append("type", "BenchTerminal")
+				.append("state", "Running")
+				.toString();
+	}
+
+	@Benchmark
+	public String quoted() {
+		return new LogFmt()
+				.append("type", "BenchTask")
+				.append("id", id)
+				.append("event", "STARTING STOP SEQUENCE")
+				.append("elapsedMs", elapsed)
+				.toString();
+	}
+}
@@ -0,0 +1,66 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.TimeLimit;
+import com.github.timmy80.mia.messaging.MessageCtx;
+import com.github.timmy80.mia.messaging.Messaging;
+import com.github.timmy80.mia.messaging.ResponseHandler;
+
+/**
+ * Request/reply round trip through {@link Messaging#publish(String, Object, TimeLimit, ResponseHandler, com.github.timmy80.mia.core.Task)}.<br>
+ * A client Task publishes a request to a server Task which replies. An operation ends when the response has been handled
+ * by the client Task.
+ * @author anthony
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessagingBenchmark {
+
+	private ApplicationContext appCtx;
+	private BenchTask client;
+	private final Messaging<String, String> messaging = new Messaging<>();
+	private final ResponseHandler<String> responseHandler = (context, response) -> {};
+
+	@Setup(Level.Trial)
+	public void setup() {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+		client = new BenchTask("messaging-client", appCtx);
+		BenchTask server = new BenchTask("messaging-server", appCtx);
+		messaging.register("bench/+/request", server, (context, request) -> context.reply(request));
+		client.start();
+		server.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Benchmark
+	public void requestReply() throws Exception {
+		MessageCtx<String> context = messaging.publish("bench/1/request", "ping", TimeLimit.noLimit(), responseHandler, client);
+		context.join();
+	}
+}
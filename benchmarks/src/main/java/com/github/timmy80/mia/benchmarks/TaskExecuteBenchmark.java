@@ -0,0 +1,91 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.BlockingWaitStrategy;
+import com.github.timmy80.mia.core.SpinYieldParkWaitStrategy;
+import com.github.timmy80.mia.core.TaskParams;
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+
+/**
+ * Throughput of {@link com.github.timmy80.mia.core.Task#execute(Runnable)} with 1, 2 and 4 producers posting to a single Task.<br>
+ * The jobs queue is bounded with the BLOCK {@link OverflowPolicy}: the producers are throttled by the consumer instead of
+ * filling the heap, so the score is the throughput of the whole producer/consumer chain.<br>
+ * The Task alternates between draining its jobs and sleeping: the wakeup of a sleeping Task is paid by a single producer
+ * while the others only read that an event is already posted (See {@link BlockingWaitStrategy#signal()}).
+ * @author anthony
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskExecuteBenchmark {
+
+	@Param({"blocking", "spin-yield-park"})
+	public String waitStrategy;
+
+	private ApplicationContext appCtx;
+	private BenchTask task;
+	private final Runnable job = () -> {};
+
+	@Setup(Level.Trial)
+	public void setup() {
+		TaskParams taskParams = new TaskParams();
+		taskParams.setJobsCapacity(65536);
+		taskParams.setOverflowPolicy(OverflowPolicy.BLOCK);
+		if(waitStrategy.equals("spin-yield-park"))
+			taskParams.setWaitStrategy(SpinYieldParkWaitStrategy::new);
+		else
+			taskParams.setWaitStrategy(BlockingWaitStrategy::new);
+
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		appCtx = ApplicationContext.getInstance(params);
+		task = new BenchTask("task-execute", appCtx);
+		task.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void producers1() {
+		task.execute(job);
+	}
+
+	@Benchmark
+	@Threads(2)
+	public void producers2() {
+		task.execute(job);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void producers4() {
+		task.execute(job);
+	}
+}
@@ -0,0 +1,102 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
+import com.github.timmy80.mia.core.TaskParams;
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+import com.github.timmy80.mia.core.Terminal;
+import com.github.timmy80.mia.core.TerminalState;
+
+/**
+ * Dispatch of jobs to a {@link Terminal} of a {@link BenchTask} by {@link Terminal#runLater(ThrowingRunnable)}.<br>
+ * dispatch measures the producer side with a bounded jobs queue, roundTrip waits for the execution of each job.
+ * @author anthony
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TerminalBenchmark {
+
+	/**
+	 * A Terminal without any behavior
+	 */
+	public static class BenchTerminal extends Terminal<BenchTask> {
+
+		/**
+		 * The only state of this Terminal
+		 */
+		public class Running extends TerminalState {
+			@Override
+			protected void eventEntry() {
+				// nothing to be done
+			}
+		}
+
+		/**
+		 * Constructor
+		 * @param task the owning Task
+		 */
+		public BenchTerminal(BenchTask task) {
+			super(task);
+		}
+	}
+
+	private ApplicationContext appCtx;
+	private BenchTerminal terminal;
+	private final ThrowingRunnable job = () -> {};
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		TaskParams taskParams = new TaskParams();
+		taskParams.setJobsCapacity(65536);
+		taskParams.setOverflowPolicy(OverflowPolicy.BLOCK);
+
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		appCtx = ApplicationContext.getInstance(params);
+		BenchTask task = new BenchTask("terminal-dispatch", appCtx);
+		task.start();
+		terminal = task.callLater(() -> {
+			BenchTerminal t = new BenchTerminal(task);
+			t.nextState(t.new Running());
+			return t;
+		}).get();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Benchmark
+	public CompletableFuture<Void> dispatch() {
+		return terminal.runLater(job);
+	}
+
+	@Benchmark
+	public void roundTrip() {
+		terminal.runLater(job).join();
+	}
+}
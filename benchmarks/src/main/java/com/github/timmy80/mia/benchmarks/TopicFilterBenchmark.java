@@ -0,0 +1,54 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.messaging.InvalidTopicFilterException;
+import com.github.timmy80.mia.messaging.TopicFilter;
+
+/**
+ * Cost of {@link TopicFilter#matches(String)} for an exact filter and for filters with single and multi level wildcards.
+ * @author anthony
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicFilterBenchmark {
+
+	@Param({"sensors/house/kitchen/temperature", "sensors/+/+/temperature", "sensors/#"})
+	public String filter;
+
+	private TopicFilter topicFilter;
+	private final String matching = "sensors/house/kitchen/temperature";
+	private final String notMatching = "actuators/house/kitchen/heater";
+
+	@Setup
+	public void setup() throws InvalidTopicFilterException {
+		topicFilter = new TopicFilter(filter);
+	}
+
+	@Benchmark
+	public boolean match() {
+		return topicFilter.matches(matching);
+	}
+
+	@Benchmark
+	public boolean noMatch() {
+		return topicFilter.matches(notMatching);
+	}
+}
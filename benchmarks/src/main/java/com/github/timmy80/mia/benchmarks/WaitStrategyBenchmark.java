@@ -0,0 +1,83 @@
+package com.github.timmy80.mia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.timmy80.mia.core.ApplicationContext;
+import com.github.timmy80.mia.core.ApplicationContextParams;
+import com.github.timmy80.mia.core.BlockingWaitStrategy;
+import com.github.timmy80.mia.core.BusySpinWaitStrategy;
+import com.github.timmy80.mia.core.SpinYieldParkWaitStrategy;
+import com.github.timmy80.mia.core.TaskParams;
+
+/**
+ * Wakeup latency of a {@link BenchTask} for each {@link com.github.timmy80.mia.core.WaitStrategy}.<br>
+ * Every operation posts one job to an idle Task and spins until the job has been executed.<br>
+ * The busy-spin strategy requires at least 2 free cores to give meaningful results.
+ * @author anthony
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitStrategyBenchmark {
+
+	@Param({"blocking", "spin-yield-park", "busy-spin"})
+	public String waitStrategy;
+
+	private ApplicationContext appCtx;
+	private BenchTask task;
+	private volatile boolean executed;
+	private final Runnable job = () -> executed = true;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		TaskParams taskParams = new TaskParams();
+		switch(waitStrategy) {
+		case "spin-yield-park":
+			taskParams.setWaitStrategy(SpinYieldParkWaitStrategy::new);
+			break;
+		case "busy-spin":
+			taskParams.setWaitStrategy(BusySpinWaitStrategy::new);
+			break;
+		default:
+			taskParams.setWaitStrategy(BlockingWaitStrategy::new);
+		}
+
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		appCtx = ApplicationContext.getInstance(params);
+		task = new BenchTask("wait-strategy-" + waitStrategy, appCtx);
+		task.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Benchmark
+	public void wakeup() {
+		executed = false;
+		task.execute(job);
+		while(!executed)
+			Thread.onSpinWait();
+	}
+}
@@ -5,7 +5,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -50,12 +54,27 @@ public class ApplicationContext {
 	 */
 	private final HashMap<String, Task> tasks = new HashMap<>();
 	
+	/**
+	 * List of TaskGroups registered to this ApplicationContext.
+	 */
+	private final HashMap<String, TaskGroup<?>> taskGroups = new HashMap<>();
+	
 	private AtomicBoolean stopPending = new AtomicBoolean(false); 
 	
 	/**
 	 * The netty EventLoopGroup for this context.
 	 */
 	protected final EventLoopGroup eventLoopGroup;
+	
+	/**
+	 * The pool shared by the pooled Tasks of this context. Started with the first pooled Task.
+	 */
+	private volatile ExecutorService taskPool = null;
+	
+	/**
+	 * The stage for stateless jobs shared by the Tasks of this context. Started on first use.
+	 */
+	private volatile WorkStealingStage workStealingStage = null;
 
 	/**
 	 * Create an ApplicationContext with customized parameter.
@@ -92,6 +111,51 @@ public class ApplicationContext {
 		}
 	}
 	
+	/**
+	 * Register a task group to this ApplicationContext.<br>
+	 * This method is called on task group creation, before the creation of its shards.
+	 * @param group a {@link TaskGroup}
+	 */
+	protected void addTaskGroup(TaskGroup<?> group) {
+		synchronized (tasks) {
+			if (taskGroups.containsKey(group.getName()))
+				throw new IllegalArgumentException(String.format("TaskGroup name already reserved: %s", group.getName()));
+
+			taskGroups.put(group.getName(), group);
+		}
+	}
+	
+	/**
+	 * Unregister a task group from this ApplicationContext.<br>
+	 * This method is called when the creation of the group fails and once all its shards have ended.
+	 * @param group a {@link TaskGroup}
+	 */
+	protected void removeTaskGroup(TaskGroup<?> group) {
+		synchronized (tasks) {
+			taskGroups.remove(group.getName(), group);
+		}
+	}
+	
+	/**
+	 * Get a TaskGroup registered to this ApplicationContext
+	 * @param groupName the name of the {@link TaskGroup}
+	 * @return the TaskGroup or null if not found
+	 */
+	public TaskGroup<?> getTaskGroup(String groupName) {
+		synchronized (tasks) {
+			return taskGroups.get(groupName);
+		}
+	}
+	
+	/**
+	 * Get the number of shards of a TaskGroup
+	 * @param groupName the name of the {@link TaskGroup}
+	 * @return the number of shards of this TaskGroup. At least 1.
+	 */
+	public int getTaskGroupShards(String groupName) {
+		return params.getTaskGroupShards(groupName);
+	}
+	
 	/**
 	 * Remove a Task from this ApplicationContext.<br>
 	 * This method is called when a task ends.
@@ -100,8 +164,33 @@ public class ApplicationContext {
 	protected void removeTask(Task task) {
 		synchronized (tasks) {
 			tasks.remove(task.getName());
-			if(tasks.isEmpty() && isStopPending())
+			if(tasks.isEmpty() && isStopPending()) {
 				eventLoopGroup.shutdownGracefully();
+				if(taskPool != null)
+					taskPool.shutdown();
+				if(workStealingStage != null)
+					workStealingStage.shutdown();
+			}
+		}
+	}
+	
+	/**
+	 * Get the pool shared by the Tasks using {@link TaskParams.ExecutionMode#POOLED}.<br>
+	 * The pool is started on first call.
+	 * @return the ExecutorService of the pooled Tasks
+	 */
+	protected ExecutorService getTaskPool() {
+		ExecutorService pool = taskPool;
+		if(pool != null)
+			return pool;
+		
+		synchronized (tasks) {
+			if(taskPool == null) {
+				int threads = (params.getPoolThreads() == null)? Runtime.getRuntime().availableProcessors() : params.getPoolThreads();
+				AtomicInteger threadCount = new AtomicInteger();
+				taskPool = Executors.newFixedThreadPool(threads, r -> new Thread(r, "mia-pool-" + threadCount.incrementAndGet()));
+			}
+			return taskPool;
 		}
 	}
 	
@@ -113,6 +202,24 @@ public class ApplicationContext {
 		return eventLoopGroup;
 	}
 	
+	/**
+	 * Get the {@link WorkStealingStage} shared by the Tasks of this context for their stateless jobs.<br>
+	 * The stage is started on first call.
+	 * @return the WorkStealingStage of this context
+	 */
+	public WorkStealingStage getWorkStealingStage() {
+		WorkStealingStage stage = workStealingStage;
+		if(stage != null)
+			return stage;
+		
+		synchronized (tasks) {
+			if(workStealingStage == null) {
+				workStealingStage = (params.getWorkStealingThreads() == null)? new WorkStealingStage() : new WorkStealingStage(params.getWorkStealingThreads());
+			}
+			return workStealingStage;
+		}
+	}
+	
 	/**
 	 * Get the host IP listened to for probes.
 	 * @return An IP represented as a String
@@ -129,6 +236,15 @@ public class ApplicationContext {
 		return params.getProbeInetPort();
 	}
 	
+	/**
+	 * Get the parameters of a Task
+	 * @param taskName the name of the {@link Task}
+	 * @return the {@link TaskParams} of this Task. Never null.
+	 */
+	public TaskParams getTaskParams(String taskName) {
+		return params.getTaskParams(taskName);
+	}
+	
 	/**
 	 * Get the probe handlers.
 	 * @return A Map where key=path, path=handler class.
@@ -197,12 +313,22 @@ public class ApplicationContext {
 		
 		for(Task task : wTasks.values()) {
 			try {
-				task.join();
+				task.awaitTermination();
 			} catch (InterruptedException e) {
 				logger.error("Interrupted join", e);
 			}
 		}
 		if(eventLoopGroup.isShuttingDown())
 			eventLoopGroup.terminationFuture().awaitUninterruptibly();
+		ExecutorService pool = taskPool;
+		WorkStealingStage stage = workStealingStage;
+		try {
+			if(pool != null && pool.isShutdown())
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			if(stage != null && !stage.isActive())
+				stage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			logger.error("Interrupted join", e);
+		}
 	}
 }
@@ -15,6 +15,16 @@ public class ApplicationContextParams implements Cloneable {
 	 * Number of Threads allocated to the networking stack.
 	 */
 	private Integer netThreads = null;
+	
+	/**
+	 * Number of Threads of the pool shared by the pooled Tasks.
+	 */
+	private Integer poolThreads = null;
+	
+	/**
+	 * Number of Threads of the shared WorkStealingStage.
+	 */
+	private Integer workStealingThreads = null;
 
 	private HashMap<String, Class<ProbeHandlerTerm>> probes = new HashMap<>();
 
@@ -22,6 +32,26 @@ public class ApplicationContextParams implements Cloneable {
 
 	private int probeInetPort = 0; // disabled by default
 	
+	/**
+	 * Parameters of the Tasks without dedicated parameters
+	 */
+	private TaskParams defaultTaskParams = new TaskParams();
+	
+	/**
+	 * Parameters dedicated to a Task. key=task name
+	 */
+	private HashMap<String, TaskParams> taskParams = new HashMap<>();
+	
+	/**
+	 * Number of shards of the TaskGroups without dedicated number of shards. 0 means the number of available processors.
+	 */
+	private int defaultTaskGroupShards = 0;
+	
+	/**
+	 * Number of shards dedicated to a TaskGroup. key=group name
+	 */
+	private HashMap<String, Integer> taskGroupShards = new HashMap<>();
+	
 	/**
 	 * Default constructor
 	 */
@@ -48,6 +78,46 @@ public class ApplicationContextParams implements Cloneable {
 		this.netThreads = netThreads;
 	}
 
+	/**
+	 * Number of threads of the pool shared by the Tasks using {@link TaskParams.ExecutionMode#POOLED}
+	 * @return at least 1 or null for the number of available processors
+	 */
+	public Integer getPoolThreads() {
+		return poolThreads;
+	}
+
+	/**
+	 * Set the number of threads of the pool shared by the Tasks using {@link TaskParams.ExecutionMode#POOLED}.<br>
+	 * The pool is only started when the first pooled Task starts.
+	 *
+	 * @param poolThreads at least 1 or null for the number of available processors
+	 */
+	public void setPoolThreads(Integer poolThreads) {
+		if(poolThreads != null && poolThreads < 1)
+			throw new IllegalArgumentException("poolThreads cannot be less than 1");
+		this.poolThreads = poolThreads;
+	}
+
+	/**
+	 * Number of threads of the {@link WorkStealingStage} shared by the Tasks (See {@link ApplicationContext#getWorkStealingStage()})
+	 * @return at least 1 or null for the number of available processors
+	 */
+	public Integer getWorkStealingThreads() {
+		return workStealingThreads;
+	}
+
+	/**
+	 * Set the number of threads of the {@link WorkStealingStage} shared by the Tasks.<br>
+	 * The stage is only started on first use.
+	 *
+	 * @param workStealingThreads at least 1 or null for the number of available processors
+	 */
+	public void setWorkStealingThreads(Integer workStealingThreads) {
+		if(workStealingThreads != null && workStealingThreads < 1)
+			throw new IllegalArgumentException("workStealingThreads cannot be less than 1");
+		this.workStealingThreads = workStealingThreads;
+	}
+
 	/**
 	 * Specification of the probe handlers
 	 * @return A Map where key=path, path=handler class.
@@ -116,6 +186,88 @@ public class ApplicationContextParams implements Cloneable {
 		this.probeInetPort = probeInetPort;
 	}
 
+	/**
+	 * Get the parameters of the Tasks without dedicated parameters.<br>
+	 * The returned instance may be modified to change the defaults.
+	 * @return the default {@link TaskParams}
+	 */
+	public TaskParams getDefaultTaskParams() {
+		return defaultTaskParams;
+	}
+
+	/**
+	 * Set the parameters of the Tasks without dedicated parameters.
+	 * @param defaultTaskParams the default {@link TaskParams}
+	 */
+	public void setDefaultTaskParams(TaskParams defaultTaskParams) {
+		if(defaultTaskParams == null)
+			throw new IllegalArgumentException("defaultTaskParams cannot be null");
+		this.defaultTaskParams = defaultTaskParams;
+	}
+
+	/**
+	 * Get the parameters of a Task
+	 * @param taskName the name of the {@link Task}
+	 * @return the dedicated {@link TaskParams} of this Task if any. The default TaskParams otherwise.
+	 */
+	public TaskParams getTaskParams(String taskName) {
+		return taskParams.getOrDefault(taskName, defaultTaskParams);
+	}
+
+	/**
+	 * Set parameters dedicated to a Task
+	 * @param taskName the name of the {@link Task}
+	 * @param params the {@link TaskParams} of this Task. null to use the default TaskParams.
+	 */
+	public void setTaskParams(String taskName, TaskParams params) {
+		if(params == null)
+			this.taskParams.remove(taskName);
+		else
+			this.taskParams.put(taskName, params);
+	}
+
+	/**
+	 * Get the number of shards of the {@link TaskGroup}s without dedicated number of shards.
+	 * @return a number of shards or 0 for the number of available processors
+	 */
+	public int getDefaultTaskGroupShards() {
+		return defaultTaskGroupShards;
+	}
+
+	/**
+	 * Set the number of shards of the {@link TaskGroup}s without dedicated number of shards.
+	 * @param defaultTaskGroupShards a number of shards or 0 for the number of available processors (default)
+	 */
+	public void setDefaultTaskGroupShards(int defaultTaskGroupShards) {
+		if(defaultTaskGroupShards < 0)
+			throw new IllegalArgumentException("defaultTaskGroupShards cannot be negative");
+		this.defaultTaskGroupShards = defaultTaskGroupShards;
+	}
+
+	/**
+	 * Get the number of shards of a TaskGroup
+	 * @param groupName the name of the {@link TaskGroup}
+	 * @return the number of shards of this TaskGroup. At least 1.
+	 */
+	public int getTaskGroupShards(String groupName) {
+		int shards = taskGroupShards.getOrDefault(groupName, defaultTaskGroupShards);
+		return (shards > 0)? shards : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Set the number of shards dedicated to a TaskGroup
+	 * @param groupName the name of the {@link TaskGroup}
+	 * @param shards a number of shards. 0 to use the default number of shards.
+	 */
+	public void setTaskGroupShards(String groupName, int shards) {
+		if(shards < 0)
+			throw new IllegalArgumentException("shards cannot be negative");
+		if(shards == 0)
+			this.taskGroupShards.remove(groupName);
+		else
+			this.taskGroupShards.put(groupName, shards);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	protected Object clone() {
@@ -128,6 +280,13 @@ public class ApplicationContextParams implements Cloneable {
 
 		// clone the probes
 		o.probes = (HashMap<String, Class<ProbeHandlerTerm>>) probes.clone();
+		
+		// clone the task parameters
+		o.defaultTaskParams = (TaskParams) defaultTaskParams.clone();
+		o.taskParams = new HashMap<>();
+		for(String taskName : taskParams.keySet())
+			o.taskParams.put(taskName, (TaskParams) taskParams.get(taskName).clone());
+		o.taskGroupShards = (HashMap<String, Integer>) taskGroupShards.clone();
 
 		return o; // return the clone
 	}
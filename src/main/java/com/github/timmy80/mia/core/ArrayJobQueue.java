@@ -0,0 +1,192 @@
+package com.github.timmy80.mia.core;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free and pre-allocated array queue used as the jobs queue of a {@link Task}.<br>
+ * This is the bounded queue of Dmitry Vyukov: every slot holds a sequence number that tells producers and consumers
+ * if the slot is ready to be written or read. Nothing is allocated on {@link #offer(Object)} or {@link #poll()}.<br>
+ * <br>
+ * The queue is intended for multiple producers and a single consumer (the Task) but the consumer side also uses CAS
+ * so that a producer may evict the oldest element when the queue is full (see {@link TaskParams.OverflowPolicy#DROP_OLDEST}).
+ * @author anthony
+ *
+ * @param <E> the type of the elements
+ */
+class ArrayJobQueue<E> extends AbstractQueue<E> {
+
+	private final AtomicReferenceArray<E> buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+
+	/**
+	 * Position of the next element to write
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * Position of the next element to read
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param capacity the capacity of this queue. Rounded up to the next power of 2, 2 at least.
+	 */
+	ArrayJobQueue(int capacity) {
+		if(capacity < 1 || capacity > (1 << 30))
+			throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+
+		// with a single slot, the sequence of a written slot is also the sequence of a free slot for the next round
+		int size = 2;
+		while(size < capacity)
+			size <<= 1;
+
+		this.mask = size - 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for(int i=0; i < size; i++)
+			sequences.set(i, i);
+	}
+
+	/**
+	 * Get the capacity of this queue
+	 * @return a power of 2
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if(e == null)
+			throw new NullPointerException();
+
+		long pos = tail.get();
+		for(;;) {
+			int index = (int) pos & mask;
+			long dif = sequences.get(index) - pos;
+			if(dif == 0) {
+				if(tail.compareAndSet(pos, pos + 1)) {
+					buffer.lazySet(index, e);
+					sequences.lazySet(index, pos + 1); // publish the element
+					return true;
+				}
+				pos = tail.get();
+			}
+			else if(dif < 0) {
+				return false; // full
+			}
+			else {
+				pos = tail.get(); // another producer took this slot
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		long pos = head.get();
+		for(;;) {
+			int index = (int) pos & mask;
+			long dif = sequences.get(index) - (pos + 1);
+			if(dif == 0) {
+				if(head.compareAndSet(pos, pos + 1)) {
+					E e = buffer.get(index);
+					buffer.lazySet(index, null);
+					sequences.lazySet(index, pos + mask + 1); // release the slot for the next round
+					return e;
+				}
+				pos = head.get();
+			}
+			else if(dif < 0) {
+				return null; // empty
+			}
+			else {
+				pos = head.get(); // an evicting producer took this slot
+			}
+		}
+	}
+
+	@Override
+	public E peek() {
+		long pos = head.get();
+		int index = (int) pos & mask;
+		if(sequences.get(index) - (pos + 1) != 0)
+			return null;
+		return buffer.get(index);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return head.get() >= tail.get();
+	}
+
+	@Override
+	public int size() {
+		long size = tail.get() - head.get();
+		if(size < 0)
+			return 0;
+		return (int) Math.min(size, capacity());
+	}
+
+	/**
+	 * Get a weakly consistent iterator over the elements of this queue, from the oldest to the newest.<br>
+	 * The iterator never throws ConcurrentModificationException: it returns the elements present at the creation of the iterator
+	 * and not polled since, and may return some of the elements offered after its creation.<br>
+	 * {@link Iterator#remove()} is not supported: an element can only leave this queue by its head.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Itr();
+	}
+	
+	/**
+	 * Weakly consistent iterator over the published slots between the head and the tail
+	 */
+	private final class Itr implements Iterator<E> {
+		
+		/**
+		 * Position of the next slot to read
+		 */
+		private long pos = head.get();
+		
+		/**
+		 * The next element to return. null if not searched yet or if there is none.
+		 */
+		private E next = null;
+		
+		@Override
+		public boolean hasNext() {
+			if(next != null)
+				return true;
+			
+			pos = Math.max(pos, head.get()); // skip the polled elements
+			for(long end = tail.get(); pos < end; pos++) {
+				int index = (int) pos & mask;
+				if(sequences.get(index) != pos + 1)
+					continue; // polled meanwhile or not published yet
+				E e = buffer.get(index);
+				if(e != null && sequences.get(index) == pos + 1) { // still the element of this position
+					next = e;
+					pos++;
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public E next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			E e = next;
+			next = null;
+			return e;
+		}
+	}
+}
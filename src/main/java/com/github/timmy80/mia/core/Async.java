@@ -1,10 +1,13 @@
 package com.github.timmy80.mia.core;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timeout;
@@ -22,6 +25,8 @@ import io.netty.util.Timer;
  * 
  * When the execution time is constrained in case of a timeout the CompletableFuture will be completed exceptionally by a 
  * {@link TimeLimitExceededException}<br>
+ * A call whose time limit is exceeded before its execution is not executed. A running call is never interrupted: it gives up
+ * cooperatively by checking its {@link CancellationToken}.<br>
  * <br>
  * Examples:
  * <pre>{@code
@@ -35,7 +40,8 @@ import io.netty.util.Timer;
 public class Async {
 	
 	/**
-	 * Timer for time constrained executions
+	 * Timer of the timeouts created by {@link #newTimeout(long, TimeUnit, TimerTask)}.<br>
+	 * The timeouts of a {@link Task} use the timer of the Task instead (See {@link Task#getTimer()}).
 	 */
 	protected static final Timer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
 	
@@ -224,7 +230,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static CompletableFuture<Void> execute(Executor executor, Runnable runnable){
-		return runLater(executor, ()-> runnable.run());
+		return runLater(executor, runnable::run);
 	}
 	
 	/**
@@ -246,7 +252,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0> CompletableFuture<Void> runLater(Executor executor, VoidFunction1<T0> function, T0 arg0){
-		return runLater(executor, () -> function.apply(arg0));
+		return runBefore(executor, TimeLimit.noLimit(), function, arg0);
 	}
 	
 	/**
@@ -260,7 +266,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1> CompletableFuture<Void> runLater(Executor executor, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runLater(executor, () -> function.apply(arg0, arg1));
+		return runBefore(executor, TimeLimit.noLimit(), function, arg0, arg1);
 	}
 	
 	/**
@@ -276,7 +282,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1, T2> CompletableFuture<Void> runLater(Executor executor, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runLater(executor, () -> function.apply(arg0, arg1, arg2));
+		return runBefore(executor, TimeLimit.noLimit(), function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -294,7 +300,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1, T2, T3> CompletableFuture<Void> runLater(Executor executor, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runLater(executor, () -> function.apply(arg0, arg1, arg2, arg3));
+		return runBefore(executor, TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -318,7 +324,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0> CompletableFuture<R> callLater(Executor executor, Function1<R, T0> function, T0 arg0){
-		return callLater(executor, () -> function.apply(arg0));
+		return callBefore(executor, TimeLimit.noLimit(), function, arg0);
 	}
 	
 	/**
@@ -333,7 +339,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1> CompletableFuture<R> callLater(Executor executor, Function2<R, T0, T1> function, T0 arg0, T1 arg1){
-		return callLater(executor, () -> function.apply(arg0, arg1));
+		return callBefore(executor, TimeLimit.noLimit(), function, arg0, arg1);
 	}
 	
 	/**
@@ -350,7 +356,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1, T2> CompletableFuture<R> callLater(Executor executor, Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return callLater(executor, () -> function.apply(arg0, arg1, arg2));
+		return callBefore(executor, TimeLimit.noLimit(), function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -369,7 +375,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1, T2, T3> CompletableFuture<R> callLater(Executor executor, Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return callLater(executor, () -> function.apply(arg0, arg1, arg2, arg3));
+		return callBefore(executor, TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -380,7 +386,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static CompletableFuture<Void> executeBefore(Executor executor, TimeLimit limit, Runnable runnable){
-		return runBefore(executor, limit, ()-> runnable.run());
+		return runBefore(executor, limit, runnable::run);
 	}
 	
 	/**
@@ -391,7 +397,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static CompletableFuture<Void> runBefore(Executor executor, TimeLimit limit, ThrowingRunnable runnable){
-		return callBefore(executor, limit, ()->{ runnable.run(); return null; });
+		return submit(executor, new AsyncJob.Run(limit, runnable));
 	}
 	
 	/**
@@ -404,7 +410,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0> CompletableFuture<Void> runBefore(Executor executor, TimeLimit limit, VoidFunction1<T0> function, T0 arg0){
-		return runBefore(executor, limit, () -> function.apply(arg0));
+		return submit(executor, new AsyncJob.Run1<>(limit, function, arg0));
 	}
 
 	/**
@@ -419,7 +425,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1> CompletableFuture<Void> runBefore(Executor executor, TimeLimit limit, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runBefore(executor, limit, () -> function.apply(arg0, arg1));
+		return submit(executor, new AsyncJob.Run2<>(limit, function, arg0, arg1));
 	}
 
 	/**
@@ -436,7 +442,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1, T2> CompletableFuture<Void> runBefore(Executor executor, TimeLimit limit, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runBefore(executor, limit, () -> function.apply(arg0, arg1, arg2));
+		return submit(executor, new AsyncJob.Run3<>(limit, function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -455,7 +461,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <T0, T1, T2, T3> CompletableFuture<Void> runBefore(Executor executor, TimeLimit limit, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runBefore(executor, limit, () -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(executor, new AsyncJob.Run4<>(limit, function, arg0, arg1, arg2, arg3));
 	}
 	
 	/**
@@ -464,37 +470,10 @@ public class Async {
 	 * @param executor the {@link Executor}
 	 * @param limit the {@link TimeLimit} for the execution
 	 * @param callable the {@link Callable}
-	 * @return A {@link CompletableFuture} for the execution
+	 * @return A {@link CompletableFuture} for the execution. Completed exceptionally by a {@link RejectedExecutionException} if the executor rejected the call.
 	 */
 	public static <R> CompletableFuture<R> callBefore(Executor executor, TimeLimit limit, Callable<R> callable){
-		CompletableFuture<R> future = new CompletableFuture<R>();
-		executor.execute(() -> {
-			Timeout t = null;
-			try {
-				if(limit.isExpired())
-					throw new TimeLimitExceededException(false);
-				
-				final Thread thread = Thread.currentThread();
-				if(!limit.isNoLimit()) {
-					t = timer.newTimeout((Timeout timeout) ->{
-						thread.interrupt(); // interrupt the thread in case of timeout to interrupt any blocking task
-					}, limit.remaining(), TimeUnit.MILLISECONDS);
-				}
-				future.complete(callable.call());
-				t.cancel(); // cancel timer ASAP to avoid false positive timeout.
-			}
-			catch(InterruptedException e) {
-				future.completeExceptionally(new TimeLimitExceededException(true, e));
-			}
-			catch(Exception e) {
-				future.completeExceptionally(e);
-			}
-			finally {
-				if(t != null)
-					t.cancel();
-			}
-		});
-		return future;
+		return submit(executor, new AsyncJob.Call<>(limit, callable));
 	}
 	
 	/**
@@ -508,7 +487,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0> CompletableFuture<R> callBefore(Executor executor, TimeLimit limit, Function1<R, T0> function, T0 arg0){
-		return callBefore(executor, limit, () -> function.apply(arg0));
+		return submit(executor, new AsyncJob.Call1<>(limit, function, arg0));
 	}
 	
 	/**
@@ -524,7 +503,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1> CompletableFuture<R> callBefore(Executor executor, TimeLimit limit, Function2<R, T0, T1> function, T0 arg0, T1 arg1){
-		return callBefore(executor, limit, () -> function.apply(arg0, arg1));
+		return submit(executor, new AsyncJob.Call2<>(limit, function, arg0, arg1));
 	}
 	
 	/**
@@ -542,7 +521,7 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1, T2> CompletableFuture<R> callBefore(Executor executor, TimeLimit limit, Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return callBefore(executor, limit, () -> function.apply(arg0, arg1, arg2));
+		return submit(executor, new AsyncJob.Call3<>(limit, function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -562,7 +541,216 @@ public class Async {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public static <R, T0, T1, T2, T3> CompletableFuture<R> callBefore(Executor executor, TimeLimit limit, Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return callBefore(executor, limit, () -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(executor, new AsyncJob.Call4<>(limit, function, arg0, arg1, arg2, arg3));
+	}
+	
+	/**
+	 * Submit a job to an {@link Executor}
+	 * @param <R> Return type of the job
+	 * @param executor the {@link Executor}
+	 * @param job the job
+	 * @return the job. Completed exceptionally by a {@link RejectedExecutionException} if the executor rejected the job.
+	 */
+	static <R> AsyncJob<R> submit(Executor executor, AsyncJob<R> job){
+		try {
+			executor.execute(job);
+		} catch(RejectedExecutionException e) {
+			job.reject(e);
+		}
+		return job;
+	}
+	
+	//***************************************************************************
+	// Fire and forget: no CompletableFuture is returned, failures are logged.
+	//***************************************************************************
+	
+	/**
+	 * Submit a job whose result is not observed
+	 * @param executor the {@link Executor}
+	 * @param job the job
+	 */
+	static void post(Executor executor, AsyncJob<Void> job){
+		job.posted = true;
+		submit(executor, job);
+	}
+	
+	/**
+	 * pass the given runnable to an {@link Executor} without observing the result.<br>
+	 * Cheaper than {@link #runLater(Executor, ThrowingRunnable)}: the job is the only allocation and is not completed. 
+	 * An exception thrown by the runnable or a rejection by the executor is logged.
+	 * @param executor the {@link Executor}
+	 * @param runnable the {@link ThrowingRunnable}
+	 */
+	public static void post(Executor executor, ThrowingRunnable runnable){
+		post(executor, new AsyncJob.Run(TimeLimit.noLimit(), runnable));
+	}
+	
+	/**
+	 * pass the given function to an {@link Executor} without observing the result.<br>
+	 * See {@link #post(Executor, ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param executor the {@link Executor}
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 */
+	public static <T0> void post(Executor executor, VoidFunction1<T0> function, T0 arg0){
+		post(executor, new AsyncJob.Run1<>(TimeLimit.noLimit(), function, arg0));
+	}
+	
+	/**
+	 * pass the given function to an {@link Executor} without observing the result.<br>
+	 * See {@link #post(Executor, ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param executor the {@link Executor}
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 */
+	public static <T0, T1> void post(Executor executor, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
+		post(executor, new AsyncJob.Run2<>(TimeLimit.noLimit(), function, arg0, arg1));
+	}
+	
+	/**
+	 * pass the given function to an {@link Executor} without observing the result.<br>
+	 * See {@link #post(Executor, ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param executor the {@link Executor}
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 */
+	public static <T0, T1, T2> void post(Executor executor, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
+		post(executor, new AsyncJob.Run3<>(TimeLimit.noLimit(), function, arg0, arg1, arg2));
+	}
+	
+	/**
+	 * pass the given function to an {@link Executor} without observing the result.<br>
+	 * See {@link #post(Executor, ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param <T3> Type of the forth function arg
+	 * @param executor the {@link Executor}
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 * @param arg3 the forth function arg
+	 */
+	public static <T0, T1, T2, T3> void post(Executor executor, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
+		post(executor, new AsyncJob.Run4<>(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3));
+	}
+	
+	//#endregion
+	
+	//#region
+	//***************************************************************************
+	// Combinators: join several calls within a shared TimeLimit.
+	// ex: Async.allBefore(task, limit, List.of(a.callBefore(limit, ...), b.callBefore(limit, ...)))
+	//***************************************************************************
+	
+	/**
+	 * Wait for several calls within a shared {@link TimeLimit}.<br>
+	 * The future is completed when every branch is completed, normally or exceptionally, or when the time limit is reached:
+	 * the branches which are not completed yet are cancelled and their result is missing from the {@link PartialResults}.<br>
+	 * The future is completed by a job of the executor, so that the caller resumes on its own {@link Task}. A single timeout
+	 * is created whatever the number of branches, on the timer of the Task if the executor is a Task or a {@link Terminal}.
+	 * @param <R> Result type of the branches
+	 * @param executor the {@link Executor} completing the future. Usually the calling Task.
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls. Usually submitted with the same limit: see {@link #callBefore(Executor, TimeLimit, Callable)}.
+	 * @return A {@link CompletableFuture} for the join. Cancelling it cancels the branches.
+	 */
+	public static <R> CompletableFuture<PartialResults<R>> allBefore(Executor executor, TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches){
+		return Combinator.join(StageFuture.stageOf(executor), limit, Combinator.Mode.ALL, branches);
+	}
+	
+	/**
+	 * Wait for the first of several calls within a shared {@link TimeLimit}.<br>
+	 * The future is completed like the first completed branch, normally or exceptionally, or by a {@link TimeLimitExceededException}
+	 * when the time limit is reached. The other branches are cancelled.<br>
+	 * See {@link #allBefore(Executor, TimeLimit, List)} for the executor and the timeout.
+	 * @param <R> Result type of the branches
+	 * @param executor the {@link Executor} completing the future. Usually the calling Task.
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls. At least one.
+	 * @return A {@link CompletableFuture} for the join. Cancelling it cancels the branches.
+	 * @throws IllegalArgumentException if no branch is given
+	 */
+	public static <R> CompletableFuture<R> anyBefore(Executor executor, TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches){
+		return Combinator.join(StageFuture.stageOf(executor), limit, Combinator.Mode.ANY, branches);
+	}
+	
+	/**
+	 * Wait for the first successful call among several calls within a shared {@link TimeLimit}.<br>
+	 * The future is completed by the result of the first branch completed normally, by the failure of the last branch if every
+	 * branch failed, or by a {@link TimeLimitExceededException} when the time limit is reached. The other branches are cancelled.<br>
+	 * See {@link #allBefore(Executor, TimeLimit, List)} for the executor and the timeout.
+	 * @param <R> Result type of the branches
+	 * @param executor the {@link Executor} completing the future. Usually the calling Task.
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls. At least one.
+	 * @return A {@link CompletableFuture} for the join. Cancelling it cancels the branches.
+	 * @throws IllegalArgumentException if no branch is given
+	 */
+	public static <R> CompletableFuture<R> firstSuccessful(Executor executor, TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches){
+		return Combinator.join(StageFuture.stageOf(executor), limit, Combinator.Mode.FIRST_SUCCESSFUL, branches);
+	}
+	
+	//***************************************************************************
+	// Hedged and retried calls within a TimeLimit.
+	// ex: Async.hedgeBefore(task, limit, policy, i -> peers[i].callBefore(limit, ...))
+	//***************************************************************************
+	
+	/**
+	 * Call with duplicate requests within a {@link TimeLimit}.<br>
+	 * The first attempt is started at once. A duplicate attempt is started when the delay of the {@link HedgePolicy} elapses
+	 * without any answer (a percentile of the latencies recorded by the policy), or when the pending attempts failed, up to
+	 * {@link HedgePolicy#getMaxHedges()} duplicates. The first attempt completed normally completes the future and the other
+	 * attempts are cancelled. The future fails with the last failure if every attempt failed, or with a {@link TimeLimitExceededException}
+	 * when the time limit is reached.<br>
+	 * <br>
+	 * The attempts are started and the future is completed by the executor, which should be the calling Task: the duplicates
+	 * are started by a timeout on the timer of the Task.<br>
+	 * Example, the duplicate being sent to another peer:
+	 * <pre>{@code
+	 * Async.hedgeBefore(this, limit, policy, i -> peers.get(i % peers.size()).callBefore(limit, () -> lookup(key)));
+	 * }</pre>
+	 * @param <R> Result type of the call
+	 * @param executor the {@link Executor} starting the attempts and completing the future. Usually the calling Task.
+	 * @param limit the {@link TimeLimit} shared by the attempts
+	 * @param policy the {@link HedgePolicy}
+	 * @param attempt the function starting an attempt given its index: 0 for the first request, 1 for the first duplicate...
+	 * @return A {@link CompletableFuture} for the call. Cancelling it cancels the pending attempts.
+	 */
+	public static <R> CompletableFuture<R> hedgeBefore(Executor executor, TimeLimit limit, HedgePolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt){
+		return Hedge.call(StageFuture.stageOf(executor), limit, policy, attempt);
+	}
+	
+	/**
+	 * Call with retries within a {@link TimeLimit}.<br>
+	 * A failed attempt is retried after the backoff of the {@link RetryPolicy} if its failure is transient, up to
+	 * {@link RetryPolicy#getMaxAttempts()} attempts and as long as the time limit leaves time for the backoff. Otherwise the future
+	 * fails with the failure of the last attempt.<br>
+	 * <br>
+	 * The attempts are started and the future is completed by the executor, which should be the calling Task. Hedging and retries
+	 * combine by retrying a hedged call:
+	 * <pre>{@code
+	 * Async.retryBefore(this, limit, retries, n -> Async.hedgeBefore(this, limit, hedges, i -> peers.get((n + i) % peers.size()).callBefore(limit, () -> lookup(key))));
+	 * }</pre>
+	 * @param <R> Result type of the call
+	 * @param executor the {@link Executor} starting the attempts and completing the future. Usually the calling Task.
+	 * @param limit the {@link TimeLimit} shared by the attempts
+	 * @param policy the {@link RetryPolicy}
+	 * @param attempt the function starting an attempt given its index: 0 for the first attempt, 1 for the first retry...
+	 * @return A {@link CompletableFuture} for the call. Cancelling it cancels the pending attempt.
+	 */
+	public static <R> CompletableFuture<R> retryBefore(Executor executor, TimeLimit limit, RetryPolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt){
+		return Retry.call(StageFuture.stageOf(executor), limit, policy, attempt);
 	}
 	
 	//#endregion
@@ -608,7 +796,8 @@ public class Async {
 	}
 	
 	/**
-	 * Create a new Timeout. If the delay is reached, the timerTask is called on the given executor. 
+	 * Create a new Timeout. If the delay is reached, the timerTask is called on the given executor.<br>
+	 * If the executor is a {@link Task}, the timeout is created on the timer of the Task (See {@link Task#getTimer()}).
 	 * @param executor the executor that will call the timeoutFunction
 	 * @param delay the delay of this timer
 	 * @param unit the unit of the delay
@@ -616,6 +805,8 @@ public class Async {
 	 * @return a {@link Timeout} for the given args
 	 */
 	public static Timeout newTimeout(Executor executor, long delay, TimeUnit unit, TimerTask timerTask) {
+		if(executor instanceof Task)
+			return ((Task) executor).newTimeout(delay, unit, timerTask); // no hand-off: see Task#getTimer()
 		return newTimeout(delay, unit, t -> {
 			runLater(executor, timerTask::run, t);
 		});
@@ -0,0 +1,419 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.timmy80.mia.core.Async.Function1;
+import com.github.timmy80.mia.core.Async.Function2;
+import com.github.timmy80.mia.core.Async.Function3;
+import com.github.timmy80.mia.core.Async.Function4;
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
+import com.github.timmy80.mia.core.Async.VoidFunction1;
+import com.github.timmy80.mia.core.Async.VoidFunction2;
+import com.github.timmy80.mia.core.Async.VoidFunction3;
+import com.github.timmy80.mia.core.Async.VoidFunction4;
+
+/**
+ * The job submitted to an {@link java.util.concurrent.Executor} by {@link Async#callBefore(java.util.concurrent.Executor, TimeLimit, Callable)}.<br>
+ * Keeping the {@link TimeLimit} and the {@link CompletableFuture} of the call along with the job allows a {@link Task} to
+ * reject the job without executing it.<br>
+ * <br>
+ * The job is the {@link CompletableFuture} of the call and holds the called function along with its arguments: a call
+ * allocates a single object whatever the number of arguments. A job which is completed or cancelled before its execution
+ * is not executed.<br>
+ * <br>
+ * The job is the {@link CancellationToken} of its execution: a time constrained job is never interrupted, the callable checks
+ * the token at its safe points.
+ * @author anthony
+ *
+ * @param <R> The return Type
+ */
+abstract class AsyncJob<R> extends CompletableFuture<R> implements Runnable, CancellationToken {
+
+	private static Logger logger = LogManager.getLogger(AsyncJob.class.getName());
+
+	/**
+	 * The time constrained job being executed by the current Thread. See {@link CancellationToken#current()}.
+	 */
+	static final ThreadLocal<AsyncJob<?>> running = new ThreadLocal<>();
+
+	final TimeLimit limit;
+
+	/**
+	 * When set, the job is not executed if this {@link Terminal} is terminated
+	 */
+	Terminal<?> guard = null;
+
+	/**
+	 * When set, the job is not executed if this {@link TerminalState} is not the active state of its Terminal
+	 */
+	TerminalState stateGuard = null;
+
+	/**
+	 * True if nobody observes the result of this job: failures are logged instead of completing this future.
+	 */
+	boolean posted = false;
+
+	/**
+	 * Submission time as given by {@link System#nanoTime()} when this job is sampled by the {@link TaskMetrics}. 0 otherwise.
+	 */
+	long submitTime = 0;
+
+	/**
+	 * Constructor
+	 * @param limit The {@link TimeLimit} for this call.
+	 */
+	AsyncJob(TimeLimit limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Execute the called function
+	 * @return the result of the function
+	 * @throws Exception any exception thrown by the function
+	 */
+	abstract R call() throws Exception;
+
+	/**
+	 * Get the function called by this job
+	 * @return a functional interface given by the user
+	 */
+	abstract Object target();
+
+	/**
+	 * Complete this job exceptionally without executing it.
+	 * @param cause the reason of the rejection
+	 */
+	void reject(Throwable cause) {
+		if(posted)
+			logger.error("Posted job rejected.", cause);
+		else
+			completeExceptionally(cause);
+	}
+
+	/**
+	 * Complete this job exceptionally without executing it if its {@link TimeLimit} is exceeded.
+	 * @return true if the job has been rejected
+	 */
+	boolean rejectIfExpired() {
+		if(!limit.isExpired())
+			return false;
+
+		reject(TimeLimitExceededException.EXPIRED_BEFORE_EXECUTION);
+		return true;
+	}
+
+	/**
+	 * Complete this job exceptionally after a failed execution.
+	 * @param cause the failure
+	 */
+	private void fail(Throwable cause) {
+		if(posted)
+			logger.error("Unexpected exception while executing posted job.", cause);
+		else
+			completeExceptionally(cause);
+	}
+
+	@Override
+	public boolean isCancellationRequested() {
+		return isCancelled() || limit.isExpired();
+	}
+
+	/**
+	 * Check the guards of this job
+	 * @return the exception preventing the execution or null if the job can be executed
+	 */
+	private Exception checkGuards() {
+		if(stateGuard != null && !stateGuard.isActive())
+			return new InactiveStateException(stateGuard);
+		if(guard != null && guard.isTerminated())
+			return new TerminatedTerminalException(guard);
+		return null;
+	}
+
+	@Override
+	public void run() {
+		if(isDone() || rejectIfExpired())
+			return;
+
+		Exception guardFailure = checkGuards();
+		if(guardFailure != null) {
+			if(posted)
+				logger.debug("Posted job dropped: {}", guardFailure.getMessage());
+			else
+				completeExceptionally(guardFailure);
+			return;
+		}
+
+		final boolean limited = !limit.isNoLimit();
+		AsyncJob<?> outer = null;
+		if(limited) {
+			// expose the cancellation token to the callable, no timer is armed
+			outer = running.get();
+			running.set(this);
+		}
+		try {
+			R result = call();
+			if(posted)
+				return;
+			if(limited && limit.isExpired()) // the caller gave up while the call was running
+				completeExceptionally(new TimeLimitExceededException(true));
+			else
+				complete(result);
+		}
+		catch(InterruptedException e) {
+			fail(new TimeLimitExceededException(true, e));
+		}
+		catch(Exception e) {
+			fail(e);
+		}
+		finally {
+			if(limited)
+				running.set(outer);
+		}
+	}
+
+	//#region
+	//***************************************************************************
+	// A job for every functional interface of Async
+	//***************************************************************************
+
+	static final class Call<R> extends AsyncJob<R> {
+		private final Callable<R> callable;
+
+		Call(TimeLimit limit, Callable<R> callable) {
+			super(limit);
+			this.callable = callable;
+		}
+
+		@Override
+		R call() throws Exception {
+			return callable.call();
+		}
+
+		@Override
+		Object target() {
+			return callable;
+		}
+	}
+
+	static final class Call1<R, T0> extends AsyncJob<R> {
+		private final Function1<R, T0> function;
+		private final T0 arg0;
+
+		Call1(TimeLimit limit, Function1<R, T0> function, T0 arg0) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+		}
+
+		@Override
+		R call() throws Exception {
+			return function.apply(arg0);
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Call2<R, T0, T1> extends AsyncJob<R> {
+		private final Function2<R, T0, T1> function;
+		private final T0 arg0;
+		private final T1 arg1;
+
+		Call2(TimeLimit limit, Function2<R, T0, T1> function, T0 arg0, T1 arg1) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+		}
+
+		@Override
+		R call() throws Exception {
+			return function.apply(arg0, arg1);
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Call3<R, T0, T1, T2> extends AsyncJob<R> {
+		private final Function3<R, T0, T1, T2> function;
+		private final T0 arg0;
+		private final T1 arg1;
+		private final T2 arg2;
+
+		Call3(TimeLimit limit, Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+			this.arg2 = arg2;
+		}
+
+		@Override
+		R call() throws Exception {
+			return function.apply(arg0, arg1, arg2);
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Call4<R, T0, T1, T2, T3> extends AsyncJob<R> {
+		private final Function4<R, T0, T1, T2, T3> function;
+		private final T0 arg0;
+		private final T1 arg1;
+		private final T2 arg2;
+		private final T3 arg3;
+
+		Call4(TimeLimit limit, Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+			this.arg2 = arg2;
+			this.arg3 = arg3;
+		}
+
+		@Override
+		R call() throws Exception {
+			return function.apply(arg0, arg1, arg2, arg3);
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Run extends AsyncJob<Void> {
+		private final ThrowingRunnable runnable;
+
+		Run(TimeLimit limit, ThrowingRunnable runnable) {
+			super(limit);
+			this.runnable = runnable;
+		}
+
+		@Override
+		Void call() throws Exception {
+			runnable.run();
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return runnable;
+		}
+	}
+
+	static final class Run1<T0> extends AsyncJob<Void> {
+		private final VoidFunction1<T0> function;
+		private final T0 arg0;
+
+		Run1(TimeLimit limit, VoidFunction1<T0> function, T0 arg0) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+		}
+
+		@Override
+		Void call() throws Exception {
+			function.apply(arg0);
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Run2<T0, T1> extends AsyncJob<Void> {
+		private final VoidFunction2<T0, T1> function;
+		private final T0 arg0;
+		private final T1 arg1;
+
+		Run2(TimeLimit limit, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+		}
+
+		@Override
+		Void call() throws Exception {
+			function.apply(arg0, arg1);
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Run3<T0, T1, T2> extends AsyncJob<Void> {
+		private final VoidFunction3<T0, T1, T2> function;
+		private final T0 arg0;
+		private final T1 arg1;
+		private final T2 arg2;
+
+		Run3(TimeLimit limit, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+			this.arg2 = arg2;
+		}
+
+		@Override
+		Void call() throws Exception {
+			function.apply(arg0, arg1, arg2);
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+
+	static final class Run4<T0, T1, T2, T3> extends AsyncJob<Void> {
+		private final VoidFunction4<T0, T1, T2, T3> function;
+		private final T0 arg0;
+		private final T1 arg1;
+		private final T2 arg2;
+		private final T3 arg3;
+
+		Run4(TimeLimit limit, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3) {
+			super(limit);
+			this.function = function;
+			this.arg0 = arg0;
+			this.arg1 = arg1;
+			this.arg2 = arg2;
+			this.arg3 = arg3;
+		}
+
+		@Override
+		Void call() throws Exception {
+			function.apply(arg0, arg1, arg2, arg3);
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return function;
+		}
+	}
+	//#endregion
+}
@@ -0,0 +1,76 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Default {@link WaitStrategy}: the Task Thread is parked until an event is posted.<br>
+ * This strategy does not consume any CPU while waiting but the wakeup latency depends on the OS scheduler.
+ * @author anthony
+ *
+ */
+public class BlockingWaitStrategy extends WaitStrategy {
+
+	/**
+	 * The Thread parked on this strategy
+	 */
+	private volatile Thread waiter;
+
+	/**
+	 * True while the waiter is parked or about to park. Signaling a Thread which is not sleeping is useless.
+	 */
+	private volatile boolean sleeping = false;
+
+	/**
+	 * Default constructor
+	 */
+	public BlockingWaitStrategy() {
+
+	}
+
+	/**
+	 * Post an event and unpark the waiting Thread if it is sleeping.<br>
+	 * Only the producer posting the event may unpark the waiter: the signals of the other producers are coalesced with it,
+	 * so a Task which is busy draining its jobs costs its producers a single read.
+	 */
+	@Override
+	public void signal() {
+		// post() then check sleeping, while the waiter sets sleeping then checks the post: one of them sees the other
+		if(post() && sleeping) {
+			Thread t = waiter;
+			if(t != null)
+				LockSupport.unpark(t);
+		}
+	}
+
+	@Override
+	public boolean await(long timeoutNanos) throws InterruptedException {
+		return park(timeoutNanos);
+	}
+
+	/**
+	 * Park the calling Thread until an event is posted or until the timeout is reached.
+	 * @param timeoutNanos wait timeout in nanoseconds
+	 * @return true if the Thread has been parked and woken up by a posted event, 
+	 * false if an event was already posted or if the timeout has been reached
+	 * @throws InterruptedException if the waiting Thread has been interrupted
+	 */
+	protected boolean park(long timeoutNanos) throws InterruptedException {
+		final Thread current = Thread.currentThread();
+		if(waiter != current)
+			waiter = current;
+		boolean woken = false;
+		sleeping = true;
+		try {
+			if(!consumePost()) {
+				LockSupport.parkNanos(this, timeoutNanos);
+				woken = consumePost();
+			}
+		} finally {
+			sleeping = false;
+		}
+
+		if(Thread.interrupted())
+			throw new InterruptedException();
+		return woken;
+	}
+}
@@ -0,0 +1,42 @@
+package com.github.timmy80.mia.core;
+
+/**
+ * {@link WaitStrategy} that never releases the CPU.<br>
+ * This strategy offers the lowest wakeup latency but a Task using it consumes a full core even when idle.
+ * It should only be used for latency critical Tasks running on a dedicated core.
+ * @author anthony
+ *
+ */
+public class BusySpinWaitStrategy extends WaitStrategy {
+
+	/**
+	 * Default constructor
+	 */
+	public BusySpinWaitStrategy() {
+
+	}
+
+	@Override
+	public void signal() {
+		post();
+	}
+
+	@Override
+	public boolean await(long timeoutNanos) throws InterruptedException {
+		final long deadline = System.nanoTime() + timeoutNanos;
+		boolean woken = false;
+		if(!consumePost()) {
+			while(System.nanoTime() - deadline < 0) {
+				Thread.onSpinWait();
+				if(consumePost()) {
+					woken = true;
+					break;
+				}
+			}
+		}
+
+		if(Thread.interrupted())
+			throw new InterruptedException();
+		return woken;
+	}
+}
@@ -0,0 +1,55 @@
+package com.github.timmy80.mia.core;
+
+/**
+ * Cooperative cancellation of a time constrained call (See {@link Async#callBefore(java.util.concurrent.Executor, TimeLimit, java.util.concurrent.Callable)}).<br>
+ * A call is never interrupted: once started, it runs until it returns. A long call checks the token of its execution at its own
+ * safe points (between two items of a batch, before a blocking operation...) and gives up by throwing the {@link TimeLimitExceededException}
+ * of {@link #throwIfCancellationRequested()}.<br>
+ * <br>
+ * Cancellation is requested when the {@link TimeLimit} of the call is exceeded or when its CompletableFuture is cancelled.<br>
+ * Example:
+ * <pre>{@code
+ * task.callBefore(TimeLimit.in(100), () -> {
+ *     CancellationToken token = CancellationToken.current();
+ *     for(Item item : items) {
+ *         token.throwIfCancellationRequested();
+ *         process(item);
+ *     }
+ *     return items.size();
+ * });
+ * }</pre>
+ * @author anthony
+ *
+ */
+public interface CancellationToken {
+
+	/**
+	 * The token of the calls which cannot be cancelled
+	 */
+	public static final CancellationToken NONE = () -> false;
+
+	/**
+	 * Get the token of the call being executed by the current Thread
+	 * @return the token of the time constrained call being executed or {@link #NONE}
+	 */
+	public static CancellationToken current() {
+		CancellationToken token = AsyncJob.running.get();
+		return (token == null)? NONE : token;
+	}
+
+	/**
+	 * Check if the call should give up
+	 * @return true if the cancellation of the call is requested
+	 */
+	public boolean isCancellationRequested();
+
+	/**
+	 * Give up the call if its cancellation is requested
+	 * @throws TimeLimitExceededException if the cancellation of the call is requested.
+	 * The CompletableFuture of the call is completed exceptionally by this exception.
+	 */
+	public default void throwIfCancellationRequested() throws TimeLimitExceededException {
+		if(isCancellationRequested())
+			throw new TimeLimitExceededException(true);
+	}
+}
@@ -0,0 +1,242 @@
+package com.github.timmy80.mia.core;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.Timeout;
+
+/**
+ * The join of several branches within a shared {@link TimeLimit}. See {@link Async#allBefore(java.util.concurrent.Executor, TimeLimit, List)},
+ * {@link Async#anyBefore(java.util.concurrent.Executor, TimeLimit, List)} and {@link Async#firstSuccessful(java.util.concurrent.Executor, TimeLimit, List)}.<br>
+ * <br>
+ * The combinator is the {@link CompletableFuture} of the join. Once the join is decided, the branches which are not completed yet are
+ * cancelled and the combinator is completed on its {@link ExecutionStage} (See {@link StageFuture}). The time limit is a single
+ * timeout whatever the number of branches.<br>
+ * <br>
+ * The branches complete on any Thread: the state of the join is guarded by the combinator itself.
+ * @author anthony
+ *
+ * @param <R> The result Type of the branches
+ * @param <V> The result Type of the join
+ */
+final class Combinator<R, V> extends StageFuture<V> implements TimerTask {
+
+	enum Mode {
+		/**
+		 * Every branch completed or the time limit reached: completed by a {@link PartialResults}
+		 */
+		ALL,
+		/**
+		 * The first branch completed, normally or exceptionally
+		 */
+		ANY,
+		/**
+		 * The first branch completed normally, or the last failure if every branch failed
+		 */
+		FIRST_SUCCESSFUL
+	}
+
+	private final Mode mode;
+	private final CompletableFuture<? extends R>[] branches;
+
+	// guarded by this
+	private final Object[] results;
+	private final Throwable[] failures;
+	private final boolean[] done;
+	private int pending;
+	private int succeeded = 0;
+	private boolean decided = false;
+	private Timeout timeout = null;
+
+	/**
+	 * Constructor
+	 * @param stage the stage completing the join
+	 * @param mode the kind of join
+	 * @param branches the joined futures
+	 */
+	@SuppressWarnings("unchecked")
+	private Combinator(ExecutionStage stage, Mode mode, List<? extends CompletableFuture<? extends R>> branches) {
+		super(stage);
+		this.mode = mode;
+		this.branches = (CompletableFuture<? extends R>[])branches.toArray(new CompletableFuture<?>[branches.size()]);
+		this.results = new Object[this.branches.length];
+		this.failures = new Throwable[this.branches.length];
+		this.done = new boolean[this.branches.length];
+		this.pending = this.branches.length;
+	}
+
+	/**
+	 * Join some branches
+	 * @param <R> The result Type of the branches
+	 * @param <V> The result Type of the join
+	 * @param stage the stage completing the join
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param mode the kind of join
+	 * @param branches the joined futures
+	 * @return the future of the join
+	 * @throws IllegalArgumentException if no branch is given to a join which waits for one
+	 */
+	static <R, V> CompletableFuture<V> join(ExecutionStage stage, TimeLimit limit, Mode mode, List<? extends CompletableFuture<? extends R>> branches) {
+		Combinator<R, V> combinator = new Combinator<>(stage, mode, branches);
+		if(combinator.branches.length == 0) {
+			if(mode != Mode.ALL)
+				throw new IllegalArgumentException("at least one branch is required");
+			combinator.decide(new PartialResults<R>(combinator.results, combinator.failures, combinator.done, 0));
+			return combinator;
+		}
+
+		for(int i=0; i < combinator.branches.length; i++) {
+			final int index = i;
+			combinator.branches[i].whenComplete((r, t) -> combinator.branchDone(index, r, t));
+		}
+
+		if(!limit.isNoLimit())
+			combinator.arm(limit);
+		return combinator;
+	}
+
+	/**
+	 * Start the timeout of the time limit
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 */
+	private void arm(TimeLimit limit) {
+		Timeout t = newTimeout(TimeUnit.MILLISECONDS.toNanos(Math.max(0, limit.remaining())), this);
+		synchronized (this) {
+			if(!decided) {
+				timeout = t;
+				return;
+			}
+		}
+		t.cancel(); // decided meanwhile
+	}
+
+	/**
+	 * Record the completion of a branch
+	 * @param index the index of the branch
+	 * @param result the result of the branch
+	 * @param failure the failure of the branch
+	 */
+	private void branchDone(int index, R result, Throwable failure) {
+		if(failure instanceof CompletionException && failure.getCause() != null)
+			failure = failure.getCause();
+
+		Object decision;
+		synchronized (this) {
+			if(decided)
+				return; // a loser
+			done[index] = true;
+			pending--;
+			if(failure == null) {
+				results[index] = result;
+				succeeded++;
+			}
+			else
+				failures[index] = failure;
+
+			switch(mode) {
+			case ALL:
+				if(pending > 0)
+					return;
+				decision = new PartialResults<R>(results, failures, done, succeeded);
+				break;
+			case ANY:
+				decision = (failure == null)? result : new Failure(failure);
+				break;
+			default: // FIRST_SUCCESSFUL
+				if(failure == null)
+					decision = result;
+				else if(pending == 0)
+					decision = new Failure(failure);
+				else
+					return;
+			}
+			decided = true;
+		}
+		decide(decision);
+	}
+
+	/**
+	 * The time limit is reached
+	 */
+	@Override
+	public void run(Timeout t) {
+		Object decision;
+		synchronized (this) {
+			if(decided)
+				return;
+			if(mode == Mode.ALL)
+				decision = new PartialResults<R>(results, failures, done, succeeded);
+			else
+				decision = new Failure(new TimeLimitExceededException(false));
+			decided = true;
+			timeout = null;
+		}
+		decide(decision);
+	}
+
+	/**
+	 * Cancel the branches which are not completed yet and the timeout, then complete this future on the stage
+	 * @param decision the result of the join or a {@link Failure}
+	 */
+	private void decide(Object decision) {
+		Timeout t;
+		synchronized (this) {
+			decided = true;
+			t = timeout;
+			timeout = null;
+		}
+		if(t != null)
+			t.cancel();
+		for(CompletableFuture<? extends R> branch : branches) {
+			if(!branch.isDone())
+				branch.cancel(false); // a job not executed yet is never executed, a running one sees its CancellationToken
+		}
+		onStage(() -> completeWith(decision));
+	}
+
+	/**
+	 * Complete this future
+	 * @param decision the result of the join or a {@link Failure}
+	 */
+	@SuppressWarnings("unchecked")
+	private void completeWith(Object decision) {
+		if(decision instanceof Failure)
+			super.completeExceptionally(((Failure) decision).cause);
+		else
+			super.complete((V) decision);
+	}
+
+	/**
+	 * Cancel the join: the branches are cancelled as well
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		Timeout t = null;
+		synchronized (this) {
+			if(!cancelled || decided)
+				return cancelled;
+			decided = true;
+			t = timeout;
+			timeout = null;
+		}
+		if(t != null)
+			t.cancel();
+		for(CompletableFuture<? extends R> branch : branches)
+			branch.cancel(false);
+		return cancelled;
+	}
+
+	/**
+	 * The exceptional decision of a join
+	 */
+	private static final class Failure {
+		final Throwable cause;
+
+		Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+}
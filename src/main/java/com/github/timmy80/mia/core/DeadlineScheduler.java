@@ -0,0 +1,139 @@
+package com.github.timmy80.mia.core;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Earliest deadline first ordering of the jobs of a {@link Task}.<br>
+ * The jobs are drained from the jobs queue of the Task and dispatched by order of {@link TimeLimit#getNotAfter()}.<br>
+ * <br>
+ * A job without limit gets a virtual deadline: the time it has been seen by the scheduler plus a fixed delay
+ * (see {@link TaskParams#setNoLimitDelay(long)}). Jobs without limit therefore keep their FIFO order between each other
+ * and cannot be starved by a flow of time limited jobs.<br>
+ * <br>
+ * With a bounded jobs queue, the scheduler holds at most as many jobs as the capacity of the queue and leaves the others in the
+ * queue: the queue still fills up and the {@link TaskParams.OverflowPolicy} still applies. The deadlines are then only compared
+ * between the held jobs.<br>
+ * This class is only used by the Thread of its Task.
+ * @author anthony
+ *
+ */
+class DeadlineScheduler {
+
+	/**
+	 * A scheduled job
+	 */
+	private static final class Entry implements Comparable<Entry> {
+		final Runnable job;
+		final long deadline;
+		final long seq;
+		boolean dispatched = false;
+
+		Entry(Runnable job, long deadline, long seq) {
+			this.job = job;
+			this.deadline = deadline;
+			this.seq = seq;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			int cmp = Long.compare(deadline, o.deadline);
+			if(cmp != 0)
+				return cmp;
+			return Long.compare(seq, o.seq);
+		}
+	}
+
+	private final PriorityQueue<Entry> byDeadline = new PriorityQueue<>();
+
+	/**
+	 * The pending entries in arrival order. Used to detect reordered jobs.
+	 */
+	private final ArrayDeque<Entry> byArrival = new ArrayDeque<>();
+
+	private final long noLimitDelay;
+	private final int capacity;
+	private final TaskMetrics metrics;
+	private long seq = 0;
+
+	/**
+	 * The number of held jobs. Read by the metrics collection.
+	 */
+	private volatile int size = 0;
+
+	/**
+	 * Constructor
+	 * @param noLimitDelay the delay added to the arrival time of a job without limit to compute its virtual deadline
+	 * @param capacity the maximum number of held jobs or 0 if unlimited
+	 * @param metrics the metrics of the Task
+	 */
+	DeadlineScheduler(long noLimitDelay, int capacity, TaskMetrics metrics) {
+		this.noLimitDelay = noLimitDelay;
+		this.capacity = capacity;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Drain the jobs queue, up to the capacity of the scheduler, and get the job with the earliest deadline.
+	 * @param jobs the jobs queue of the Task
+	 * @return the next job or null if no job is pending
+	 */
+	Runnable next(Queue<Runnable> jobs) {
+		drain(jobs);
+
+		Entry e = byDeadline.poll();
+		if(e == null)
+			return null;
+
+		size = byDeadline.size();
+		e.dispatched = true;
+		// forget the entries which have already been dispatched
+		while(!byArrival.isEmpty() && byArrival.peekFirst().dispatched) {
+			Entry first = byArrival.pollFirst();
+			if(first == e)
+				return e.job; // dispatched in arrival order
+		}
+
+		metrics.jobReordered();
+		return e.job;
+	}
+
+	/**
+	 * Check if the scheduler holds any pending job
+	 * @return true if no job is pending
+	 */
+	boolean isEmpty() {
+		return byDeadline.isEmpty();
+	}
+
+	/**
+	 * Get the number of held jobs. May be called by any Thread.
+	 * @return a number of jobs
+	 */
+	int size() {
+		return size;
+	}
+
+	private void drain(Queue<Runnable> jobs) {
+		if(capacity > 0 && byDeadline.size() >= capacity)
+			return;
+		Runnable job = jobs.poll();
+		if(job == null)
+			return;
+
+		final long now = System.currentTimeMillis();
+		do {
+			long deadline = now + noLimitDelay;
+			if(job instanceof AsyncJob) {
+				TimeLimit limit = ((AsyncJob<?>) job).limit;
+				if(!limit.isNoLimit())
+					deadline = limit.getNotAfter();
+			}
+
+			Entry e = new Entry(job, deadline, seq++);
+			byDeadline.add(e);
+			byArrival.addLast(e);
+		} while((capacity == 0 || byDeadline.size() < capacity) && (job = jobs.poll()) != null);
+	}
+}
@@ -34,7 +34,7 @@ public class DefaultReadinessProbe extends ProbeHandlerTerm {
 		}
 
 		for( Task apptask : task.getAppCtx().taskSet()) {
-			if(!apptask.isAlive()) {
+			if(!apptask.isRunning()) {
 				complete(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE));
 				return;
 			}
@@ -1,5 +1,6 @@
 package com.github.timmy80.mia.core;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -27,4 +28,43 @@ public interface ExecutionStage {
 	 * @return True if the ExecutionStage is active.
 	 */
 	public boolean isActive();
+	
+	/**
+	 * Wait for several calls within a shared {@link TimeLimit} and resume on this stage.<br>
+	 * See {@link Async#allBefore(Executor, TimeLimit, List)}. The future is completed by a call to this stage: 
+	 * it is completed exceptionally if this stage rejects the call (a terminated Terminal...).
+	 * @param <R> Result type of the branches
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls
+	 * @return a {@linkplain CompletableFuture} for the join. Cancelling it cancels the branches.
+	 */
+	public default <R> CompletableFuture<PartialResults<R>> allBefore(TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches) {
+		return Combinator.join(this, limit, Combinator.Mode.ALL, branches);
+	}
+	
+	/**
+	 * Wait for the first of several calls within a shared {@link TimeLimit} and resume on this stage.<br>
+	 * See {@link Async#anyBefore(Executor, TimeLimit, List)} and {@link #allBefore(TimeLimit, List)}.
+	 * @param <R> Result type of the branches
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls. At least one.
+	 * @return a {@linkplain CompletableFuture} for the join. Cancelling it cancels the branches.
+	 * @throws IllegalArgumentException if no branch is given
+	 */
+	public default <R> CompletableFuture<R> anyBefore(TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches) {
+		return Combinator.join(this, limit, Combinator.Mode.ANY, branches);
+	}
+	
+	/**
+	 * Wait for the first successful call among several calls within a shared {@link TimeLimit} and resume on this stage.<br>
+	 * See {@link Async#firstSuccessful(Executor, TimeLimit, List)} and {@link #allBefore(TimeLimit, List)}.
+	 * @param <R> Result type of the branches
+	 * @param limit the {@link TimeLimit} shared by the branches
+	 * @param branches the calls. At least one.
+	 * @return a {@linkplain CompletableFuture} for the join. Cancelling it cancels the branches.
+	 * @throws IllegalArgumentException if no branch is given
+	 */
+	public default <R> CompletableFuture<R> firstSuccessful(TimeLimit limit, List<? extends CompletableFuture<? extends R>> branches) {
+		return Combinator.join(this, limit, Combinator.Mode.FIRST_SUCCESSFUL, branches);
+	}
 }
@@ -0,0 +1,234 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import io.netty.util.Timeout;
+
+/**
+ * A hedged call. See {@link Async#hedgeBefore(java.util.concurrent.Executor, TimeLimit, HedgePolicy, IntFunction)}.<br>
+ * <br>
+ * The attempts are started on the {@link ExecutionStage} of the call: the first one by the caller, the duplicates when the delay of the
+ * {@link HedgePolicy} elapses or when the pending attempts failed. A single timeout is pending at a time: the delay of the next duplicate,
+ * then the time limit of the call. The first attempt completed normally completes the call and the other attempts are cancelled.
+ * @author anthony
+ *
+ * @param <R> The result Type
+ */
+final class Hedge<R> extends StageFuture<R> {
+
+	private final HedgePolicy policy;
+	private final TimeLimit limit;
+	private final IntFunction<? extends CompletableFuture<? extends R>> attempt;
+	private final int maxAttempts;
+
+	// guarded by this
+	private final CompletableFuture<?>[] attempts;
+	private final long[] startTimes;
+	private int sent = 0;
+	private int pending = 0;
+	private boolean decided = false;
+	private Timeout timeout = null;
+	/**
+	 * Incremented when the timeout is armed and when it is disarmed: the expiry of another generation is ignored.
+	 * Set before the timeout is created, since it may expire before being stored.
+	 */
+	private int generation = 0;
+
+	private Hedge(ExecutionStage stage, TimeLimit limit, HedgePolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt) {
+		super(stage);
+		this.policy = policy;
+		this.limit = limit;
+		this.attempt = attempt;
+		this.maxAttempts = policy.getMaxHedges() + 1;
+		this.attempts = new CompletableFuture<?>[maxAttempts];
+		this.startTimes = new long[maxAttempts];
+	}
+
+	/**
+	 * Start a hedged call. Must be called by the stage.
+	 * @param <R> The result Type
+	 * @param stage the stage starting the attempts and completing the call
+	 * @param limit the {@link TimeLimit} of the call
+	 * @param policy the {@link HedgePolicy}
+	 * @param attempt the function starting an attempt given its index. 0 for the first request.
+	 * @return the future of the call
+	 */
+	static <R> CompletableFuture<R> call(ExecutionStage stage, TimeLimit limit, HedgePolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt) {
+		Hedge<R> hedge = new Hedge<>(stage, limit, policy, attempt);
+		hedge.send();
+		hedge.arm();
+		return hedge;
+	}
+
+	/**
+	 * Start the next attempt
+	 */
+	private void send() {
+		final int index;
+		synchronized (this) {
+			if(decided || sent >= maxAttempts)
+				return;
+			index = sent++;
+			pending++;
+			startTimes[index] = System.nanoTime();
+		}
+		if(index > 0)
+			policy.hedgeSent();
+
+		CompletableFuture<? extends R> f = start(attempt, index);
+		boolean late;
+		synchronized (this) {
+			attempts[index] = f;
+			late = decided;
+		}
+		if(late)
+			f.cancel(false);
+		f.whenComplete((r, t) -> attemptDone(index, r, t));
+	}
+
+	/**
+	 * Start the timeout of the next duplicate or of the time limit
+	 */
+	private void arm() {
+		final boolean hedge;
+		final int g;
+		synchronized (this) {
+			if(decided)
+				return;
+			hedge = sent < maxAttempts;
+			if(!hedge && limit.isNoLimit())
+				return;
+			g = ++generation;
+		}
+
+		final long remaining = limit.isNoLimit()? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(Math.max(0, limit.remaining()));
+		Timeout t = newTimeout(hedge? Math.min(policy.getDelayNanos(), remaining) : remaining, timeout -> elapsed(g));
+		synchronized (this) {
+			if(!decided && generation == g) {
+				timeout = t;
+				return;
+			}
+		}
+		t.cancel(); // disarmed or already elapsed
+	}
+
+	/**
+	 * The delay of the next duplicate or the time limit is elapsed
+	 * @param g the generation of the timeout
+	 */
+	private void elapsed(int g) {
+		final boolean expired = limit.isExpired();
+		synchronized (this) {
+			if(decided || generation != g)
+				return;
+			generation++;
+			timeout = null;
+			decided = expired;
+		}
+
+		if(expired) {
+			finish(-1, null, new TimeLimitExceededException(false));
+			return;
+		}
+		onStage(() -> {
+			send();
+			arm();
+		});
+	}
+
+	/**
+	 * An attempt is completed
+	 * @param index the index of the attempt
+	 * @param result the result of the attempt
+	 * @param failure the failure of the attempt
+	 */
+	private void attemptDone(int index, R result, Throwable failure) {
+		if(failure instanceof CompletionException && failure.getCause() != null)
+			failure = failure.getCause();
+
+		long latency = 0;
+		boolean sendNow = false;
+		Timeout t = null;
+		synchronized (this) {
+			if(decided)
+				return;
+			pending--;
+			// a failure completes the call once no other attempt can answer
+			if(failure != null && pending > 0)
+				return;
+			if(failure != null && sent < maxAttempts) {
+				t = timeout; // no need to wait for the delay
+				timeout = null;
+				generation++;
+				sendNow = true;
+			}
+			else {
+				decided = true;
+				latency = System.nanoTime() - startTimes[index];
+			}
+		}
+		
+		if(sendNow) {
+			if(t != null)
+				t.cancel();
+			onStage(() -> {
+				send();
+				arm();
+			});
+			return;
+		}
+
+		if(failure == null) {
+			policy.record(latency);
+			if(index > 0)
+				policy.hedgeWon();
+		}
+		finish(index, result, failure);
+	}
+
+	/**
+	 * Complete the decided call and cancel the other attempts
+	 * @param winner the index of the completed attempt. -1 if none.
+	 * @param result the result of the call
+	 * @param failure the failure of the call
+	 */
+	private void finish(int winner, R result, Throwable failure) {
+		final Timeout t;
+		final CompletableFuture<?>[] started;
+		synchronized (this) {
+			t = timeout;
+			timeout = null;
+			generation++;
+			started = attempts.clone(); // an attempt started meanwhile cancels itself
+		}
+		if(t != null)
+			t.cancel();
+
+		// the cancelled attempts are not recorded: their latency is unknown
+		for(int i=0; i < started.length; i++) {
+			CompletableFuture<?> f = started[i];
+			if(i == winner || f == null || f.isDone())
+				continue;
+			f.cancel(false);
+		}
+		resume(result, failure);
+	}
+
+	/**
+	 * Cancel the call: the pending attempts are cancelled as well
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		synchronized (this) {
+			if(!cancelled || decided)
+				return cancelled;
+			decided = true;
+		}
+		finish(-1, null, null);
+		return cancelled;
+	}
+}
@@ -0,0 +1,265 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.prometheus.client.Counter;
+
+/**
+ * The policy of the hedged calls (See {@link Async#hedgeBefore(java.util.concurrent.Executor, TimeLimit, HedgePolicy, java.util.function.IntFunction)}).<br>
+ * A hedged call sends a duplicate request once the first one has been pending for longer than the delay of the policy, and takes
+ * whichever answers first. The delay adapts to the latencies recorded by the calls of the policy: it is a percentile of the recent
+ * latencies (the 95th by default), so that only the slowest calls are duplicated. Only the latency of the request answering first is
+ * recorded, the cancelled requests are not.<br>
+ * <br>
+ * The latencies are recorded in a log-linear histogram (precision of 12.5%) whose counts are halved every {@link #setWindow(int)} records:
+ * the delay follows a change of the latencies within a few windows. A policy is thread safe and is meant to be shared by the calls to
+ * the same service.<br>
+ * <br>
+ * Exported to Prometheus by policy name: hedges sent (hedge_sent) and hedges answering first (hedge_won).
+ * @author anthony
+ *
+ */
+public class HedgePolicy {
+
+	private static final Counter hedgeSentCount = Counter.build("hedge_sent", "Duplicate requests sent by the hedged calls").labelNames("policy").register();
+	private static final Counter hedgeWonCount = Counter.build("hedge_won", "Hedged calls answered first by a duplicate request").labelNames("policy").register();
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+	private static final int UPDATE_INTERVAL = 8;
+
+	private final String name;
+	private final Counter.Child hedgeSent;
+	private final Counter.Child hedgeWon;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong records = new AtomicLong();
+	private volatile long delayNanos;
+
+	private volatile double percentile = 0.95;
+	private volatile long initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(10);
+	private volatile long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(1);
+	private volatile int minSamples = 100;
+	private volatile int window = 1000;
+	private volatile int maxHedges = 1;
+
+	/**
+	 * Constructor
+	 * @param name the name of this policy. Used as a label of the metrics.
+	 */
+	public HedgePolicy(String name) {
+		this.name = name;
+		this.hedgeSent = hedgeSentCount.labels(name);
+		this.hedgeWon = hedgeWonCount.labels(name);
+		this.delayNanos = initialDelayNanos;
+	}
+
+	/**
+	 * Get the name of this policy
+	 * @return the name given at construction
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the percentile of the recorded latencies after which a duplicate request is sent
+	 * @return a percentile in ]0, 1[
+	 */
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * Set the percentile of the recorded latencies after which a duplicate request is sent
+	 * @param percentile a percentile in ]0, 1[. Default is 0.95.
+	 */
+	public void setPercentile(double percentile) {
+		if(!(percentile > 0 && percentile < 1))
+			throw new IllegalArgumentException("percentile must be in ]0, 1[");
+		this.percentile = percentile;
+	}
+
+	/**
+	 * Set the delay used until enough latencies are recorded
+	 * @param delay a duration. Default is 10 milliseconds.
+	 * @param unit the unit of the delay
+	 */
+	public void setInitialDelay(long delay, TimeUnit unit) {
+		if(delay < 0)
+			throw new IllegalArgumentException("delay cannot be negative");
+		this.initialDelayNanos = unit.toNanos(delay);
+		if(records.get() < minSamples)
+			this.delayNanos = initialDelayNanos;
+	}
+
+	/**
+	 * Set the minimum delay before a duplicate request is sent, whatever the recorded latencies
+	 * @param delay a duration. Default is 1 millisecond.
+	 * @param unit the unit of the delay
+	 */
+	public void setMinDelay(long delay, TimeUnit unit) {
+		if(delay < 0)
+			throw new IllegalArgumentException("delay cannot be negative");
+		this.minDelayNanos = unit.toNanos(delay);
+	}
+
+	/**
+	 * Set the number of latencies to record before the delay adapts
+	 * @param minSamples a number of latencies. Default is 100.
+	 */
+	public void setMinSamples(int minSamples) {
+		if(minSamples < 1)
+			throw new IllegalArgumentException("minSamples must be strictly positive");
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * Set the number of records after which the weight of the past latencies is halved
+	 * @param window a number of latencies. Default is 1000.
+	 */
+	public void setWindow(int window) {
+		if(window < 1)
+			throw new IllegalArgumentException("window must be strictly positive");
+		this.window = window;
+	}
+
+	/**
+	 * Get the maximum number of duplicate requests of a call
+	 * @return a number of requests
+	 */
+	public int getMaxHedges() {
+		return maxHedges;
+	}
+
+	/**
+	 * Set the maximum number of duplicate requests of a call. A new duplicate is sent every time the delay elapses.
+	 * @param maxHedges a number of requests. 0 disables the hedging. Default is 1.
+	 */
+	public void setMaxHedges(int maxHedges) {
+		if(maxHedges < 0)
+			throw new IllegalArgumentException("maxHedges cannot be negative");
+		this.maxHedges = maxHedges;
+	}
+
+	/**
+	 * Get the current delay after which a duplicate request is sent
+	 * @return a duration in nanoseconds
+	 */
+	public long getDelayNanos() {
+		return Math.max(minDelayNanos, delayNanos);
+	}
+
+	/**
+	 * Record the latency of a request. Recorded by the hedged calls of this policy.
+	 * @param latency the time between the request and its response
+	 * @param unit the unit of the latency
+	 */
+	public void record(long latency, TimeUnit unit) {
+		record(unit.toNanos(latency));
+	}
+
+	/**
+	 * Record the latency of a request
+	 * @param latencyNanos the time between the request and its response in nanoseconds
+	 */
+	void record(long latencyNanos) {
+		counts.incrementAndGet(bucket(Math.max(0, latencyNanos)));
+		final long n = records.incrementAndGet();
+		if(n % window == 0) {
+			for(int i=0; i < BUCKETS; i++)
+				counts.getAndUpdate(i, c -> c >> 1);
+		}
+		
+		// the histogram is scanned every few records only
+		if(n >= minSamples && (n == minSamples || n % UPDATE_INTERVAL == 0))
+			delayNanos = valueAt(percentile);
+	}
+
+	/**
+	 * Get the value at a percentile of the histogram
+	 * @param p a percentile
+	 * @return the upper bound of the bucket holding the percentile
+	 */
+	private long valueAt(double p) {
+		long total = 0;
+		for(int i=0; i < BUCKETS; i++)
+			total += counts.get(i);
+		if(total == 0)
+			return delayNanos;
+
+		final long rank = (long) Math.ceil(total * p);
+		long cumulated = 0;
+		for(int i=0; i < BUCKETS; i++) {
+			cumulated += counts.get(i);
+			if(cumulated >= rank)
+				return upperBound(i);
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	/**
+	 * Get the bucket of a value: the values below 8 have their own bucket, the others are split in 8 buckets per power of 2.
+	 * @param value a positive value
+	 * @return an index in the histogram
+	 */
+	static int bucket(long value) {
+		if(value < SUB_BUCKETS)
+			return (int) value;
+		final int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Get the highest value of a bucket
+	 * @param bucket an index in the histogram
+	 * @return a value
+	 */
+	static long upperBound(int bucket) {
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		final int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		final long sub = bucket % SUB_BUCKETS;
+		final long lower = (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+		return lower + (1L << (exp - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * A duplicate request has been sent
+	 */
+	void hedgeSent() {
+		hedgeSent.inc();
+	}
+
+	/**
+	 * A duplicate request answered first
+	 */
+	void hedgeWon() {
+		hedgeWon.inc();
+	}
+
+	/**
+	 * Get the number of duplicate requests sent by the calls of this policy
+	 * @return a number of requests
+	 */
+	public long getHedgesSent() {
+		return (long) hedgeSent.get();
+	}
+
+	/**
+	 * Get the number of calls of this policy answered first by a duplicate request
+	 * @return a number of calls
+	 */
+	public long getHedgesWon() {
+		return (long) hedgeWon.get();
+	}
+
+	@Override
+	public String toString() {
+		return new LogFmt().append("policy", name).append("delayNanos", getDelayNanos()).append("sent", getHedgesSent()).append("won", getHedgesWon()).toString();
+	}
+}
@@ -0,0 +1,113 @@
+package com.github.timmy80.mia.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The results of the branches joined by {@link Async#allBefore(java.util.concurrent.Executor, TimeLimit, List)}.<br>
+ * A branch which did not complete before the {@link TimeLimit} has neither a result nor a failure: it has been cancelled.
+ * @author anthony
+ *
+ * @param <R> The result Type of the branches
+ */
+public final class PartialResults<R> {
+
+	private final Object[] results;
+	private final Throwable[] failures;
+	private final boolean[] done;
+	private final int succeeded;
+
+	/**
+	 * Constructor
+	 * @param results the result of each branch
+	 * @param failures the failure of each branch
+	 * @param done true for each branch completed before the time limit
+	 * @param succeeded the number of branches completed normally
+	 */
+	PartialResults(Object[] results, Throwable[] failures, boolean[] done, int succeeded) {
+		this.results = results;
+		this.failures = failures;
+		this.done = done;
+		this.succeeded = succeeded;
+	}
+
+	/**
+	 * Get the number of branches
+	 * @return a number of branches
+	 */
+	public int size() {
+		return done.length;
+	}
+
+	/**
+	 * Check if every branch completed normally before the time limit
+	 * @return true if no result is missing
+	 */
+	public boolean isComplete() {
+		return succeeded == done.length;
+	}
+
+	/**
+	 * Get the number of branches completed normally before the time limit
+	 * @return a number of branches
+	 */
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	/**
+	 * Check if a branch completed, normally or exceptionally, before the time limit
+	 * @param index the index of the branch in the joined list
+	 * @return false if the branch has been cancelled at the time limit
+	 */
+	public boolean isDone(int index) {
+		return done[index];
+	}
+
+	/**
+	 * Check if a branch completed normally before the time limit
+	 * @param index the index of the branch in the joined list
+	 * @return true if the branch has a result
+	 */
+	public boolean isSucceeded(int index) {
+		return done[index] && failures[index] == null;
+	}
+
+	/**
+	 * Get the result of a branch
+	 * @param index the index of the branch in the joined list
+	 * @return the result of the branch. null if the branch failed or did not complete before the time limit.
+	 */
+	@SuppressWarnings("unchecked")
+	public R getResult(int index) {
+		return (R) results[index];
+	}
+
+	/**
+	 * Get the failure of a branch
+	 * @param index the index of the branch in the joined list
+	 * @return the exception of the branch. null if the branch succeeded or did not complete before the time limit.
+	 */
+	public Throwable getFailure(int index) {
+		return failures[index];
+	}
+
+	/**
+	 * Get the results of the branches completed normally, in the order of the joined list
+	 * @return a new list
+	 */
+	@SuppressWarnings("unchecked")
+	public List<R> getResults() {
+		List<R> list = new ArrayList<>(succeeded);
+		for(int i=0; i < done.length; i++) {
+			if(isSucceeded(i))
+				list.add((R) results[i]);
+		}
+		return list;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PartialResults(%d/%d)", succeeded, done.length);
+	}
+}
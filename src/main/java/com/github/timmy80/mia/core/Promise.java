@@ -0,0 +1,515 @@
+package com.github.timmy80.mia.core;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.timmy80.mia.core.Async.Function1;
+import com.github.timmy80.mia.core.Async.VoidFunction2;
+
+import io.netty.util.Timeout;
+
+/**
+ * A lightweight promise bound to an owning {@link Task}.<br>
+ * A promise can be completed by any Thread but its continuations are always executed by its owner: inline when the promise is
+ * completed by the owner, or by a single job of the owner otherwise. Unlike a {@link CompletableFuture} chained by
+ * {@link Async#callBefore(java.util.concurrent.Executor, TimeLimit, java.util.concurrent.Callable)}, a continuation never hops
+ * through the jobs queue of the owner when it is already executed by the owner.<br>
+ * <br>
+ * A promise carries the {@link TimeLimit} of its computation: it fails with a {@link TimeLimitExceededException} when the limit is
+ * reached, the timeout being on the timer of its owner. The promises derived by {@link #thenApply(Function1)},
+ * {@link #thenCompose(Function1)} and {@link #exceptionally(Function1)} share the limit of their source without any timeout of their own.<br>
+ * <br>
+ * If the owner cannot execute the continuations (a full jobs queue or a terminated Task), they are not executed: the derived promises
+ * and futures fail with the {@link RejectedExecutionException}. A promise created once its owner is terminating fails immediately.<br>
+ * <br>
+ * A promise interoperates with the other futures: see {@link #of(Task, TimeLimit, CompletableFuture)}, {@link #of(Task, TimeLimit, io.netty.util.concurrent.Future)}
+ * and {@link #toCompletableFuture()}.
+ * @author anthony
+ *
+ * @param <V> The result Type
+ */
+public class Promise<V> {
+
+	private static Logger logger = LogManager.getLogger(Promise.class.getName());
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Promise, Object> RESULT = AtomicReferenceFieldUpdater.newUpdater(Promise.class, Object.class, "result");
+
+	/**
+	 * The result of a promise completed with null
+	 */
+	private static final Object NIL = new Object();
+
+	/**
+	 * The result of a promise completed exceptionally
+	 */
+	private static final class Failure {
+		final Throwable cause;
+
+		Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+
+	private final Task owner;
+	private final TimeLimit limit;
+
+	/**
+	 * null while pending, then {@link #NIL}, a {@link Failure} or the value
+	 */
+	private volatile Object result = null;
+
+	/**
+	 * A continuation of a promise
+	 */
+	@FunctionalInterface
+	private interface Listener {
+		/**
+		 * Execute the continuation
+		 * @param rejected null when executed by the owner, otherwise the reason why the owner cannot execute it
+		 */
+		void fire(Throwable rejected);
+	}
+
+	/**
+	 * The job executing the continuations of a promise completed outside of its owner
+	 */
+	private static final class Continuations extends AsyncJob<Void> {
+		private final Object listeners;
+
+		Continuations(Object listeners) {
+			super(TimeLimit.noLimit());
+			this.listeners = listeners;
+		}
+
+		@Override
+		Void call() {
+			fire(listeners, null);
+			return null;
+		}
+
+		@Override
+		Object target() {
+			return listeners;
+		}
+
+		@Override
+		void reject(Throwable cause) {
+			fire(listeners, cause);
+		}
+	}
+
+	/**
+	 * null, a Listener or an ArrayList of Listener. Guarded by this.
+	 */
+	private Object listeners = null;
+
+	/**
+	 * The expiration of the {@link TimeLimit}
+	 */
+	private volatile Timeout timeout = null;
+
+	/**
+	 * Constructor
+	 * @param owner the Task executing the continuations of this promise
+	 * @param limit the {@link TimeLimit} after which this promise fails with a {@link TimeLimitExceededException}
+	 */
+	public Promise(Task owner, TimeLimit limit) {
+		this(owner, limit, true);
+	}
+
+	/**
+	 * Constructor
+	 * @param owner the Task executing the continuations of this promise
+	 * @param limit the {@link TimeLimit} of this promise
+	 * @param expires true to fail this promise when the limit is reached
+	 */
+	private Promise(Task owner, TimeLimit limit, boolean expires) {
+		if(owner == null)
+			throw new NullPointerException("owner cannot be null");
+		this.owner = owner;
+		this.limit = (limit == null)? TimeLimit.noLimit() : limit;
+		if(expires && !this.limit.isNoLimit())
+			timeout = owner.newTimeout(Math.max(0, this.limit.remaining()), t -> fail(new TimeLimitExceededException(false)));
+		if(expires && owner.isEnding()) // checked after the timeout: a timer stopped meanwhile ignores it
+			fail(new RejectedExecutionException(String.format("%s is terminated", owner.getName())));
+	}
+
+	/**
+	 * Get a promise completed by a {@link CompletableFuture}
+	 * @param <V> The result Type
+	 * @param owner the Task executing the continuations of the promise
+	 * @param limit the {@link TimeLimit} of the promise
+	 * @param future the future completing the promise
+	 * @return a new promise
+	 */
+	public static <V> Promise<V> of(Task owner, TimeLimit limit, CompletableFuture<? extends V> future) {
+		Promise<V> promise = new Promise<>(owner, limit);
+		future.whenComplete((r, t) -> {
+			if(t == null)
+				promise.complete(r);
+			else
+				promise.fail((t instanceof CompletionException && t.getCause() != null)? t.getCause() : t);
+		});
+		return promise;
+	}
+
+	/**
+	 * Get a promise completed by a Netty {@link io.netty.util.concurrent.Future}
+	 * @param <V> The result Type
+	 * @param owner the Task executing the continuations of the promise
+	 * @param limit the {@link TimeLimit} of the promise
+	 * @param future the future completing the promise
+	 * @return a new promise
+	 */
+	public static <V> Promise<V> of(Task owner, TimeLimit limit, io.netty.util.concurrent.Future<? extends V> future) {
+		Promise<V> promise = new Promise<>(owner, limit);
+		future.addListener(f -> {
+			if(f.isSuccess())
+				promise.complete(future.getNow());
+			else
+				promise.fail(f.cause());
+		});
+		return promise;
+	}
+
+	/**
+	 * Get the Task executing the continuations of this promise
+	 * @return a Task
+	 */
+	public Task getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Get the {@link TimeLimit} of this promise
+	 * @return a TimeLimit
+	 */
+	public TimeLimit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Complete this promise. May be called by any Thread.
+	 * @param value the result
+	 * @return true if this call completed the promise
+	 */
+	public boolean complete(V value) {
+		return settle((value == null)? NIL : value);
+	}
+
+	/**
+	 * Complete this promise exceptionally. May be called by any Thread.
+	 * @param cause the failure
+	 * @return true if this call completed the promise
+	 */
+	public boolean fail(Throwable cause) {
+		if(cause == null)
+			throw new NullPointerException("cause cannot be null");
+		return settle(new Failure(cause));
+	}
+
+	/**
+	 * Complete this promise with a {@link CancellationException}
+	 * @return true if this call completed the promise
+	 */
+	public boolean cancel() {
+		return fail(new CancellationException());
+	}
+
+	/**
+	 * Check if this promise is completed, normally or not
+	 * @return true if completed
+	 */
+	public boolean isDone() {
+		return result != null;
+	}
+
+	/**
+	 * Check if this promise is completed exceptionally
+	 * @return true if failed, cancelled or expired
+	 */
+	public boolean isCompletedExceptionally() {
+		return result instanceof Failure;
+	}
+
+	/**
+	 * Check if this promise is cancelled
+	 * @return true if cancelled
+	 */
+	public boolean isCancelled() {
+		return getCause() instanceof CancellationException;
+	}
+
+	/**
+	 * Get the failure of this promise
+	 * @return the failure or null if this promise is not completed exceptionally
+	 */
+	public Throwable getCause() {
+		Object r = result;
+		return (r instanceof Failure)? ((Failure) r).cause : null;
+	}
+
+	/**
+	 * Get the result of this promise without waiting
+	 * @param valueIfAbsent the value returned if this promise is not completed
+	 * @return the result or valueIfAbsent
+	 * @throws CancellationException if this promise is cancelled
+	 * @throws CompletionException if this promise is completed exceptionally
+	 */
+	public V getNow(V valueIfAbsent) {
+		Object r = result;
+		if(r == null)
+			return valueIfAbsent;
+		return valueOf(r);
+	}
+
+	/**
+	 * Call a function with the result of this promise, on the owner
+	 * @param action the function called with the result, or with the failure of this promise
+	 * @return this promise
+	 */
+	public Promise<V> onComplete(VoidFunction2<? super V, ? super Throwable> action) {
+		listen(rejected -> {
+			if(rejected != null) {
+				logger.error("Promise continuation not executed.", rejected);
+				return;
+			}
+			Object r = result;
+			try {
+				if(r instanceof Failure)
+					action.apply(null, ((Failure) r).cause);
+				else
+					action.apply(unwrap(r), null);
+			} catch (Throwable e) {
+				logger.error("Unexpected exception in promise continuation.", e);
+			}
+		});
+		return this;
+	}
+
+	/**
+	 * Get a promise completed with the result of a function applied to the result of this promise, on the owner.<br>
+	 * The failure of this promise or of the function fails the returned promise.
+	 * @param <U> The result Type of the function
+	 * @param fn the function
+	 * @return a new promise
+	 */
+	public <U> Promise<U> thenApply(Function1<? extends U, ? super V> fn) {
+		Promise<U> next = new Promise<>(owner, limit, false);
+		listen(rejected -> {
+			if(rejected != null) {
+				next.fail(rejected);
+				return;
+			}
+			Object r = result;
+			if(r instanceof Failure) {
+				next.settle(r);
+				return;
+			}
+			try {
+				next.complete(fn.apply(unwrap(r)));
+			} catch (Throwable e) {
+				next.fail(e);
+			}
+		});
+		return next;
+	}
+
+	/**
+	 * Get a promise completed by the promise returned by a function applied to the result of this promise, on the owner.<br>
+	 * The failure of this promise or of the function fails the returned promise.
+	 * @param <U> The result Type of the function
+	 * @param fn the function
+	 * @return a new promise
+	 */
+	public <U> Promise<U> thenCompose(Function1<? extends Promise<U>, ? super V> fn) {
+		Promise<U> next = new Promise<>(owner, limit, false);
+		listen(rejected -> {
+			if(rejected != null) {
+				next.fail(rejected);
+				return;
+			}
+			Object r = result;
+			if(r instanceof Failure) {
+				next.settle(r);
+				return;
+			}
+			try {
+				Promise<U> p = fn.apply(unwrap(r));
+				p.listen(notExecuted -> next.settle((notExecuted != null)? new Failure(notExecuted) : p.result));
+			} catch (Throwable e) {
+				next.fail(e);
+			}
+		});
+		return next;
+	}
+
+	/**
+	 * Get a promise completed with the result of this promise, or with the result of a function applied to its failure, on the owner.
+	 * @param fn the function
+	 * @return a new promise
+	 */
+	public Promise<V> exceptionally(Function1<? extends V, Throwable> fn) {
+		Promise<V> next = new Promise<>(owner, limit, false);
+		listen(rejected -> {
+			if(rejected != null) {
+				next.fail(rejected);
+				return;
+			}
+			Object r = result;
+			if(!(r instanceof Failure)) {
+				next.settle(r);
+				return;
+			}
+			try {
+				next.complete(fn.apply(((Failure) r).cause));
+			} catch (Throwable e) {
+				next.fail(e);
+			}
+		});
+		return next;
+	}
+
+	/**
+	 * Get a {@link CompletableFuture} completed with the result of this promise, on the owner.<br>
+	 * Cancelling the returned future cancels this promise.
+	 * @return a new future
+	 */
+	public CompletableFuture<V> toCompletableFuture() {
+		CompletableFuture<V> future = new CompletableFuture<V>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if(cancelled)
+					Promise.this.cancel();
+				return cancelled;
+			}
+		};
+		listen(rejected -> {
+			Object r = result;
+			if(rejected != null)
+				future.completeExceptionally(rejected);
+			else if(r instanceof Failure)
+				future.completeExceptionally(((Failure) r).cause);
+			else
+				future.complete(unwrap(r));
+		});
+		return future;
+	}
+
+	/**
+	 * Complete this promise and notify its listeners
+	 * @param r the result
+	 * @return true if this call completed the promise
+	 */
+	private boolean settle(Object r) {
+		if(!RESULT.compareAndSet(this, null, r))
+			return false;
+
+		Timeout t = timeout;
+		if(t != null)
+			t.cancel();
+
+		final Object l;
+		synchronized (this) {
+			l = listeners;
+			listeners = null;
+		}
+		if(l != null)
+			dispatch(l);
+		return true;
+	}
+
+	/**
+	 * Execute a listener on the owner once this promise is completed
+	 * @param listener the listener
+	 */
+	private void listen(Listener listener) {
+		if(result == null) {
+			synchronized (this) {
+				if(result == null) {
+					if(listeners == null)
+						listeners = listener;
+					else if(listeners instanceof ArrayList) {
+						@SuppressWarnings("unchecked")
+						ArrayList<Listener> list = (ArrayList<Listener>) listeners;
+						list.add(listener);
+					}
+					else {
+						ArrayList<Listener> list = new ArrayList<>(4);
+						list.add((Listener) listeners);
+						list.add(listener);
+						listeners = list;
+					}
+					return;
+				}
+			}
+		}
+
+		dispatch(listener);
+	}
+
+	/**
+	 * Execute listeners on the owner: inline when called by the owner, by a job of the owner otherwise.<br>
+	 * A rejected job rejects the listeners rather than failing the caller, which may be the Task completing this promise.
+	 * @param l a Listener or an ArrayList of Listener
+	 */
+	private void dispatch(Object l) {
+		if(owner.inTask()) {
+			fire(l, null);
+			return;
+		}
+		Continuations job = new Continuations(l);
+		try {
+			owner.execute(job);
+		} catch (RejectedExecutionException e) {
+			job.reject(e);
+		}
+	}
+
+	/**
+	 * Execute the listeners
+	 * @param l a Listener or an ArrayList of Listener
+	 * @param rejected null when executed by the owner, otherwise the reason why the owner cannot execute them
+	 */
+	private static void fire(Object l, Throwable rejected) {
+		if(l instanceof ArrayList) {
+			@SuppressWarnings("unchecked")
+			ArrayList<Listener> list = (ArrayList<Listener>) l;
+			for(Listener listener : list)
+				listener.fire(rejected);
+		}
+		else
+			((Listener) l).fire(rejected);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> V unwrap(Object r) {
+		return (r == NIL)? null : (V) r;
+	}
+
+	private static <V> V valueOf(Object r) {
+		if(r instanceof Failure) {
+			Throwable cause = ((Failure) r).cause;
+			if(cause instanceof CancellationException)
+				throw (CancellationException) cause;
+			throw new CompletionException(cause);
+		}
+		return unwrap(r);
+	}
+
+	@Override
+	public String toString() {
+		Object r = result;
+		return new LogFmt().append("owner", owner.getName())
+				.append("state", (r == null)? "pending" : (r instanceof Failure)? "failed" : "succeeded").toString();
+	}
+}
@@ -0,0 +1,163 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import io.netty.util.Timeout;
+
+/**
+ * A retried call. See {@link Async#retryBefore(java.util.concurrent.Executor, TimeLimit, RetryPolicy, IntFunction)}.<br>
+ * <br>
+ * The attempts are started on the {@link ExecutionStage} of the call, one at a time: the first one by the caller, the next ones
+ * when the backoff of the {@link RetryPolicy} elapses.
+ * @author anthony
+ *
+ * @param <R> The result Type
+ */
+final class Retry<R> extends StageFuture<R> {
+
+	private final RetryPolicy policy;
+	private final TimeLimit limit;
+	private final IntFunction<? extends CompletableFuture<? extends R>> attempt;
+	private final int maxAttempts;
+
+	// guarded by this
+	private int attempts = 0;
+	private CompletableFuture<?> current = null;
+	private boolean decided = false;
+	private Timeout timeout = null;
+	/**
+	 * Incremented when the backoff is armed and when it is disarmed: the expiry of another generation is ignored.
+	 * Set before the timeout is created, since it may expire before being stored.
+	 */
+	private int generation = 0;
+
+	private Retry(ExecutionStage stage, TimeLimit limit, RetryPolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt) {
+		super(stage);
+		this.policy = policy;
+		this.limit = limit;
+		this.attempt = attempt;
+		this.maxAttempts = policy.getMaxAttempts();
+	}
+
+	/**
+	 * Start a retried call. Must be called by the stage.
+	 * @param <R> The result Type
+	 * @param stage the stage starting the attempts and completing the call
+	 * @param limit the {@link TimeLimit} of the call
+	 * @param policy the {@link RetryPolicy}
+	 * @param attempt the function starting an attempt given its index. 0 for the first attempt.
+	 * @return the future of the call
+	 */
+	static <R> CompletableFuture<R> call(ExecutionStage stage, TimeLimit limit, RetryPolicy policy, IntFunction<? extends CompletableFuture<? extends R>> attempt) {
+		Retry<R> retry = new Retry<>(stage, limit, policy, attempt);
+		retry.next();
+		return retry;
+	}
+
+	/**
+	 * Start the next attempt
+	 */
+	private void next() {
+		final int index;
+		synchronized (this) {
+			if(decided)
+				return;
+			index = attempts++;
+		}
+		if(index > 0)
+			policy.retried();
+
+		CompletableFuture<? extends R> f = start(attempt, index);
+		boolean late;
+		synchronized (this) {
+			current = f;
+			late = decided;
+		}
+		if(late)
+			f.cancel(false);
+		f.whenComplete((r, t) -> attemptDone(r, t));
+	}
+
+	/**
+	 * An attempt is completed
+	 * @param result the result of the attempt
+	 * @param failure the failure of the attempt
+	 */
+	private void attemptDone(R result, Throwable failure) {
+		if(failure instanceof CompletionException && failure.getCause() != null)
+			failure = failure.getCause();
+
+		long backoff = -1;
+		int armed = 0;
+		synchronized (this) {
+			if(decided)
+				return;
+			current = null;
+			if(failure != null && attempts < maxAttempts && policy.isRetryable(failure)) {
+				backoff = policy.backoffNanos(attempts);
+				// the backoff must leave some time to the next attempt
+				if(!limit.isNoLimit() && backoff >= TimeUnit.MILLISECONDS.toNanos(limit.remaining()))
+					backoff = -1;
+			}
+			decided = (backoff < 0);
+			if(!decided)
+				armed = ++generation;
+		}
+
+		if(backoff < 0) {
+			resume(result, failure);
+			return;
+		}
+
+		final int g = armed;
+		Timeout t = newTimeout(backoff, timeout -> backoffElapsed(g));
+		synchronized (this) {
+			if(!decided && generation == g) {
+				timeout = t;
+				return;
+			}
+		}
+		t.cancel(); // cancelled or already elapsed
+	}
+
+	/**
+	 * The backoff is elapsed: start the next attempt
+	 * @param g the generation of the backoff
+	 */
+	private void backoffElapsed(int g) {
+		synchronized (this) {
+			if(decided || generation != g)
+				return;
+			generation++;
+			timeout = null;
+		}
+		onStage(this::next);
+	}
+
+	/**
+	 * Cancel the call: the pending attempt is cancelled as well
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		final Timeout t;
+		final CompletableFuture<?> f;
+		synchronized (this) {
+			if(!cancelled || decided)
+				return cancelled;
+			decided = true;
+			generation++;
+			t = timeout;
+			f = current;
+			timeout = null;
+		}
+		if(t != null)
+			t.cancel();
+		if(f != null)
+			f.cancel(false);
+		return cancelled;
+	}
+}
@@ -0,0 +1,155 @@
+package com.github.timmy80.mia.core;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import io.prometheus.client.Counter;
+
+/**
+ * The policy of the retried calls (See {@link Async#retryBefore(java.util.concurrent.Executor, TimeLimit, RetryPolicy, java.util.function.IntFunction)}).<br>
+ * A failed attempt is retried after a backoff if its failure is transient, as long as the maximum number of attempts is not reached
+ * and the {@link TimeLimit} of the call leaves time for the backoff. The backoff doubles at every retry up to a maximum, and is drawn
+ * at random in its upper half so that the retries of concurrent calls are spread.<br>
+ * <br>
+ * By default the transient failures are the {@link RejectedExecutionException}, {@link IOException} and {@link TimeoutException}:
+ * a {@link TimeLimitExceededException} is never retried since the time limit of the call is shared by its attempts.<br>
+ * <br>
+ * Exported to Prometheus by policy name: retries (retry_attempts).
+ * @author anthony
+ *
+ */
+public class RetryPolicy {
+
+	private static final Counter retryCount = Counter.build("retry_attempts", "Attempts made by the retried calls after a failure").labelNames("policy").register();
+
+	private final String name;
+	private final Counter.Child retries;
+
+	private volatile int maxAttempts = 3;
+	private volatile long backoffNanos = TimeUnit.MILLISECONDS.toNanos(10);
+	private volatile long maxBackoffNanos = TimeUnit.SECONDS.toNanos(1);
+	private volatile Predicate<Throwable> retryOn = RetryPolicy::isTransient;
+
+	/**
+	 * Constructor
+	 * @param name the name of this policy. Used as a label of the metrics.
+	 */
+	public RetryPolicy(String name) {
+		this.name = name;
+		this.retries = retryCount.labels(name);
+	}
+
+	/**
+	 * Get the name of this policy
+	 * @return the name given at construction
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the maximum number of attempts of a call
+	 * @return a number of attempts, the first one included
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Set the maximum number of attempts of a call
+	 * @param maxAttempts a number of attempts, the first one included. 1 disables the retries. Default is 3.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		if(maxAttempts < 1)
+			throw new IllegalArgumentException("maxAttempts must be strictly positive");
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the backoff before the first retry. Doubled at every retry.
+	 * @param backoff a duration. 0 to retry without waiting. Default is 10 milliseconds.
+	 * @param unit the unit of the backoff
+	 */
+	public void setBackoff(long backoff, TimeUnit unit) {
+		if(backoff < 0)
+			throw new IllegalArgumentException("backoff cannot be negative");
+		this.backoffNanos = unit.toNanos(backoff);
+	}
+
+	/**
+	 * Set the maximum backoff between two attempts
+	 * @param maxBackoff a duration. Default is 1 second.
+	 * @param unit the unit of the backoff
+	 */
+	public void setMaxBackoff(long maxBackoff, TimeUnit unit) {
+		if(maxBackoff < 0)
+			throw new IllegalArgumentException("maxBackoff cannot be negative");
+		this.maxBackoffNanos = unit.toNanos(maxBackoff);
+	}
+
+	/**
+	 * Set the failures which are retried
+	 * @param retryOn a predicate on the failure of an attempt. Default is {@link #isTransient(Throwable)}.
+	 */
+	public void setRetryOn(Predicate<Throwable> retryOn) {
+		if(retryOn == null)
+			throw new IllegalArgumentException("retryOn cannot be null");
+		this.retryOn = retryOn;
+	}
+
+	/**
+	 * The default predicate of the failures which are retried
+	 * @param failure the failure of an attempt
+	 * @return true for a {@link RejectedExecutionException}, an {@link IOException} or a {@link TimeoutException}
+	 */
+	public static boolean isTransient(Throwable failure) {
+		return failure instanceof RejectedExecutionException || failure instanceof IOException || failure instanceof TimeoutException;
+	}
+
+	/**
+	 * Check if a failure is retried
+	 * @param failure the failure of an attempt
+	 * @return true if the failure is retried
+	 */
+	boolean isRetryable(Throwable failure) {
+		return !(failure instanceof TimeLimitExceededException) && retryOn.test(failure);
+	}
+
+	/**
+	 * Get the backoff before an attempt
+	 * @param attempt the index of the attempt. 1 for the first retry.
+	 * @return a duration in nanoseconds
+	 */
+	long backoffNanos(int attempt) {
+		final long base = backoffNanos;
+		if(base == 0)
+			return 0;
+		final int shift = Math.min(attempt - 1, 30);
+		final long max = Math.min(maxBackoffNanos, (base > (Long.MAX_VALUE >> shift))? Long.MAX_VALUE : base << shift);
+		return (max / 2) + ThreadLocalRandom.current().nextLong(max / 2 + 1);
+	}
+
+	/**
+	 * A failed attempt is retried
+	 */
+	void retried() {
+		retries.inc();
+	}
+
+	/**
+	 * Get the number of retries made by the calls of this policy
+	 * @return a number of attempts
+	 */
+	public long getRetries() {
+		return (long) retries.get();
+	}
+
+	@Override
+	public String toString() {
+		return new LogFmt().append("policy", name).append("maxAttempts", maxAttempts).append("retries", getRetries()).toString();
+	}
+}
@@ -0,0 +1,253 @@
+package com.github.timmy80.mia.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
+
+/**
+ * Detection of the jobs blocking a {@link Task} for longer than {@link TaskParams#getSlowJobThresholdNanos()}.<br>
+ * A single sampling Thread watches all the Tasks of the JVM with a threshold. A Task does not pay any timer nor timestamp per job:
+ * it only publishes a job counter and its current job. A job is detected as slow when the sampler sees the same job counter
+ * during more than the threshold.<br>
+ * <br>
+ * The stack of the Thread executing a slow job is captured once per incident and logged with the origin of the job:
+ * the {@link Terminal} or {@link State} captured by the job if any, and the class of the job.
+ * @author anthony
+ *
+ */
+class SlowJobDetector implements Runnable {
+
+	private static Logger logger = LogManager.getLogger(SlowJobDetector.class.getName());
+
+	private static final long MIN_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Maximum depth of the search of the origin of a job within the objects captured by the job
+	 */
+	private static final int MAX_ORIGIN_DEPTH = 4;
+
+	private static final String CORE_PREFIX = SlowJobDetector.class.getPackageName() + ".";
+
+	private static final SlowJobDetector instance = new SlowJobDetector();
+
+	/**
+	 * Get the detector of the JVM
+	 * @return the SlowJobDetector
+	 */
+	static SlowJobDetector getInstance() {
+		return instance;
+	}
+
+	/**
+	 * The sampling state of a watched Task. Only accessed by the sampling Thread once registered.
+	 */
+	private static final class Watch {
+		final Task task;
+		final long threshold;
+		long lastSeq = -1;
+		long since = 0;
+		long reportedSeq = -1;
+
+		Watch(Task task, long threshold) {
+			this.task = task;
+			this.threshold = threshold;
+		}
+	}
+
+	private final CopyOnWriteArrayList<Watch> watches = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Sampling period: a quarter of the lowest threshold. Long.MAX_VALUE when there is nothing to watch.
+	 */
+	private volatile long periodNanos = Long.MAX_VALUE;
+
+	private Thread sampler = null;
+
+	private SlowJobDetector() {
+	}
+
+	/**
+	 * Start watching the jobs of a Task
+	 * @param task a Task with a slow job threshold
+	 */
+	synchronized void watch(Task task) {
+		long threshold = task.getParams().getSlowJobThresholdNanos();
+		watches.add(new Watch(task, threshold));
+		periodNanos = Math.min(periodNanos, periodOf(threshold));
+
+		if(sampler == null) {
+			sampler = new Thread(this, "mia-slow-job-detector");
+			sampler.setDaemon(true);
+			sampler.start();
+		}
+		else
+			LockSupport.unpark(sampler); // apply the new period
+	}
+
+	/**
+	 * Stop watching the jobs of a Task
+	 * @param task a watched Task
+	 */
+	synchronized void unwatch(Task task) {
+		watches.removeIf(w -> w.task == task);
+		long period = Long.MAX_VALUE;
+		for(Watch w : watches)
+			period = Math.min(period, periodOf(w.threshold));
+		periodNanos = period; // a longer period is applied at the next sample
+	}
+	
+	/**
+	 * Get the current sampling period
+	 * @return a period in nanoseconds, Long.MAX_VALUE when no Task is watched
+	 */
+	long getPeriodNanos() {
+		return periodNanos;
+	}
+	
+	private static long periodOf(long threshold) {
+		return Math.max(MIN_PERIOD_NANOS, threshold / 4);
+	}
+
+	@Override
+	public void run() {
+		while(true) {
+			long period = periodNanos;
+			if(period == Long.MAX_VALUE)
+				LockSupport.park(this); // nothing to watch: until the next watch
+			else
+				LockSupport.parkNanos(this, period);
+			final long now = System.nanoTime();
+			for(Watch w : watches) {
+				try {
+					check(w, now);
+				} catch (Throwable e) {
+					logger.error("Unexpected exception while watching slow jobs.", e);
+				}
+			}
+		}
+	}
+
+	private void check(Watch w, long now) {
+		Runnable job = w.task.currentJob;
+		long seq = w.task.jobSeq;
+		if(job == null) {
+			w.lastSeq = -1; // idle
+			return;
+		}
+
+		if(seq != w.lastSeq) {
+			// a new job since the last sample
+			w.lastSeq = seq;
+			w.since = now;
+			return;
+		}
+
+		if(seq == w.reportedSeq || now - w.since < w.threshold)
+			return;
+
+		w.reportedSeq = seq; // once per incident
+		Thread thread = w.task.jobThread;
+		w.task.getMetrics().slowJob();
+
+		Throwable stack = new Throwable(String.format("Stack of %s", (thread == null)? "unknown thread" : thread.getName()));
+		stack.setStackTrace((thread == null)? new StackTraceElement[0] : thread.getStackTrace());
+
+		Object target = job;
+		Object origin = null;
+		if(job instanceof AsyncJob) {
+			target = ((AsyncJob<?>) job).target();
+			origin = ((AsyncJob<?>) job).guard;
+		}
+		else if(job instanceof TaskTimer.TaskTimeout)
+			target = ((TaskTimer.TaskTimeout) job).task();
+		target = unwrap(target);
+		if(origin == null)
+			origin = findOrigin(target, 0);
+		logger.warn("{} {}", w.task, new LogFmt()
+				.append("event", "slow job")
+				.append("elapsedMs", TimeUnit.NANOSECONDS.toMillis(now - w.since))
+				.append("origin", (origin instanceof State)? ((State) origin).getName() : origin)
+				.append("job", jobClass(target)), stack);
+	}
+
+	/**
+	 * Get the class of a job. The generated suffix of a lambda class is removed, leaving the class which defines the lambda.
+	 * @param job a job
+	 * @return a class name
+	 */
+	static String jobClass(Object job) {
+		String name = job.getClass().getName();
+		int lambda = name.indexOf("$$Lambda");
+		return (lambda < 0)? name : name.substring(0, lambda + "$$Lambda".length());
+	}
+
+	/**
+	 * Get the job given by the user out of the wrappers added by mia-core (such as {@link Terminal#callLater(java.util.concurrent.Callable)})
+	 * @param job a job
+	 * @return the innermost job
+	 */
+	static Object unwrap(Object job) {
+		for(int depth=0; depth < MAX_ORIGIN_DEPTH && job.getClass().getName().startsWith(CORE_PREFIX); depth++) {
+			Object inner = null;
+			for(Field field : job.getClass().getDeclaredFields()) {
+				if(Modifier.isStatic(field.getModifiers()) || !isJob(field.getType()))
+					continue;
+				try {
+					field.setAccessible(true);
+					inner = field.get(job);
+				} catch (RuntimeException | IllegalAccessException e) {
+					// not accessible: ignored
+				}
+				if(inner != null)
+					break;
+			}
+			if(inner == null)
+				break;
+			job = inner;
+		}
+		return job;
+	}
+
+	private static boolean isJob(Class<?> type) {
+		return type == Callable.class || type == Runnable.class || type == ThrowingRunnable.class || type == TimerTask.class;
+	}
+
+	/**
+	 * Search for a {@link Terminal} or a {@link State} within the objects captured by a job (lambda or inner class)
+	 * @param job a job
+	 * @param depth the current depth of the search
+	 * @return a Terminal, a State or null if not found
+	 */
+	static Object findOrigin(Object job, int depth) {
+		if(job instanceof Terminal || job instanceof State)
+			return job;
+		if(job == null || depth >= MAX_ORIGIN_DEPTH)
+			return null;
+
+		Class<?> type = job.getClass();
+		if(type.getName().startsWith("java."))
+			return null;
+
+		for(Field field : type.getDeclaredFields()) {
+			if(Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+				continue;
+			try {
+				field.setAccessible(true);
+				Object found = findOrigin(field.get(job), depth + 1);
+				if(found != null)
+					return found;
+			} catch (RuntimeException | IllegalAccessException e) {
+				// not accessible: ignored
+			}
+		}
+		return null;
+	}
+}
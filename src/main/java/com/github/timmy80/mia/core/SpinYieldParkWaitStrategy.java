@@ -0,0 +1,71 @@
+package com.github.timmy80.mia.core;
+
+/**
+ * {@link WaitStrategy} that busy spins for a while, then yields the CPU and finally parks the Task Thread.<br>
+ * Events posted during the spin and yield phases are handled within microseconds while an idle Task
+ * still ends up parked like with the {@link BlockingWaitStrategy}.
+ * @author anthony
+ *
+ */
+public class SpinYieldParkWaitStrategy extends BlockingWaitStrategy {
+
+	/**
+	 * Default number of spin loops before yielding
+	 */
+	public static final int DEFAULT_SPINS = 10000;
+
+	/**
+	 * Default number of yields before parking
+	 */
+	public static final int DEFAULT_YIELDS = 100;
+
+	private final int spins;
+	private final int yields;
+
+	/**
+	 * Constructor using {@link #DEFAULT_SPINS} and {@link #DEFAULT_YIELDS}
+	 */
+	public SpinYieldParkWaitStrategy() {
+		this(DEFAULT_SPINS, DEFAULT_YIELDS);
+	}
+
+	/**
+	 * Constructor
+	 * @param spins number of spin loops before yielding
+	 * @param yields number of calls to {@link Thread#yield()} before parking
+	 */
+	public SpinYieldParkWaitStrategy(int spins, int yields) {
+		if(spins < 0 || yields < 0)
+			throw new IllegalArgumentException("spins and yields cannot be negative");
+		this.spins = spins;
+		this.yields = yields;
+	}
+
+	@Override
+	public boolean await(long timeoutNanos) throws InterruptedException {
+		if(consumePost())
+			return false; // posted before waiting
+		
+		for(int i=0; i < spins; i++) {
+			Thread.onSpinWait();
+			if(consumePost())
+				return true;
+		}
+
+		for(int i=0; i < yields; i++) {
+			Thread.yield();
+			if(consumePost())
+				return true;
+		}
+
+		return park(timeoutNanos);
+	}
+
+	@Override
+	public String toString() {
+		return new LogFmt()
+				.append("type", getClass().getSimpleName())
+				.append("spins", spins)
+				.append("yields", yields).toString();
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import io.netty.util.Timeout;
+
+/**
+ * A {@link CompletableFuture} completed on an {@link ExecutionStage}: the base of the futures built from other futures
+ * ({@link Combinator}, {@link Hedge}, {@link Retry}).<br>
+ * Its timeouts are created on the timer of the Task of the stage if any, so that they expire on the Task without any
+ * Thread hand-off, and it is completed by a job of the stage: inline when already executed by the Task of the stage.
+ * @author anthony
+ *
+ * @param <V> The result Type
+ */
+abstract class StageFuture<V> extends CompletableFuture<V> {
+
+	/**
+	 * The stage completing this future
+	 */
+	final ExecutionStage stage;
+
+	/**
+	 * Constructor
+	 * @param stage the stage completing this future
+	 */
+	StageFuture(ExecutionStage stage) {
+		this.stage = stage;
+	}
+
+	/**
+	 * Get the Task executing the jobs of a stage
+	 * @param stage an {@link ExecutionStage}
+	 * @return a Task or null if the stage is not bound to a Task
+	 */
+	static Task taskOf(ExecutionStage stage) {
+		if(stage instanceof Task)
+			return (Task) stage;
+		if(stage instanceof Terminal)
+			return ((Terminal<?>) stage).task();
+		if(stage instanceof TerminalState && ((TerminalState) stage).terminal() != null)
+			return ((TerminalState) stage).terminal().task();
+		return null;
+	}
+
+	/**
+	 * Get an {@link ExecutionStage} submitting its calls to an {@link Executor}
+	 * @param executor the {@link Executor}
+	 * @return the executor itself if it is a stage
+	 */
+	static ExecutionStage stageOf(Executor executor) {
+		if(executor instanceof ExecutionStage)
+			return (ExecutionStage) executor;
+
+		return new ExecutionStage() {
+			@Override
+			public <R> CompletableFuture<R> callBefore(TimeLimit limit, Callable<R> callable) {
+				return Async.callBefore(executor, limit, callable);
+			}
+
+			@Override
+			public boolean isActive() {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Create a timeout on the timer of the Task of the stage, or on the timer of {@link Async} if the stage is not bound to a Task.
+	 * @param delayNanos the delay in nanoseconds
+	 * @param timerTask the function called when the delay is reached
+	 * @return a {@link Timeout}
+	 */
+	Timeout newTimeout(long delayNanos, TimerTask timerTask) {
+		Task task = taskOf(stage);
+		if(task != null)
+			return task.newTimeout(delayNanos, TimeUnit.NANOSECONDS, timerTask);
+		return Async.newTimeout(delayNanos, TimeUnit.NANOSECONDS, timerTask);
+	}
+
+	/**
+	 * Execute a function on the stage, inline if already executed by the Task of the stage.<br>
+	 * This future is completed exceptionally if the stage rejects the function (a terminated Terminal, a full jobs queue...).
+	 * @param runnable the function
+	 */
+	void onStage(Async.ThrowingRunnable runnable) {
+		if(stage instanceof Task && ((Task) stage).inTask()) {
+			try {
+				runnable.run();
+			} catch (Throwable e) {
+				completeExceptionally(e);
+			}
+			return;
+		}
+
+		stage.callBefore(TimeLimit.noLimit(), () -> {
+			runnable.run();
+			return null;
+		}).exceptionally(t -> {
+			completeExceptionally(t);
+			return null;
+		});
+	}
+
+	/**
+	 * Complete this future on the stage
+	 * @param result the result
+	 * @param failure the failure or null if completed normally
+	 */
+	void resume(V result, Throwable failure) {
+		onStage(() -> {
+			if(failure != null)
+				completeExceptionally(failure);
+			else
+				complete(result);
+		});
+	}
+
+	/**
+	 * Call a function returning a future, its exceptions being turned into a failed future
+	 * @param <R> The result type
+	 * @param attempt the function
+	 * @param index the argument of the function
+	 * @return the future of the function. Never null.
+	 */
+	static <R> CompletableFuture<? extends R> start(IntFunction<? extends CompletableFuture<? extends R>> attempt, int index) {
+		try {
+			CompletableFuture<? extends R> f = attempt.apply(index);
+			if(f == null)
+				throw new NullPointerException("null future returned by attempt " + index);
+			return f;
+		} catch (Throwable e) {
+			CompletableFuture<R> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+}
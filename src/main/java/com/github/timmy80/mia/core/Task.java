@@ -1,12 +1,18 @@
 package com.github.timmy80.mia.core;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,11 +25,15 @@ import com.github.timmy80.mia.core.Async.VoidFunction1;
 import com.github.timmy80.mia.core.Async.VoidFunction2;
 import com.github.timmy80.mia.core.Async.VoidFunction3;
 import com.github.timmy80.mia.core.Async.VoidFunction4;
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+import com.github.timmy80.mia.core.TaskParams.SchedulingPolicy;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
@@ -32,10 +42,14 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.util.Timeout;
+import io.netty.util.Timer;
 import io.netty.util.concurrent.Future;
 
 /**
- * A MiA task. This is intended to be the single point of synchronization.
+ * A MiA task. This is intended to be the single point of synchronization.<br>
+ * <br>
+ * By default a Task runs its event loop on its own Thread. See {@link TaskParams#setExecutionMode(ExecutionMode)} to run it
+ * on a virtual Thread or on a pool shared with other Tasks. In all the modes the jobs of a Task are executed one at a time.
  * @author anthony
  *
  */
@@ -43,25 +57,152 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 
 	private static Logger logger = LogManager.getLogger(Task.class.getName());
 	
+	/**
+	 * Maximum time spent waiting for new events before performing an iteration anyway.
+	 */
+	private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+	
+	/**
+	 * The Task whose jobs are executed by the current Thread
+	 */
+	private static final ThreadLocal<Task> current = new ThreadLocal<>();
+	
+	/**
+	 * Get the Task whose jobs are being executed by the calling Thread.
+	 * @return a Task or null if the calling Thread is not executing a Task
+	 */
+	public static Task current() {
+		return current.get();
+	}
+	
 	private ApplicationContext appCtx;
+	
+	private final TaskParams params;
 
 	/**
 	 * Keep this to true in order to keep this thread alive.
 	 */
-	private boolean run = true;
+	private volatile boolean run = true;
 	
 	private boolean stopEventTriggered = false;
 	
-	ConcurrentLinkedQueue<Runnable> jobs = new ConcurrentLinkedQueue<>();
-	ConcurrentLinkedQueue<CompletableFuture<?>> epilogs = new ConcurrentLinkedQueue<>();
-	ArrayList<Terminal<?>> terminals = new ArrayList<>();
+	private boolean startEventTriggered = false;
+	
+	/**
+	 * True once {@link #start()} has been called
+	 */
+	private volatile boolean started = false;
+	
+	/**
+	 * Completed when the event loop of this Task has ended
+	 */
+	private final CompletableFuture<Void> termination = new CompletableFuture<>();
+	
+	/**
+	 * {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP} only: true while an iteration is scheduled or running.
+	 * Remains true once the Task is terminated.
+	 */
+	private final AtomicBoolean iterationScheduled = new AtomicBoolean(false);
+	
+	/**
+	 * {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP} only: an iteration of the event loop
+	 */
+	private final Runnable scheduledIteration = this::runScheduledIteration;
+	
+	/**
+	 * {@link ExecutionMode#EVENT_LOOP} only: the Netty EventLoop executing this Task. null otherwise.
+	 */
+	private final EventLoop eventLoop;
+	
+	/**
+	 * Duration a producer is parked between two attempts when the jobs queue is full and the {@link OverflowPolicy} is BLOCK
+	 */
+	private static final long BLOCK_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	
+	/**
+	 * Outbound batching only: maximum number of flushed batches kept for reuse
+	 */
+	private static final int MAX_SPARE_BATCHES = 8;
+	
+	final Queue<Runnable> jobs;
+	/**
+	 * Number of epilogs registered and not completed yet
+	 */
+	final AtomicInteger pendingEpilogs = new AtomicInteger();
+	final TerminalRegistry terminals = new TerminalRegistry();
 
-	EventControlBlock ecb = new EventControlBlock();
+	final WaitStrategy waitStrategy;
+	
+	/**
+	 * Scheduler of the jobs. null when jobs are executed in FIFO order.
+	 */
+	private final DeadlineScheduler scheduler;
+	
+	private final TaskMetrics metrics;
+	
+	/**
+	 * The timer wheel of this Task, processed by its event loop
+	 */
+	private final TaskTimer timer;
+	
+	/**
+	 * {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP} only: true if a wakeup is scheduled at {@link #timerWakeupTime}
+	 */
+	private boolean timerWakeupArmed = false;
+	
+	/**
+	 * {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP} only: time of the scheduled wakeup as given by {@link System#nanoTime()}
+	 */
+	private long timerWakeupTime = 0;
+	
+	private final Runnable timerWakeup = this::scheduleIteration;
 	
 	/**
 	 * Last time a full iteration has been performed (Timestamp in milliseconds)
 	 */
 	volatile long lastScanTime = 0;
+	
+	/**
+	 * True if the jobs of this Task are watched by the {@link SlowJobDetector}
+	 */
+	private final boolean watchJobs;
+	
+	/**
+	 * Watched Task only: the job being executed. null between two jobs.
+	 */
+	volatile Runnable currentJob = null;
+	
+	/**
+	 * Watched Task only: incremented at the start of every job
+	 */
+	volatile long jobSeq = 0;
+	
+	/**
+	 * Watched Task only: the Thread executing the jobs of this Task
+	 */
+	volatile Thread jobThread = null;
+	
+	/**
+	 * Number of nested jobs executed inline by the job being executed. Only accessed by this Task.
+	 */
+	private int inlineDepth = 0;
+	
+	/**
+	 * Outbound batching only: the jobs submitted by this Task to other Tasks and not flushed yet, per destination.
+	 * null if the batching is disabled. Only accessed by this Task.<br>
+	 * An entry is removed once flushed: the Tasks this Task talked to in the past are not kept reachable.
+	 */
+	private final IdentityHashMap<Task, ArrayList<Runnable>> outbound;
+	
+	/**
+	 * Outbound batching only: the destinations with buffered jobs, in order of their first job
+	 */
+	private final ArrayList<Task> outboundDestinations;
+	
+	/**
+	 * Outbound batching only: empty batches reused whatever their next destination
+	 */
+	private final ArrayList<ArrayList<Runnable>> spareBatches;
 
 	/**
 	 * Constructor to associate this task to an {@link ApplicationContext}
@@ -70,8 +211,38 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @throws IllegalArgumentException If parameters are set incorrectly, preventing execution
 	 */
 	public Task(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+		this(name, appCtx, appCtx.getTaskParams(name));
+	}
+	
+	/**
+	 * Constructor to associate this task to an {@link ApplicationContext} with dedicated parameters
+	 * @param name The name of this Thread
+	 * @param appCtx The application context of this Task
+	 * @param params The parameters of this Task. Will be cloned, so you wont be able to change them afterwards.
+	 * @throws IllegalArgumentException If parameters are set incorrectly, preventing execution
+	 */
+	public Task(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
 		super(name);
 		this.appCtx = appCtx;
+		this.params = (TaskParams) params.clone();
+		if(this.params.getExecutionMode() == ExecutionMode.VIRTUAL_THREAD && !VirtualThreads.isSupported())
+			throw new IllegalArgumentException("ExecutionMode VIRTUAL_THREAD requires Java 21 or later");
+		this.eventLoop = (this.params.getExecutionMode() == ExecutionMode.EVENT_LOOP)? appCtx.getEventloopgroup().next() : null;
+		this.waitStrategy = this.params.getWaitStrategy().get();
+		if(this.params.getJobsCapacity() > 0)
+			this.jobs = new ArrayJobQueue<>(this.params.getJobsCapacity());
+		else
+			this.jobs = new ConcurrentLinkedQueue<>();
+		this.metrics = new TaskMetrics(name, this::getJobsDepth, this.params.getMetricsSampling());
+		this.outbound = this.params.isOutboundBatching()? new IdentityHashMap<>() : null;
+		this.outboundDestinations = this.params.isOutboundBatching()? new ArrayList<>() : null;
+		this.spareBatches = this.params.isOutboundBatching()? new ArrayList<>() : null;
+		if(this.params.getSchedulingPolicy() == SchedulingPolicy.EARLIEST_DEADLINE_FIRST)
+			this.scheduler = new DeadlineScheduler(this.params.getNoLimitDelay(), this.params.getJobsCapacity(), metrics);
+		else
+			this.scheduler = null;
+		this.watchJobs = this.params.getSlowJobThresholdNanos() > 0;
+		this.timer = new TaskTimer(this, this.params.getTimerTickNanos());
 		this.appCtx.addTask(this);
 	}
 	
@@ -89,7 +260,12 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * Wake up the thread of this task
 	 */
 	public void wakeup() {
-		ecb.post();
+		if(isIterationScheduled()) {
+			if(scheduleIteration())
+				metrics.wakeup();
+		}
+		else
+			waitStrategy.signal();
 	}
 	
 	/**
@@ -108,20 +284,58 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 		terminals.remove(terminal);
 	}
 	
+	/**
+	 * Internal method to update the id index of a registered terminal.<br>
+	 * Called by the terminal when entering a new state, so that an id set after the terminal creation is taken into account.
+	 * Call it explicitly if the id of a terminal changes while it stays in the same state.
+	 * @param terminal a registered terminal
+	 */
+	protected void indexTerminal(Terminal<?> terminal) {
+		terminals.index(terminal);
+	}
+	
+	/**
+	 * Find a terminal of this Task by its id (See {@link Terminal#getId()}).<br>
+	 * This method must be called by the Thread of this Task. It allows network events to be routed to their terminal without maintaining
+	 * a user-side map. If multiple terminals share the same id, the last indexed one is returned.
+	 * @param id the id of the terminal
+	 * @return the terminal or null if not found
+	 */
+	public Terminal<?> findTerminal(String id) {
+		return terminals.find(id);
+	}
+	
+	/**
+	 * Get the number of terminals registered to this Task
+	 * @return a number of terminals
+	 */
+	public int getTerminalCount() {
+		return terminals.size();
+	}
+	
 	/**
 	 * Add an epilog to this Task. An epilog will prevent this task from stopping until it's completed.<br>
 	 * An epilog can be any instance of CompletableFuture.
 	 * @param epilog an instance of CompletableFuture
 	 */
 	public void registerEpilog(CompletableFuture<?> epilog) {
-		epilogs.add(epilog);
+		pendingEpilogs.incrementAndGet();
 		epilog.handle((r, f) ->{
-			// just wakeup the task so the epilog completion will be taken into account
-			wakeup();
+			// wakeup the task only for the last epilog so the completion will be taken into account
+			if(pendingEpilogs.decrementAndGet() == 0)
+				wakeup();
 			return null;
 		});
 	}
 	
+	/**
+	 * Get the number of epilogs registered to this Task and not completed yet.
+	 * @return a number of epilogs
+	 */
+	public int getPendingEpilogs() {
+		return pendingEpilogs.get();
+	}
+	
 	/**
 	 * Require this task to stop.
 	 */
@@ -131,69 +345,389 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 		wakeup();
 	}
 
+	/**
+	 * Start the event loop of this Task according to its {@link ExecutionMode}.
+	 * @throws IllegalThreadStateException if the Task was already started
+	 */
+	@Override
+	public synchronized void start() {
+		switch(params.getExecutionMode()) {
+		case VIRTUAL_THREAD:
+			if(started)
+				throw new IllegalThreadStateException(String.format("%s already started", getName()));
+			started = true;
+			VirtualThreads.start(getName(), this::run);
+			break;
+			
+		case POOLED:
+		case EVENT_LOOP:
+			if(started)
+				throw new IllegalThreadStateException(String.format("%s already started", getName()));
+			started = true;
+			scheduleIteration();
+			break;
+			
+		default:
+			super.start();
+			started = true;
+		}
+	}
+	
 	@Override
 	public void run() {
+		current.set(this);
 		try {
-			logger.always().log("{} {}", this, new LogFmt().append("event", "STARTING"));
-			this.internalEventStartTask();
+			startEventLoop();
 
 			// avoid sleeping if jobs are already available
-			if (jobs.size() > 0)
-				ecb.post();
+			if (!jobs.isEmpty())
+				waitStrategy.signal();
 
-			while (isActive()) { // isActive(): run || ! epilogs.isEmpty()
+			boolean budgetExhausted = false;
+			while (isActive()) { // isActive(): run || pendingEpilogs > 0
 				try {
-					// wait until we get some messages
-					ecb.waitForPost(500);
-
-					// Trigger the stop event once
-					if(run == false && stopEventTriggered == false) {
-						logger.always().log("{} {}", this, new LogFmt().append("event", "STARTING STOP SEQUENCE"));
-						stopEventTriggered = true;
-						this.internalEventStopRequested();
-					}
-					
-					Runnable wJob;
-					while ((wJob = jobs.poll()) != null) {
-						try {
-							wJob.run();
-						} catch (Throwable e) {
-							logger.error("Unexpected exception while executing event.", e);
-						}
-					}
-					
-					// remove all epilogs which are done
-					Iterator<CompletableFuture<?>> it = epilogs.iterator();
-					while(it.hasNext()) {
-						CompletableFuture<?> epilog = it.next();
-						if(epilog.isDone()) {
-							epilogs.remove(epilog);
-						}
+					// wait until we get some messages or a timeout expires, unless the previous iteration left some jobs behind
+					if(!budgetExhausted) {
+						long waitNanos = timer.nanosUntilNextTick(System.nanoTime(), MAX_WAIT_NANOS);
+						if(waitNanos > 0 && waitStrategy.await(waitNanos))
+							metrics.wakeup(); // not counted when woken up by the timer
 					}
-
 				} catch (InterruptedException e) {
 					logger.error("Task interrupted", e);
 				}
 				
-				// last time a full iteration has been performed
-				lastScanTime = System.currentTimeMillis();
+				budgetExhausted = iterate();
 			}
 			
-			if(terminals.size() > 0) {
-				@SuppressWarnings("unchecked")
-				Iterator<Terminal<?>> it = ((ArrayList<Terminal<?>>)terminals.clone()).iterator();
-				while(it.hasNext()) {
-					Terminal<?> t = it.next();
-					logger.fatal("Terminating : {}", t);
-					t.terminate();
-				}
+			terminateTerminals();
+		} finally {
+			endEventLoop();
+			current.remove();
+		}
+	}
+	
+	/**
+	 * Check if the iterations of this Task are scheduled on a shared executor rather than performed by a Thread of its own
+	 * @return true for {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP}
+	 */
+	private boolean isIterationScheduled() {
+		return params.getExecutionMode() == ExecutionMode.POOLED || eventLoop != null;
+	}
+	
+	/**
+	 * Schedule an iteration on the Task pool or on the EventLoop of this Task unless one is already scheduled.
+	 * @return true if this call scheduled an iteration
+	 */
+	private boolean scheduleIteration() {
+		if(!started || !iterationScheduled.compareAndSet(false, true))
+			return false;
+		
+		submitIteration();
+		return true;
+	}
+	
+	private void submitIteration() {
+		try {
+			if(eventLoop != null)
+				eventLoop.execute(scheduledIteration); // no wakeup of the selector if called from the EventLoop itself
+			else
+				appCtx.getTaskPool().execute(scheduledIteration);
+		} catch (RejectedExecutionException e) {
+			logger.error("{} {}", this, new LogFmt().append("event", "iteration rejected by the executor").append("reason", e.getMessage()));
+		}
+	}
+	
+	/**
+	 * Perform one iteration of the event loop on a Thread of the Task pool or on the EventLoop of this Task.<br>
+	 * Only one iteration of a given Task is scheduled at a time, so the jobs of the Task are never executed concurrently.
+	 */
+	private void runScheduledIteration() {
+		current.set(this);
+		try {
+			if(!startEventTriggered)
+				startEventLoop();
+			
+			boolean budgetExhausted = iterate();
+			
+			if(!isActive()) {
+				terminateTerminals();
+				endEventLoop(); // iterationScheduled remains true: no more iteration
+				return;
 			}
 			
+			if(budgetExhausted) {
+				// give the other Tasks (and the I/O of the EventLoop) a chance to run before the next iteration
+				submitIteration();
+				return;
+			}
+		} catch (Throwable e) {
+			// same outcome as an exception escaping the event loop of a Thread
+			logger.error("Unexpected exception in the event loop.", e);
+			endEventLoop();
+			return;
 		} finally {
+			current.remove();
+		}
+		
+		// the timer and the timer wakeup state are confined to the iteration: arm it before releasing the flag
+		if(timer.hasPending())
+			armTimerWakeup();
+		
+		iterationScheduled.set(false);
+		// an event may have been posted while the flag was still set
+		if(!jobs.isEmpty() || (!run && !stopEventTriggered) || !isActive()) {
+			if(scheduleIteration())
+				metrics.wakeup();
+		}
+	}
+	
+	/**
+	 * {@link ExecutionMode#POOLED} and {@link ExecutionMode#EVENT_LOOP} only: schedule an iteration at the next tick of the timer
+	 * on the EventLoop of this Task or on an EventLoop of the {@link ApplicationContext}, unless an earlier one is already scheduled.
+	 */
+	private void armTimerWakeup() {
+		final long now = System.nanoTime();
+		final long delay = timer.nanosUntilNextTick(now, MAX_WAIT_NANOS);
+		if(timerWakeupArmed && timerWakeupTime - now > 0 && timerWakeupTime - (now + delay) <= 0)
+			return;
+		
+		timerWakeupArmed = true;
+		timerWakeupTime = now + delay;
+		try {
+			EventLoop loop = (eventLoop != null)? eventLoop : appCtx.getEventloopgroup().next();
+			loop.schedule(timerWakeup, delay, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			timerWakeupArmed = false;
+			logger.error("{} {}", this, new LogFmt().append("event", "timer wakeup rejected by the executor").append("reason", e.getMessage()));
+		}
+	}
+	
+	private void startEventLoop() {
+		startEventTriggered = true;
+		logger.always().log("{} {}", this, new LogFmt()
+				.append("event", "STARTING")
+				.append("mode", params.getExecutionMode())
+				.append("waitStrategy", waitStrategy));
+		if(watchJobs)
+			SlowJobDetector.getInstance().watch(this);
+		this.internalEventStartTask();
+		if(outbound != null)
+			flushOutbound();
+	}
+	
+	/**
+	 * Perform an iteration of the event loop
+	 * @return true if the iteration budget has been exhausted before all the pending jobs were executed
+	 */
+	private boolean iterate() {
+		final long iterationStart = System.nanoTime();
+		
+		if(watchJobs)
+			jobThread = Thread.currentThread();
+
+		// Trigger the stop event once
+		if(run == false && stopEventTriggered == false) {
+			logger.always().log("{} {}", this, new LogFmt().append("event", "STARTING STOP SEQUENCE"));
+			stopEventTriggered = true;
+			this.internalEventStopRequested();
+		}
+		
+		// expire the timeouts on this Task
+		if(timer.hasPending())
+			timer.expire(iterationStart);
+		
+		boolean budgetExhausted = runJobs(iterationStart);
+		
+		// the jobs submitted by the events of this iteration
+		if(outbound != null)
+			flushOutbound();
+		
+		metrics.iterationDone(iterationStart);
+		
+		// last time a full iteration has been performed
+		lastScanTime = System.currentTimeMillis();
+		return budgetExhausted;
+	}
+	
+	private void terminateTerminals() {
+		if(terminals.size() == 0)
+			return;
+		
+		// terminate the terminals registered at this point: a terminal registered by a terminate() may reuse a freed slot,
+		// so the slots are copied aside first
+		Terminal<?>[] remaining = new Terminal<?>[terminals.size()];
+		for(int slot=0, slots=terminals.slots(), n=0; slot < slots; slot++) {
+			Terminal<?> t = terminals.get(slot);
+			if(t != null)
+				remaining[n++] = t;
+		}
+		for(Terminal<?> t : remaining) {
+			if(t.isTerminated())
+				continue; // by the termination of another terminal
+			logger.fatal("Terminating : {}", t);
+			t.terminate();
+		}
+	}
+	
+	private void endEventLoop() {
+		if(termination.isDone())
+			return;
+		try {
+			if(outbound != null)
+				flushOutbound(); // the jobs submitted while terminating the terminals
+			timer.stop();
+			if(watchJobs)
+				SlowJobDetector.getInstance().unwatch(this);
+			metrics.close();
 			logger.always().log("{} {}", this, new LogFmt().append("event", "END OF TASK"));
 			this.appCtx.removeTask(this);
+		} finally {
+			termination.complete(null);
+			if(scheduler != null) {
+				Runnable job;
+				while((job = scheduler.next(jobs)) != null)
+					reject(job, new RejectedExecutionException(String.format("%s is terminated", getName())));
+			}
+			rejectPendingJobs();
 		}
 	}
+	
+	/**
+	 * Reject the jobs queued once the event loop of this Task has ended: they would never be executed.<br>
+	 * Called by the Task at the end of its event loop, then by the producers which queued a job after it.
+	 */
+	private void rejectPendingJobs() {
+		Runnable job;
+		while((job = jobs.poll()) != null)
+			reject(job, new RejectedExecutionException(String.format("%s is terminated", getName())));
+	}
+	
+	/**
+	 * Check if this Task has been started and its event loop has not ended yet.<br>
+	 * Unlike {@link Thread#isAlive()}, this method is relevant whatever the {@link ExecutionMode} of the Task.
+	 * @return true if the Task is running
+	 */
+	public boolean isRunning() {
+		if(params.getExecutionMode() == ExecutionMode.THREAD)
+			return isAlive();
+		return started && !termination.isDone();
+	}
+	
+	/**
+	 * Wait for the end of the event loop of this Task.<br>
+	 * Unlike {@link Thread#join()}, this method is relevant whatever the {@link ExecutionMode} of the Task.
+	 * Returns immediately if the Task has not been started.
+	 * @throws InterruptedException if the calling Thread is interrupted
+	 */
+	public void awaitTermination() throws InterruptedException {
+		if(params.getExecutionMode() == ExecutionMode.THREAD) {
+			join();
+			return;
+		}
+		
+		if(!started)
+			return;
+		try {
+			termination.get();
+		} catch (ExecutionException e) {
+			// never completed exceptionally
+		}
+	}
+	
+	/**
+	 * Get a future completed when the event loop of this Task ends.
+	 * @return a CompletableFuture. Completing it has no effect on this Task.
+	 */
+	public CompletableFuture<Void> getTerminationFuture() {
+		return termination.copy();
+	}
+
+	/**
+	 * Execute the pending jobs within the budget of an iteration.<br>
+	 * See {@link TaskParams#setMaxJobsPerIteration(int)} and {@link TaskParams#setMaxIterationTime(long, TimeUnit)}.
+	 * @param iterationStart the start of the iteration as given by {@link System#nanoTime()}
+	 * @return true if the budget has been exhausted before all the pending jobs were executed
+	 */
+	private boolean runJobs(long iterationStart) {
+		final int maxJobs = params.getMaxJobsPerIteration();
+		final long maxTime = params.getMaxIterationTimeNanos();
+		
+		int count = 0;
+		Runnable wJob;
+		while ((wJob = nextJob()) != null) {
+			final long submitTime = (wJob instanceof AsyncJob)? ((AsyncJob<?>) wJob).submitTime : 0;
+			final long startTime = (submitTime != 0)? System.nanoTime() : 0;
+			runJob(wJob);
+			if(submitTime != 0)
+				metrics.jobDone(submitTime, startTime, System.nanoTime());
+			count++;
+			
+			if((maxJobs > 0 && count >= maxJobs) || (maxTime > 0 && System.nanoTime() - iterationStart >= maxTime)) {
+				metrics.jobsPerIteration(count);
+				if(!hasPendingJobs())
+					return false;
+				
+				metrics.budgetExhausted();
+				return true;
+			}
+		}
+		
+		metrics.jobsPerIteration(count);
+		return false;
+	}
+	
+	/**
+	 * Execute a job or an expired timeout of this Task
+	 * @param job the job
+	 */
+	void runJob(Runnable job) {
+		if(watchJobs) {
+			jobSeq++; // single writer
+			currentJob = job;
+		}
+		try {
+			job.run();
+		} catch (Throwable e) {
+			logger.error("Unexpected exception while executing event.", e);
+		}
+		if(watchJobs)
+			currentJob = null;
+		if(outbound != null)
+			flushOutbound();
+	}
+	
+	/**
+	 * Check if some jobs are waiting for execution
+	 * @return true if the jobs queue or the scheduler of this Task holds some jobs
+	 */
+	private boolean hasPendingJobs() {
+		return !jobs.isEmpty() || (scheduler != null && !scheduler.isEmpty());
+	}
+	
+	/**
+	 * Get the number of jobs waiting for execution. May be called by any Thread.
+	 * @return the number of jobs in the jobs queue and in the scheduler of this Task
+	 */
+	private int getJobsDepth() {
+		return jobs.size() + ((scheduler == null)? 0 : scheduler.size());
+	}
+	
+	/**
+	 * Get the next job to execute according to the {@link SchedulingPolicy} of this Task.<br>
+	 * Jobs whose {@link TimeLimit} is already exceeded are shed on the way: they are completed exceptionally without being executed.
+	 * @return a job or null if no job is pending
+	 */
+	private Runnable nextJob() {
+		Runnable job;
+		while((job = (scheduler == null)? jobs.poll() : scheduler.next(jobs)) != null) {
+			if(job instanceof AsyncJob && ((AsyncJob<?>) job).rejectIfExpired()) {
+				metrics.jobShed();
+				continue;
+			}
+			return job;
+		}
+		return null;
+	}
 
 	private void internalEventStartTask() {
 		// propagate event
@@ -213,10 +747,12 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 			logger.error("Unexpected exception while triggering stop event.", e);
 		}
 		
-		Iterator<Terminal<?>> it = terminals.iterator();
-		while(it.hasNext()) {
+		for(int slot=0, slots=terminals.slots(); slot < slots; slot++) {
+			Terminal<?> t = terminals.get(slot);
+			if(t == null)
+				continue;
 			try {
-				it.next().eventStopRequested();
+				t.eventStopRequested();
 			} catch (Throwable e) {
 				logger.error("Unexpected exception while triggering stop event.", e);
 			}
@@ -238,21 +774,60 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 		return this.appCtx;
 	}
 
+	/**
+	 * Get the parameters of this Task
+	 * @return the {@link TaskParams} of this Task
+	 */
+	public TaskParams getParams() {
+		return params;
+	}
+	
+	/**
+	 * Get the metrics of this Task
+	 * @return the {@link TaskMetrics} of this Task
+	 */
+	public TaskMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Get the {@link WaitStrategy} used by this Task between two iterations
+	 * @return the WaitStrategy of this Task
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
 	/**
 	 * Get the Netty {@linkplain EventLoopGroup} used for networking within this {@link Task}.<br>
 	 * The {@link EventLoopGroup} is provided by the {@linkplain ApplicationContext}.
+	 * With {@link ExecutionMode#EVENT_LOOP} this is the EventLoop executing this Task, so that the channels registered to it
+	 * deliver their events on the Thread of this Task.
 	 * @return Netty's EventLoopGroup
 	 */
 	public EventLoopGroup getEventloopgroup() {
+		if(eventLoop != null)
+			return eventLoop;
 		return this.appCtx.getEventloopgroup();
 	}
 	
+	/**
+	 * Get the Netty EventLoop executing this Task
+	 * @return an EventLoop with {@link ExecutionMode#EVENT_LOOP}, null otherwise
+	 */
+	public EventLoop getEventLoop() {
+		return eventLoop;
+	}
+	
 	/**
 	 * Get the {@linkplain Task#lastScanTime} for this {@link Task}.<br>
 	 * See javadoc of {@linkplain Task#lastScanTime} for details.
 	 * @return A timestamp in milliseconds
 	 */
 	public long getLastScanTime() {
+		// an idle pooled Task performs no iteration at all
+		if(isIterationScheduled() && started && !iterationScheduled.get())
+			return System.currentTimeMillis();
 		return lastScanTime;
 	}
 	
@@ -373,6 +948,30 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	public  <T> void listenFuture(CompletableFuture<T> future, VoidFunction1<CompletableFuture<T>> method) {
 		future.handle((r, t) -> Async.runLater(this, method, future));
 	}
+	
+	/**
+	 * Listen for promise completion and call the given method.<br>
+	 * The method is called without any hop through the jobs queue when the promise is owned by this Task.
+	 * @param <T> The promise type
+	 * @param promise the listened promise
+	 * @param method the method called on completion
+	 */
+	public  <T> void listenFuture(Promise<T> promise, VoidFunction1<Promise<T>> method) {
+		if(promise.getOwner() == this)
+			promise.onComplete((r, t) -> method.apply(promise));
+		else
+			promise.onComplete((r, t) -> Async.runLater(this, method, promise));
+	}
+	
+	/**
+	 * Create a {@link Promise} owned by this Task: its continuations are executed by this Task.
+	 * @param <V> The result type
+	 * @param limit the {@link TimeLimit} after which the promise fails with a {@link TimeLimitExceededException}
+	 * @return a new promise
+	 */
+	public <V> Promise<V> newPromise(TimeLimit limit) {
+		return new Promise<>(this, limit);
+	}
 
 	//#endregion
 	
@@ -380,11 +979,144 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	
 	/**
 	 * Execute the given command at some time in the future using the Thread of this Task.<br>
-	 * Implementation of {@link Executor}
+	 * Implementation of {@link Executor}<br>
+	 * <br>
+	 * When the jobs queue of this Task is bounded and full, the {@link OverflowPolicy} of this Task applies.
+	 * @throws RejectedExecutionException if the jobs queue is full and the command cannot be queued
 	 */
 	public void execute(Runnable e) {
-		jobs.add(e);
+		final Task producer = current.get();
+		if(producer != null && producer != this && producer.outbound != null) {
+			producer.bufferOutbound(this, e);
+			return;
+		}
+		
+		enqueue(e);
+		this.wakeup();
+		// queued after the end of the event loop: either this check or the Task rejects it
+		if(termination.isDone())
+			rejectPendingJobs();
+	}
+	
+	/**
+	 * Queue a job without waking up this Task
+	 * @param e the job
+	 * @throws RejectedExecutionException if the jobs queue is full and the job cannot be queued
+	 */
+	private void enqueue(Runnable e) {
+		if(e instanceof AsyncJob && metrics.sample())
+			((AsyncJob<?>) e).submitTime = System.nanoTime();
+		if(!jobs.offer(e))
+			overflow(e);
+	}
+	
+	/**
+	 * Outbound batching only: queue a batch of jobs submitted by another Task and wake up this Task once.<br>
+	 * An unbounded jobs queue appends the whole batch at once. A job which cannot be queued is rejected.
+	 * @param batch the jobs, in submission order
+	 */
+	private void executeBatch(ArrayList<Runnable> batch) {
+		if(jobs instanceof ConcurrentLinkedQueue) {
+			for(int i=0, n=batch.size(); i < n; i++) {
+				Runnable e = batch.get(i);
+				if(e instanceof AsyncJob && metrics.sample())
+					((AsyncJob<?>) e).submitTime = System.nanoTime();
+			}
+			jobs.addAll(batch); // linked aside then appended with a single CAS
+		}
+		else {
+			for(int i=0, n=batch.size(); i < n; i++) {
+				Runnable e = batch.get(i);
+				try {
+					enqueue(e);
+				} catch (RejectedExecutionException ex) {
+					reject(e, ex);
+				}
+			}
+		}
 		this.wakeup();
+		if(termination.isDone())
+			rejectPendingJobs();
+	}
+	
+	/**
+	 * Outbound batching only: buffer a job submitted by this Task to another Task until the end of the current job
+	 * @param destination the Task executing the job
+	 * @param e the job
+	 */
+	private void bufferOutbound(Task destination, Runnable e) {
+		ArrayList<Runnable> batch = outbound.get(destination);
+		if(batch == null) {
+			batch = spareBatches.isEmpty()? new ArrayList<>() : spareBatches.remove(spareBatches.size() - 1);
+			outbound.put(destination, batch);
+			outboundDestinations.add(destination);
+		}
+		batch.add(e);
+	}
+	
+	/**
+	 * Outbound batching only: queue the buffered jobs on their destination
+	 */
+	private void flushOutbound() {
+		if(outboundDestinations.isEmpty())
+			return;
+		// the callbacks of a job rejected on the way may submit other jobs: they are buffered aside and flushed by a later loop
+		for(int i=0; i < outboundDestinations.size(); i++) {
+			Task destination = outboundDestinations.get(i);
+			ArrayList<Runnable> batch = outbound.remove(destination);
+			try {
+				destination.executeBatch(batch);
+			} finally {
+				batch.clear();
+				if(spareBatches.size() < MAX_SPARE_BATCHES)
+					spareBatches.add(batch); // reused by the next jobs
+			}
+		}
+		outboundDestinations.clear();
+	}
+	
+	/**
+	 * Apply the {@link OverflowPolicy} of this Task to a job which cannot be queued.
+	 * @param e the job
+	 * @throws RejectedExecutionException if the job is rejected
+	 */
+	private void overflow(Runnable e) {
+		switch(params.getOverflowPolicy()) {
+		case DROP_OLDEST:
+			do {
+				Runnable dropped = jobs.poll();
+				if(dropped != null)
+					reject(dropped, new RejectedExecutionException(String.format("Job dropped by %s: jobs queue is full", getName())));
+			} while(!jobs.offer(e));
+			break;
+			
+		case BLOCK:
+			if(current() == this)
+				throw new RejectedExecutionException(String.format("%s cannot block on its own jobs queue", getName()));
+			
+			while(!jobs.offer(e)) {
+				if(termination.isDone())
+					throw new RejectedExecutionException(String.format("%s is terminated", getName()));
+				this.wakeup();
+				LockSupport.parkNanos(this, BLOCK_BACKOFF_NANOS);
+			}
+			break;
+			
+		default:
+			throw new RejectedExecutionException(String.format("%s jobs queue is full", getName()));
+		}
+	}
+	
+	/**
+	 * Reject a queued job without executing it.
+	 * @param job the job
+	 * @param cause the reason of the rejection
+	 */
+	private void reject(Runnable job, Throwable cause) {
+		if(job instanceof AsyncJob)
+			((AsyncJob<?>) job).reject(cause);
+		else
+			logger.warn("{} {}", this, new LogFmt().append("event", "job rejected").append("reason", cause.getMessage()));
 	}
 	
 	/**
@@ -401,7 +1133,84 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	
 	@Override
 	public boolean isActive() {
-		return (run || ! epilogs.isEmpty());
+		return (run || pendingEpilogs.get() > 0);
+	}
+	
+	/**
+	 * Check if the calling Thread is executing the jobs of this Task
+	 * @return true if called from a job, a timeout or an event of this Task
+	 */
+	public boolean inTask() {
+		return current.get() == this;
+	}
+	
+	/**
+	 * Execute a job immediately if called from this Task, within the limit of {@link TaskParams#getMaxInlineDepth()} nested jobs.
+	 * Submit it otherwise.
+	 * @param <R> Return type of the job
+	 * @param job the job
+	 * @return the job. Completed if executed inline.
+	 */
+	<R> AsyncJob<R> submitInline(AsyncJob<R> job) {
+		if(current.get() != this || inlineDepth >= params.getMaxInlineDepth())
+			return Async.submit(this, job);
+		
+		inlineDepth++;
+		try {
+			job.run();
+		} finally {
+			inlineDepth--;
+		}
+		return job;
+	}
+	
+	//***************************************************************************
+	// Inline execution: no queue hop when already executed by this Task.
+	//***************************************************************************
+	
+	/**
+	 * pass the given {@link Callable} to this {@link ExecutionStage}, executing it immediately if called from this Task.<br>
+	 * Unlike {@link #callLater(Callable)}, the callable does not wait for the jobs already queued: use it only when the order
+	 * does not matter. Beyond {@link TaskParams#getMaxInlineDepth()} nested inline calls, the callable is queued as usual.
+	 * @param <R> Return type of the function
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public <R> CompletableFuture<R> callNow(Callable<R> callable){
+		return callNow(TimeLimit.noLimit(), callable);
+	}
+	
+	/**
+	 * pass the given {@link Callable} to this {@link ExecutionStage} with a {@link TimeLimit}, executing it immediately if called from this Task.<br>
+	 * See {@link #callNow(Callable)}.
+	 * @param <R> Return type of the function
+	 * @param limit the {@link TimeLimit} for the execution
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public <R> CompletableFuture<R> callNow(TimeLimit limit, Callable<R> callable){
+		return submitInline(new AsyncJob.Call<>(limit, callable));
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage}, executing it immediately if called from this Task.<br>
+	 * See {@link #callNow(Callable)}.
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public CompletableFuture<Void> runNow(ThrowingRunnable runnable){
+		return runNow(TimeLimit.noLimit(), runnable);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage} with a {@link TimeLimit}, executing it immediately if called from this Task.<br>
+	 * See {@link #callNow(Callable)}.
+	 * @param limit the {@link TimeLimit} for the execution
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public CompletableFuture<Void> runNow(TimeLimit limit, ThrowingRunnable runnable){
+		return submitInline(new AsyncJob.Run(limit, runnable));
 	}
 	
 	//***************************************************************************
@@ -425,7 +1234,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runLater(VoidFunction1<T0> function, T0 arg0){
-		return runLater(() -> function.apply(arg0));
+		return Async.runLater(this, function, arg0);
 	}
 	
 	/**
@@ -438,7 +1247,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runLater(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runLater(() -> function.apply(arg0, arg1));
+		return Async.runLater(this, function, arg0, arg1);
 	}
 	
 	/**
@@ -453,7 +1262,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runLater(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runLater(() -> function.apply(arg0, arg1, arg2));
+		return Async.runLater(this, function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -470,7 +1279,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runLater(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return Async.runLater(this, function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -492,7 +1301,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0> CompletableFuture<R> callLater(Function1<R, T0> function, T0 arg0){
-		return callLater(() -> function.apply(arg0));
+		return Async.callLater(this, function, arg0);
 	}
 	
 	/**
@@ -506,7 +1315,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1> CompletableFuture<R> callLater(Function2<R, T0, T1> function, T0 arg0, T1 arg1){
-		return callLater(() -> function.apply(arg0, arg1));
+		return Async.callLater(this, function, arg0, arg1);
 	}
 	
 	/**
@@ -522,7 +1331,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2> CompletableFuture<R> callLater(Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return callLater(() -> function.apply(arg0, arg1, arg2));
+		return Async.callLater(this, function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -540,7 +1349,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2, T3> CompletableFuture<R> callLater(Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return callLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return Async.callLater(this, function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -550,7 +1359,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> executeBefore(TimeLimit limit, Runnable runnable){
-		return runBefore(limit, ()-> runnable.run());
+		return runBefore(limit, runnable::run);
 	}
 	
 	/**
@@ -560,7 +1369,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> runBefore(TimeLimit limit, ThrowingRunnable runnable){
-		return callBefore(limit, ()->{ runnable.run(); return null; });
+		return Async.runBefore(this, limit, runnable);
 	}
 	
 	/**
@@ -572,7 +1381,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction1<T0> function, T0 arg0){
-		return runBefore(limit, () -> function.apply(arg0));
+		return Async.runBefore(this, limit, function, arg0);
 	}
 	
 	/**
@@ -586,7 +1395,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runBefore(limit, () -> function.apply(arg0, arg1));
+		return Async.runBefore(this, limit, function, arg0, arg1);
 	}
 	
 	/**
@@ -602,7 +1411,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2));
+		return Async.runBefore(this, limit, function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -620,7 +1429,89 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2, arg3));
+		return Async.runBefore(this, limit, function, arg0, arg1, arg2, arg3);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage} without observing the result.<br>
+	 * The job is the only allocation and an exception thrown by the runnable is logged. See {@link Async#post(Executor, ThrowingRunnable)}.
+	 * @param runnable the {@link ThrowingRunnable}
+	 */
+	public void post(ThrowingRunnable runnable){
+		Async.post(this, runnable);
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 */
+	public <T0> void post(VoidFunction1<T0> function, T0 arg0){
+		Async.post(this, function, arg0);
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 */
+	public <T0, T1> void post(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
+		Async.post(this, function, arg0, arg1);
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 */
+	public <T0, T1, T2> void post(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
+		Async.post(this, function, arg0, arg1, arg2);
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param <T3> Type of the forth function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 * @param arg3 the forth function arg
+	 */
+	public <T0, T1, T2, T3> void post(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
+		Async.post(this, function, arg0, arg1, arg2, arg3);
+	}
+	
+	/**
+	 * Get the timer of this Task. The timeouts of this timer expire on this Task, within its event loop.<br>
+	 * The resolution of the timer is set by {@link TaskParams#setTimerTick(long, TimeUnit)}. The timer is stopped at the end of the event loop.
+	 * @return a {@link Timer}
+	 */
+	public Timer getTimer() {
+		return timer;
+	}
+	
+	/**
+	 * Check if the event loop of this Task is ending: its timeouts no longer expire and its jobs are about to be rejected
+	 * @return true once the timer of this Task is stopped
+	 */
+	boolean isEnding() {
+		return timer.isStopped();
 	}
 	
 	/**
@@ -641,9 +1532,7 @@ public abstract class Task extends Thread implements Executor, ExecutionStage {
 	 * @return a {@link Timeout} for the given args
 	 */
 	public Timeout newTimeout(long delay, TimeUnit unit, TimerTask task) {
-		return Async.newTimeout(this, delay, unit, t -> {
-			runLater(task::run, t);
-		});
+		return timer.newTimeout(task, delay, unit);
 	}
 	
 	
@@ -0,0 +1,275 @@
+package com.github.timmy80.mia.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
+
+/**
+ * A group of {@link Task} shards sharing the load of a single logical Task.<br>
+ * A Task is the single point of synchronization, so a single Task never uses more than one core. A TaskGroup owns N shards
+ * and routes every call to the shard of a key (Ex: a session key or a {@link Terminal#getId()}). All the calls with the same key
+ * are executed by the same shard, in submission order: the data of a key must only be accessed by its shard.<br>
+ * <br>
+ * Keys are routed by jump consistent hashing: the shard of a key never changes for a given number of shards, and changing the
+ * number of shards from N to N+1 only moves 1/(N+1) of the keys.<br>
+ * <br>
+ * The number of shards is a configuration of the {@link ApplicationContext} (See {@link ApplicationContextParams#setTaskGroupShards(String, int)}).
+ * The shards are named after the group (Ex: "group-0", "group-1"...) and registered to the ApplicationContext like any other Task,
+ * so {@link ApplicationContext#stop()} and {@link ApplicationContext#join()} apply to them. The name of the group is released
+ * once all its shards have ended.
+ * @author anthony
+ *
+ * @param <T> An implementation of {@link Task}
+ */
+public class TaskGroup<T extends Task> {
+
+	private final String name;
+	private final ApplicationContext appCtx;
+	private final List<T> shards;
+
+	/**
+	 * Constructor
+	 * @param name Unique name of this group. The shards are named name-0 to name-(N-1).
+	 * @param appCtx The application context of this group
+	 * @param factory Factory of the shards. Typically the constructor of a Task: <code>MyTask::new</code>
+	 * @throws IllegalArgumentException If the name of the group or of a shard is already reserved
+	 */
+	public TaskGroup(String name, ApplicationContext appCtx, BiFunction<String, ApplicationContext, T> factory) throws IllegalArgumentException {
+		this.name = name;
+		this.appCtx = appCtx;
+		appCtx.addTaskGroup(this);
+
+		int count = appCtx.getTaskGroupShards(name);
+		ArrayList<T> wShards = new ArrayList<>(count);
+		try {
+			for(int i=0; i < count; i++)
+				wShards.add(factory.apply(name + "-" + i, appCtx));
+		} catch (RuntimeException e) {
+			// release the names reserved so far: the shards created are never started
+			for(T shard : wShards)
+				appCtx.removeTask(shard);
+			appCtx.removeTaskGroup(this);
+			throw e;
+		}
+		this.shards = Collections.unmodifiableList(wShards);
+		getTerminationFuture().thenRun(() -> appCtx.removeTaskGroup(this));
+	}
+
+	/**
+	 * Constructor.<br>
+	 * The ApplicationContext will be set to {@link ApplicationContext#getDefault()}.
+	 * @param name Unique name of this group. The shards are named name-0 to name-(N-1).
+	 * @param factory Factory of the shards. Typically the constructor of a Task: <code>MyTask::new</code>
+	 * @throws IllegalArgumentException If the name of the group or of a shard is already reserved
+	 */
+	public TaskGroup(String name, BiFunction<String, ApplicationContext, T> factory) throws IllegalArgumentException {
+		this(name, ApplicationContext.getDefault(), factory);
+	}
+
+	/**
+	 * Jump consistent hash (Lamping and Veach).
+	 * @param key a 64 bits hash of the key
+	 * @param buckets the number of buckets
+	 * @return a bucket in [0, buckets)
+	 */
+	static int jumpConsistentHash(long key, int buckets) {
+		long b = -1, j = 0;
+		while (j < buckets) {
+			b = j;
+			key = key * 2862933555777941757L + 1;
+			j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+		}
+		return (int) b;
+	}
+
+	/**
+	 * Spread the 32 bits hash code of a key over 64 bits (finalizer of MurmurHash3)
+	 * @param hashCode a hash code
+	 * @return a 64 bits hash
+	 */
+	private static long spread(int hashCode) {
+		long h = hashCode;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Get the index of the shard of a key
+	 * @param key a key. Must implement a stable {@link Object#hashCode()} (Ex: String, Long...)
+	 * @return an index in [0, {@link #size()})
+	 */
+	public int shardIndex(Object key) {
+		if(key == null)
+			throw new IllegalArgumentException("key cannot be null");
+		return jumpConsistentHash(spread(key.hashCode()), shards.size());
+	}
+
+	/**
+	 * Get the shard of a key
+	 * @param key a key. Must implement a stable {@link Object#hashCode()} (Ex: String, Long...)
+	 * @return the Task executing the calls for this key
+	 */
+	public T shard(Object key) {
+		return shards.get(shardIndex(key));
+	}
+
+	/**
+	 * Get a shard by index
+	 * @param index an index in [0, {@link #size()})
+	 * @return a Task
+	 */
+	public T getShard(int index) {
+		return shards.get(index);
+	}
+
+	/**
+	 * Get the shards of this group
+	 * @return a read only list of Tasks
+	 */
+	public List<T> getShards() {
+		return shards;
+	}
+
+	/**
+	 * Get the number of shards of this group
+	 * @return a number of shards
+	 */
+	public int size() {
+		return shards.size();
+	}
+
+	/**
+	 * Get the name of this group
+	 * @return the name of this group
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the {@link ApplicationContext} of this group
+	 * @return the ApplicationContext.
+	 */
+	public ApplicationContext getAppCtx() {
+		return appCtx;
+	}
+
+	/**
+	 * Start all the shards of this group
+	 */
+	public void start() {
+		for(T shard : shards)
+			shard.start();
+	}
+
+	/**
+	 * Require all the shards of this group to stop
+	 */
+	public void stop() {
+		for(T shard : shards)
+			shard.stopTask();
+	}
+
+	/**
+	 * Add an epilog to all the shards of this group. None of the shards will stop until the epilog is completed.<br>
+	 * See {@link Task#registerEpilog(CompletableFuture)}.
+	 * @param epilog an instance of CompletableFuture
+	 */
+	public void registerEpilog(CompletableFuture<?> epilog) {
+		for(T shard : shards)
+			shard.registerEpilog(epilog);
+	}
+
+	/**
+	 * Check if all the shards of this group are running
+	 * @return true if all the shards are running. See {@link Task#isRunning()}.
+	 */
+	public boolean isRunning() {
+		for(T shard : shards) {
+			if(!shard.isRunning())
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Wait for the end of all the shards of this group
+	 * @throws InterruptedException if the calling Thread is interrupted
+	 */
+	public void awaitTermination() throws InterruptedException {
+		for(T shard : shards)
+			shard.awaitTermination();
+	}
+
+	/**
+	 * Get a future completed when all the shards of this group have ended
+	 * @return a CompletableFuture
+	 */
+	public CompletableFuture<Void> getTerminationFuture() {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[shards.size()];
+		for(int i=0; i < futures.length; i++)
+			futures[i] = shards.get(i).getTerminationFuture();
+		return CompletableFuture.allOf(futures);
+	}
+
+	/**
+	 * Implementation of {@linkplain Async#callBefore(java.util.concurrent.Executor, TimeLimit, Callable)} on the shard of a key.
+	 * @param <R> The return Type
+	 * @param key the routing key
+	 * @param limit The TimeLimit for this call.
+	 * @param callable The Callable to execute.
+	 * @return a Completable future.
+	 */
+	public <R> CompletableFuture<R> callBefore(Object key, TimeLimit limit, Callable<R> callable) {
+		return shard(key).callBefore(limit, callable);
+	}
+
+	/**
+	 * pass the given {@link Callable} to the shard of a key
+	 * @param <R> Return type of the function
+	 * @param key the routing key
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public <R> CompletableFuture<R> callLater(Object key, Callable<R> callable) {
+		return shard(key).callLater(callable);
+	}
+
+	/**
+	 * pass the given runnable to the shard of a key with a {@link TimeLimit}
+	 * @param key the routing key
+	 * @param limit the {@link TimeLimit} for the execution
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public CompletableFuture<Void> runBefore(Object key, TimeLimit limit, ThrowingRunnable runnable) {
+		return shard(key).runBefore(limit, runnable);
+	}
+
+	/**
+	 * pass the given runnable to the shard of a key
+	 * @param key the routing key
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public CompletableFuture<Void> runLater(Object key, ThrowingRunnable runnable) {
+		return shard(key).runLater(runnable);
+	}
+
+	@Override
+	public String toString() {
+		return new LogFmt()
+				.append("type", getClass().getSimpleName())
+				.append("id", name)
+				.append("shards", shards.size()).toString();
+	}
+}
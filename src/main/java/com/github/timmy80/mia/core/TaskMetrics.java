@@ -0,0 +1,242 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Prometheus metrics of a {@link Task}.<br>
+ * All the metrics are labelled by task name and registered to the default Prometheus registry.<br>
+ * <br>
+ * The metrics are cheap enough to be left on in production:
+ * <ul>
+ * <li>the jobs depth is only computed when the metrics are collected. Note that the size of the default unbounded jobs queue is computed
+ * by a traversal of the queue: its cost is proportional to the number of pending jobs,</li>
+ * <li>the wakeups and iterations are recorded by the Task itself, without contention with the producers,</li>
+ * <li>the queue wait and execution times are only measured for a sample of the jobs (See {@link TaskParams#setMetricsSampling(int)}).</li>
+ * </ul>
+ * The iterations per second are given by the count of <code>task_iteration_duration_seconds</code>.
+ * @author anthony
+ *
+ */
+public class TaskMetrics {
+
+	// prometheus monitoring
+	private static final Counter jobsReorderedCount = Counter.build("task_jobs_reordered", "Jobs dispatched before an older pending job by the deadline scheduling").labelNames("task").register();
+	private static final Counter jobsShedCount = Counter.build("task_jobs_shed", "Jobs rejected before execution because their TimeLimit was exceeded").labelNames("task").register();
+	private static final Counter budgetExhaustedCount = Counter.build("task_iteration_budget_exhausted", "Iterations ended with pending jobs because of the iteration budget").labelNames("task").register();
+	private static final Histogram iterationDurationHisto = Histogram.build("task_iteration_duration_seconds", "Duration of the event loop iterations, waiting time excluded")
+			.buckets(0.00001, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5).labelNames("task").register();
+	private static final Histogram jobsPerIterationHisto = Histogram.build("task_iteration_jobs", "Number of jobs executed by the event loop iterations")
+			.buckets(0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000).labelNames("task").register();
+	private static final Counter slowJobsCount = Counter.build("task_slow_jobs", "Jobs reported by the slow job detector").labelNames("task").register();
+	private static final Counter wakeupsCount = Counter.build("task_wakeups", "Iterations of the event loop started by a signal after waiting for events").labelNames("task").register();
+	private static final Gauge jobsDepthGauge = Gauge.build("task_jobs_depth", "Number of jobs waiting for execution").labelNames("task").register();
+	private static final Histogram queueWaitHisto = Histogram.build("task_job_queue_wait_seconds", "Time between the submission and the start of the execution of a sample of the jobs")
+			.buckets(0.00001, 0.00005, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5).labelNames("task").register();
+	private static final Histogram executionHisto = Histogram.build("task_job_execution_seconds", "Execution time of a sample of the jobs")
+			.buckets(0.000001, 0.00001, 0.00005, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1).labelNames("task").register();
+
+	private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+	private final Counter.Child jobsReordered;
+	private final Counter.Child jobsShed;
+	private final Counter.Child budgetExhausted;
+	private final Histogram.Child iterationDuration;
+	private final Histogram.Child jobsPerIteration;
+	private final Counter.Child wakeups;
+	private final Counter.Child slowJobs;
+	private final Histogram.Child queueWait;
+	private final Histogram.Child execution;
+	
+	private final String taskName;
+	
+	/**
+	 * One job out of sampling is measured. 0 to disable.
+	 */
+	private final int sampling;
+
+	/**
+	 * Constructor
+	 * @param taskName the name of the monitored {@link Task}
+	 * @param jobsDepth the number of jobs waiting for execution by the Task
+	 * @param sampling one job out of sampling has its queue wait and execution time measured. 0 to disable.
+	 */
+	TaskMetrics(String taskName, IntSupplier jobsDepth, int sampling) {
+		this.taskName = taskName;
+		this.sampling = sampling;
+		jobsReordered = jobsReorderedCount.labels(taskName);
+		jobsShed = jobsShedCount.labels(taskName);
+		budgetExhausted = budgetExhaustedCount.labels(taskName);
+		iterationDuration = iterationDurationHisto.labels(taskName);
+		jobsPerIteration = jobsPerIterationHisto.labels(taskName);
+		wakeups = wakeupsCount.labels(taskName);
+		slowJobs = slowJobsCount.labels(taskName);
+		queueWait = queueWaitHisto.labels(taskName);
+		execution = executionHisto.labels(taskName);
+		jobsDepthGauge.setChild(new Gauge.Child() {
+			@Override
+			public double get() {
+				return jobsDepth.getAsInt();
+			}
+		}, taskName);
+	}
+	
+	/**
+	 * Release the resources of the metrics of an ended Task.<br>
+	 * None of its metrics is collected anymore: a Task created later with the same name starts from zero.
+	 * The getters of this instance keep returning the last values.
+	 */
+	void close() {
+		jobsReorderedCount.remove(taskName);
+		jobsShedCount.remove(taskName);
+		budgetExhaustedCount.remove(taskName);
+		iterationDurationHisto.remove(taskName);
+		jobsPerIterationHisto.remove(taskName);
+		slowJobsCount.remove(taskName);
+		wakeupsCount.remove(taskName);
+		jobsDepthGauge.remove(taskName);
+		queueWaitHisto.remove(taskName);
+		executionHisto.remove(taskName);
+	}
+	
+	/**
+	 * Decide if a submitted job is part of the measured sample
+	 * @return true if the job must be measured
+	 */
+	boolean sample() {
+		return sampling > 0 && (sampling == 1 || ThreadLocalRandom.current().nextInt(sampling) == 0);
+	}
+	
+	/**
+	 * Record the queue wait and the execution time of a sampled job
+	 * @param submitTime the submission time of the job as given by {@link System#nanoTime()}
+	 * @param startTime the start of the execution of the job as given by {@link System#nanoTime()}
+	 * @param endTime the end of the execution of the job as given by {@link System#nanoTime()}
+	 */
+	void jobDone(long submitTime, long startTime, long endTime) {
+		queueWait.observe((startTime - submitTime) / NANOSECONDS_PER_SECOND);
+		execution.observe((endTime - startTime) / NANOSECONDS_PER_SECOND);
+	}
+	
+	/**
+	 * Count an iteration started after waiting for events
+	 */
+	void wakeup() {
+		wakeups.inc();
+	}
+	
+	/**
+	 * Get the number of iterations of the event loop started after waiting for events
+	 * @return a number of wakeups
+	 */
+	public long getWakeups() {
+		return (long) wakeups.get();
+	}
+	
+	/**
+	 * Count a job reported by the {@link SlowJobDetector}
+	 */
+	void slowJob() {
+		slowJobs.inc();
+	}
+	
+	/**
+	 * Get the number of jobs reported by the {@link SlowJobDetector}
+	 * @return a number of slow jobs
+	 */
+	public long getSlowJobs() {
+		return (long) slowJobs.get();
+	}
+	
+	/**
+	 * Get the number of jobs waiting in the jobs queue of the Task
+	 * @return a number of jobs
+	 */
+	public long getJobsDepth() {
+		return (long) jobsDepthGauge.labels(taskName).get();
+	}
+	
+	/**
+	 * Get the number of jobs whose queue wait and execution time have been measured
+	 * @return a number of jobs
+	 */
+	public long getSampledJobs() {
+		double[] buckets = execution.get().buckets;
+		return (long) buckets[buckets.length - 1];
+	}
+
+	/**
+	 * Count a job dispatched before an older pending job
+	 */
+	void jobReordered() {
+		jobsReordered.inc();
+	}
+
+	/**
+	 * Get the number of jobs dispatched before an older pending job when using {@link TaskParams.SchedulingPolicy#EARLIEST_DEADLINE_FIRST}
+	 * @return a number of jobs
+	 */
+	public long getJobsReordered() {
+		return (long) jobsReordered.get();
+	}
+
+	/**
+	 * Count a job rejected before execution because its TimeLimit was exceeded
+	 */
+	void jobShed() {
+		jobsShed.inc();
+	}
+
+	/**
+	 * Get the number of jobs rejected before execution because their {@link TimeLimit} was exceeded
+	 * @return a number of jobs
+	 */
+	public long getJobsShed() {
+		return (long) jobsShed.get();
+	}
+
+	/**
+	 * Record the end of an iteration of the event loop
+	 * @param iterationStart the start of the iteration as given by {@link System#nanoTime()}
+	 */
+	void iterationDone(long iterationStart) {
+		iterationDuration.observe((System.nanoTime() - iterationStart) / NANOSECONDS_PER_SECOND);
+	}
+
+	/**
+	 * Record the number of jobs executed by an iteration
+	 * @param count a number of jobs
+	 */
+	void jobsPerIteration(int count) {
+		jobsPerIteration.observe(count);
+	}
+
+	/**
+	 * Count an iteration ended because of the iteration budget
+	 */
+	void budgetExhausted() {
+		budgetExhausted.inc();
+	}
+
+	/**
+	 * Get the number of iterations of the event loop performed by the Task
+	 * @return a number of iterations
+	 */
+	public long getIterations() {
+		double[] buckets = iterationDuration.get().buckets;
+		return (long) buckets[buckets.length - 1];
+	}
+
+	/**
+	 * Get the number of iterations ended with pending jobs because of the iteration budget.<br>
+	 * See {@link TaskParams#setMaxJobsPerIteration(int)}.
+	 * @return a number of iterations
+	 */
+	public long getBudgetExhausted() {
+		return (long) budgetExhausted.get();
+	}
+}
@@ -0,0 +1,461 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Parameters of a {@link Task}.<br>
+ * Default parameters for all the Tasks of an {@link ApplicationContext} and parameters dedicated to a given Task
+ * are set through {@link ApplicationContextParams}.
+ *
+ * @author anthony
+ *
+ */
+public class TaskParams implements Cloneable {
+	
+	/**
+	 * Behavior of a {@link Task} when a job is submitted while its bounded jobs queue is full.
+	 * @author anthony
+	 *
+	 */
+	public static enum OverflowPolicy {
+		/**
+		 * The submitting Thread is blocked until the Task frees some space.<br>
+		 * A Task submitting to itself is rejected instead to avoid a deadlock.
+		 */
+		BLOCK,
+		/**
+		 * The submitted job is rejected. The {@link java.util.concurrent.CompletableFuture} of the call is completed exceptionally
+		 * by a {@link java.util.concurrent.RejectedExecutionException}.
+		 */
+		REJECT,
+		/**
+		 * The oldest job of the queue is rejected to make room for the submitted job.
+		 */
+		DROP_OLDEST
+	}
+	
+	/**
+	 * Order in which a {@link Task} executes its jobs.
+	 * @author anthony
+	 *
+	 */
+	public static enum SchedulingPolicy {
+		/**
+		 * Jobs are executed in submission order.
+		 */
+		FIFO,
+		/**
+		 * Jobs are executed by order of {@link TimeLimit#getNotAfter()}.<br>
+		 * Jobs without limit keep their FIFO order and are executed at most {@link TaskParams#getNoLimitDelay()} milliseconds after
+		 * time limited jobs submitted at the same time.
+		 */
+		EARLIEST_DEADLINE_FIRST
+	}
+
+	/**
+	 * How a {@link Task} gets a Thread to execute its jobs.<br>
+	 * Whatever the mode, the jobs of a Task are never executed concurrently: a Task remains the single point of synchronization
+	 * of its terminals and states.
+	 * @author anthony
+	 *
+	 */
+	public static enum ExecutionMode {
+		/**
+		 * The Task runs its event loop on its own platform Thread (the Task itself).
+		 */
+		THREAD,
+		/**
+		 * The Task runs its event loop on a dedicated virtual Thread. Requires Java 21 or later.<br>
+		 * A virtual Thread waiting for events does not hold any platform Thread, allowing a large number of Tasks.
+		 * Only {@link BlockingWaitStrategy} is relevant in this mode: spinning strategies would hold the carrier Thread.
+		 */
+		VIRTUAL_THREAD,
+		/**
+		 * The Task has no Thread of its own. When jobs are pending, an iteration of its event loop is scheduled on the Task pool
+		 * shared by the Tasks of the {@link ApplicationContext} (See {@link ApplicationContextParams#setPoolThreads(Integer)}).<br>
+		 * The {@link WaitStrategy} is unused. An idle pooled Task costs no Thread and no wakeup.
+		 */
+		POOLED,
+		/**
+		 * The Task is bound to one Netty EventLoop of the {@link ApplicationContext} and its iterations are executed by this EventLoop.<br>
+		 * The sockets opened by the Task are registered to the same EventLoop: their events are handled without any Thread hand-off.
+		 * The jobs of the Task delay the I/O of the EventLoop, so they must not block. The synchronous socket opening methods
+		 * of {@link Task} cannot be called from the Task itself in this mode: use the asynchronous ones.
+		 */
+		EVENT_LOOP
+	}
+
+	/**
+	 * How the Task gets a Thread to execute its jobs.
+	 */
+	private ExecutionMode executionMode = ExecutionMode.THREAD;
+
+	/**
+	 * Factory of the {@link WaitStrategy} used by the Task between two iterations of its event loop.
+	 */
+	private Supplier<WaitStrategy> waitStrategy = BlockingWaitStrategy::new;
+	
+	/**
+	 * Capacity of the jobs queue. 0 means unbounded.
+	 */
+	private int jobsCapacity = 0;
+	
+	/**
+	 * Behavior when the bounded jobs queue is full.
+	 */
+	private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+	
+	/**
+	 * Order in which the jobs are executed.
+	 */
+	private SchedulingPolicy schedulingPolicy = SchedulingPolicy.FIFO;
+	
+	/**
+	 * Virtual deadline of the jobs without limit in milliseconds. Used by the EARLIEST_DEADLINE_FIRST scheduling.
+	 */
+	private long noLimitDelay = 100;
+	
+	/**
+	 * Maximum number of jobs executed by an iteration of the event loop. 0 means unlimited.
+	 */
+	private int maxJobsPerIteration = 0;
+	
+	/**
+	 * Maximum duration of the jobs execution within an iteration of the event loop in nanoseconds. 0 means unlimited.
+	 */
+	private long maxIterationTimeNanos = 0;
+	
+	/**
+	 * One job out of metricsSampling has its queue wait and execution time measured. 0 disables the measure.
+	 */
+	private int metricsSampling = 64;
+	
+	/**
+	 * Enable the metrics of the state machine of the terminals.
+	 */
+	private boolean terminalMetrics = false;
+	
+	/**
+	 * Execution time in nanoseconds above which a job is reported by the {@link SlowJobDetector}. 0 disables the detection.
+	 */
+	private long slowJobThresholdNanos = 0;
+	
+	/**
+	 * Duration of a tick of the timer wheel of the Task in nanoseconds.
+	 */
+	private long timerTickNanos = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	/**
+	 * Maximum number of nested jobs executed inline by a job. 0 disables the inline execution.
+	 */
+	private int maxInlineDepth = 8;
+	
+	/**
+	 * Buffer the jobs submitted to other Tasks until the end of the current job.
+	 */
+	private boolean outboundBatching = false;
+
+	/**
+	 * Default constructor
+	 */
+	public TaskParams() {
+
+	}
+
+	/**
+	 * Get how the Task gets a Thread to execute its jobs.
+	 * @return an {@link ExecutionMode}
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+
+	/**
+	 * Set how the Task gets a Thread to execute its jobs.<br>
+	 * With any mode but {@link ExecutionMode#THREAD} the Task object is never started as a Thread:
+	 * use {@link Task#isRunning()} and {@link Task#awaitTermination()} instead of {@link Thread#isAlive()} and {@link Thread#join()}.
+	 * @param executionMode an {@link ExecutionMode}. Default is {@link ExecutionMode#THREAD}.
+	 */
+	public void setExecutionMode(ExecutionMode executionMode) {
+		if(executionMode == null)
+			throw new IllegalArgumentException("executionMode cannot be null");
+		this.executionMode = executionMode;
+	}
+
+	/**
+	 * Get the factory of the {@link WaitStrategy} of the Task.
+	 * @return a {@link WaitStrategy} factory
+	 */
+	public Supplier<WaitStrategy> getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	 * Set the factory of the {@link WaitStrategy} of the Task.<br>
+	 * A new instance is created for every Task. Ex: <code>params.setWaitStrategy(BusySpinWaitStrategy::new);</code>
+	 * @param waitStrategy a {@link WaitStrategy} factory
+	 */
+	public void setWaitStrategy(Supplier<WaitStrategy> waitStrategy) {
+		if(waitStrategy == null)
+			throw new IllegalArgumentException("waitStrategy cannot be null");
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * Get the capacity of the jobs queue of the Task.
+	 * @return a capacity or 0 if the queue is unbounded
+	 */
+	public int getJobsCapacity() {
+		return jobsCapacity;
+	}
+
+	/**
+	 * Set the capacity of the jobs queue of the Task.<br>
+	 * A bounded queue is pre-allocated: it does not allocate anything when a job is submitted and sets a hard limit
+	 * to the memory used by the pending jobs of the Task. The capacity is rounded up to the next power of 2, 2 at least.<br>
+	 * See {@link #setOverflowPolicy(OverflowPolicy)} for the behavior when the queue is full.<br>
+	 * With {@link SchedulingPolicy#EARLIEST_DEADLINE_FIRST}, the scheduler holds at most jobsCapacity jobs on top of the queue.
+	 * @param jobsCapacity a capacity or 0 for an unbounded queue (default)
+	 */
+	public void setJobsCapacity(int jobsCapacity) {
+		if(jobsCapacity < 0 || jobsCapacity > (1 << 30))
+			throw new IllegalArgumentException("jobsCapacity must be in [0, 2^30]");
+		this.jobsCapacity = jobsCapacity;
+	}
+
+	/**
+	 * Get the behavior of the Task when its bounded jobs queue is full.
+	 * @return an {@link OverflowPolicy}
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Set the behavior of the Task when its bounded jobs queue is full.<br>
+	 * Unused when the jobs queue is unbounded.
+	 * @param overflowPolicy an {@link OverflowPolicy}. Default is {@link OverflowPolicy#REJECT}.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		if(overflowPolicy == null)
+			throw new IllegalArgumentException("overflowPolicy cannot be null");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Get the order in which the Task executes its jobs.
+	 * @return a {@link SchedulingPolicy}
+	 */
+	public SchedulingPolicy getSchedulingPolicy() {
+		return schedulingPolicy;
+	}
+
+	/**
+	 * Set the order in which the Task executes its jobs.
+	 * @param schedulingPolicy a {@link SchedulingPolicy}. Default is {@link SchedulingPolicy#FIFO}.
+	 */
+	public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+		if(schedulingPolicy == null)
+			throw new IllegalArgumentException("schedulingPolicy cannot be null");
+		this.schedulingPolicy = schedulingPolicy;
+	}
+
+	/**
+	 * Get the virtual deadline of the jobs without limit.
+	 * @return a delay in milliseconds
+	 */
+	public long getNoLimitDelay() {
+		return noLimitDelay;
+	}
+
+	/**
+	 * Set the virtual deadline of the jobs without limit when using {@link SchedulingPolicy#EARLIEST_DEADLINE_FIRST}.<br>
+	 * A job without limit is scheduled as if it had to be executed at most noLimitDelay milliseconds after it has been queued.
+	 * The lower the delay, the closer to FIFO the scheduling is.
+	 * @param noLimitDelay a delay in milliseconds. Default is 100ms.
+	 */
+	public void setNoLimitDelay(long noLimitDelay) {
+		if(noLimitDelay < 0)
+			throw new IllegalArgumentException("noLimitDelay cannot be negative");
+		this.noLimitDelay = noLimitDelay;
+	}
+
+	/**
+	 * Get the maximum number of jobs executed by an iteration of the event loop.
+	 * @return a number of jobs or 0 if unlimited
+	 */
+	public int getMaxJobsPerIteration() {
+		return maxJobsPerIteration;
+	}
+
+	/**
+	 * Set the maximum number of jobs executed by an iteration of the event loop.<br>
+	 * When the budget is exhausted the Task performs its housekeeping (stop sequence, epilogs, {@link Task#getLastScanTime()})
+	 * and starts a new iteration without waiting. This keeps the Task responsive and alive for the watchdog
+	 * even though producers keep its jobs queue non-empty.
+	 * @param maxJobsPerIteration a number of jobs or 0 for unlimited (default)
+	 */
+	public void setMaxJobsPerIteration(int maxJobsPerIteration) {
+		if(maxJobsPerIteration < 0)
+			throw new IllegalArgumentException("maxJobsPerIteration cannot be negative");
+		this.maxJobsPerIteration = maxJobsPerIteration;
+	}
+
+	/**
+	 * Get the maximum duration of the jobs execution within an iteration of the event loop.
+	 * @return a duration in nanoseconds or 0 if unlimited
+	 */
+	public long getMaxIterationTimeNanos() {
+		return maxIterationTimeNanos;
+	}
+
+	/**
+	 * Set the maximum duration of the jobs execution within an iteration of the event loop.<br>
+	 * The duration is checked after each job: a job is never interrupted. See {@link #setMaxJobsPerIteration(int)}.
+	 * @param time a duration or 0 for unlimited (default)
+	 * @param unit the unit of the duration
+	 */
+	public void setMaxIterationTime(long time, TimeUnit unit) {
+		if(time < 0)
+			throw new IllegalArgumentException("time cannot be negative");
+		this.maxIterationTimeNanos = unit.toNanos(time);
+	}
+
+	/**
+	 * Get the sampling of the jobs measured by the {@link TaskMetrics}.
+	 * @return one job out of metricsSampling is measured. 0 if disabled.
+	 */
+	public int getMetricsSampling() {
+		return metricsSampling;
+	}
+
+	/**
+	 * Set the sampling of the jobs whose queue wait and execution time are measured by the {@link TaskMetrics}.<br>
+	 * Measuring a job costs two calls to {@link System#nanoTime()} and two histogram observations. Sampling keeps the cost
+	 * negligible under high load while giving representative histograms.
+	 * @param metricsSampling one job out of metricsSampling is measured. 1 to measure all the jobs. 0 to disable. Default is 64.
+	 */
+	public void setMetricsSampling(int metricsSampling) {
+		if(metricsSampling < 0)
+			throw new IllegalArgumentException("metricsSampling cannot be negative");
+		this.metricsSampling = metricsSampling;
+	}
+
+	/**
+	 * Check if the metrics of the state machine of the terminals of the Task are enabled.
+	 * @return true if enabled
+	 */
+	public boolean isTerminalMetrics() {
+		return terminalMetrics;
+	}
+
+	/**
+	 * Enable the metrics of the state machine of the terminals of the Task.<br>
+	 * Exported to Prometheus by terminal class and state class: transitions between states (terminal_state_transitions),
+	 * number of terminals in each state (terminal_state_live) and time spent in each state (terminal_state_dwell_seconds).
+	 * A transition costs one call to {@link System#nanoTime()} and a few atomic updates.
+	 * @param terminalMetrics true to enable. Default is false.
+	 */
+	public void setTerminalMetrics(boolean terminalMetrics) {
+		this.terminalMetrics = terminalMetrics;
+	}
+
+	/**
+	 * Get the execution time above which a job is reported as slow.
+	 * @return a duration in nanoseconds. 0 if the detection is disabled.
+	 */
+	public long getSlowJobThresholdNanos() {
+		return slowJobThresholdNanos;
+	}
+
+	/**
+	 * Set the execution time above which a job is reported as slow.<br>
+	 * A single sampling Thread watches all the Tasks with a threshold: on overrun, the stack of the Thread executing the job is
+	 * logged once along with the origin of the job, and task_slow_jobs is incremented. A job is reported between the threshold
+	 * and 1.25 times the threshold. The Task only publishes its current job, without any timer nor timestamp per job.
+	 * @param time the threshold. 0 to disable. Default is 0.
+	 * @param unit the unit of the threshold
+	 */
+	public void setSlowJobThreshold(long time, TimeUnit unit) {
+		if(time < 0)
+			throw new IllegalArgumentException("time cannot be negative");
+		this.slowJobThresholdNanos = unit.toNanos(time);
+	}
+
+	/**
+	 * Get the duration of a tick of the timer of the Task.
+	 * @return a duration in nanoseconds
+	 */
+	public long getTimerTickNanos() {
+		return timerTickNanos;
+	}
+
+	/**
+	 * Set the duration of a tick of the timer of the Task (See {@link Task#getTimer()}).<br>
+	 * A timeout expires on the first tick following its deadline: the tick is the resolution of the timer. The timer wheel
+	 * only wakes up the Task for the ticks with an expiring timeout, so a short tick does not cost anything to an idle Task.
+	 * Sub-millisecond ticks are relevant with a spinning {@link WaitStrategy}.
+	 * @param tick the duration of a tick. Default is 1 millisecond.
+	 * @param unit the unit of the duration
+	 */
+	public void setTimerTick(long tick, TimeUnit unit) {
+		if(tick <= 0)
+			throw new IllegalArgumentException("tick must be positive");
+		this.timerTickNanos = unit.toNanos(tick);
+	}
+
+	/**
+	 * Get the maximum number of nested jobs executed inline by a job of the Task.
+	 * @return a depth. 0 if the inline execution is disabled.
+	 */
+	public int getMaxInlineDepth() {
+		return maxInlineDepth;
+	}
+
+	/**
+	 * Set the maximum number of nested jobs executed inline by a job of the Task (See {@link Task#callNow(java.util.concurrent.Callable)}).<br>
+	 * A job executed inline may itself execute jobs inline. Beyond this depth the jobs are queued as usual, which bounds the stack
+	 * of the Task and prevents a job from recursing forever through inline calls.
+	 * @param maxInlineDepth a depth. 0 to always queue the jobs. Default is 8.
+	 */
+	public void setMaxInlineDepth(int maxInlineDepth) {
+		if(maxInlineDepth < 0)
+			throw new IllegalArgumentException("maxInlineDepth cannot be negative");
+		this.maxInlineDepth = maxInlineDepth;
+	}
+
+	/**
+	 * Check if the jobs submitted by the Task to other Tasks are batched.
+	 * @return true if enabled
+	 */
+	public boolean isOutboundBatching() {
+		return outboundBatching;
+	}
+
+	/**
+	 * Batch the jobs submitted by the Task to other Tasks.<br>
+	 * A job submitted by a job of the Task to another Task (runLater, callLater, a message published or replied to...)
+	 * is buffered per destination and the buffers are flushed at the end of the job (or timeout, or event): the jobs of a buffer are
+	 * queued at once and their destination is woken up once. The order of the jobs is preserved per destination.<br>
+	 * <br>
+	 * The other Tasks see the jobs when the job ends: a job of the Task must not wait for the result of a job it submitted to another Task.
+	 * A job which cannot be queued at flush time is rejected according to the {@link OverflowPolicy} of its destination.
+	 * @param outboundBatching true to enable. Default is false.
+	 */
+	public void setOutboundBatching(boolean outboundBatching) {
+		this.outboundBatching = outboundBatching;
+	}
+
+	@Override
+	protected Object clone() {
+		TaskParams o = null;
+		try {
+			o = (TaskParams) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// Impossible because we are implementing Cloneable
+		}
+
+		return o; // return the clone
+	}
+}
@@ -0,0 +1,389 @@
+package com.github.timmy80.mia.core;
+
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+/**
+ * The timer of a {@link Task}: a hierarchical timer wheel processed by the event loop of the Task itself.<br>
+ * The timeouts expire on the Task without any Thread hand-off, and the Task bounds its wait for new events by the next
+ * expiry. The resolution is the tick of the wheel (See {@link TaskParams#setTimerTick(long, TimeUnit)}).<br>
+ * <br>
+ * The wheel has levels of 64 slots: level 0 holds the timeouts of the next 64 ticks, level 1 those of the next 64*64 ticks
+ * and so on, covering the whole range of a long. A timeout cascades to a lower level when its slot is reached. Empty slots
+ * are never visited: an occupancy mask per level gives the next slot to process, so an idle wheel costs nothing whatever its tick.<br>
+ * <br>
+ * The wheel is only accessed by the Task. A timeout created or cancelled by another Thread is handed to the Task through a
+ * concurrent queue and taken into account at its next iteration.
+ * @author anthony
+ *
+ */
+final class TaskTimer implements Timer {
+
+	private static Logger logger = LogManager.getLogger(TaskTimer.class.getName());
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+	private final Task task;
+	private final long tickNanos;
+
+	/**
+	 * Origin of the ticks as given by {@link System#nanoTime()}
+	 */
+	private final long startTime;
+
+	private final TaskTimeout[][] wheel = new TaskTimeout[LEVELS][SLOTS];
+
+	/**
+	 * For each level, the bit of an occupied slot is set
+	 */
+	private final long[] occupied = new long[LEVELS];
+
+	/**
+	 * The last processed tick
+	 */
+	private long currentTick = 0;
+
+	/**
+	 * Number of timeouts in the wheel
+	 */
+	private int pending = 0;
+
+	/**
+	 * Timeouts created by another Thread than the Task
+	 */
+	private final Queue<TaskTimeout> incoming = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Timeouts cancelled by another Thread than the Task
+	 */
+	private final Queue<TaskTimeout> cancelled = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean stopped = false;
+
+	/**
+	 * Constructor
+	 * @param task the owning Task
+	 * @param tickNanos the duration of a tick in nanoseconds
+	 */
+	TaskTimer(Task task, long tickNanos) {
+		this.task = task;
+		this.tickNanos = tickNanos;
+		this.startTime = System.nanoTime();
+	}
+
+	@Override
+	public Timeout newTimeout(io.netty.util.TimerTask timerTask, long delay, TimeUnit unit) {
+		if(timerTask == null)
+			throw new NullPointerException("timerTask");
+		if(unit == null)
+			throw new NullPointerException("unit");
+
+		long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+		if(deadline < 0)
+			deadline = Long.MAX_VALUE; // overflow
+		TaskTimeout timeout = new TaskTimeout(this, timerTask, (deadline / tickNanos) + ((deadline % tickNanos == 0)? 0 : 1));
+
+		if(stopped) {
+			logger.debug("{} {}", task, new LogFmt().append("event", "timeout ignored").append("reason", "timer stopped"));
+			return timeout;
+		}
+
+		if(Task.current() == task)
+			schedule(timeout);
+		else {
+			incoming.add(timeout);
+			task.wakeup();
+		}
+		return timeout;
+	}
+
+	/**
+	 * Check if this timer is stopped: its timeouts never expire
+	 * @return true once {@link #stop()} has been called
+	 */
+	boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Stop this timer. Must be called by the Task: the timeouts which are not expired yet will never expire.
+	 * @return the timeouts which were not expired nor cancelled
+	 * @throws IllegalStateException if not called by the Task
+	 */
+	@Override
+	public Set<Timeout> stop() {
+		if(Task.current() != task)
+			throw new IllegalStateException(String.format("The timer of %s can only be stopped by its Task", task.getName()));
+
+		stopped = true;
+		Set<Timeout> unexpired = new HashSet<>();
+		TaskTimeout t;
+		while((t = incoming.poll()) != null) {
+			if(!t.isCancelled())
+				unexpired.add(t);
+		}
+		for(int level=0; level < LEVELS; level++) {
+			for(int slot=0; slot < SLOTS; slot++) {
+				while((t = wheel[level][slot]) != null) {
+					remove(t);
+					if(!t.isCancelled())
+						unexpired.add(t);
+				}
+			}
+		}
+		cancelled.clear();
+		return unexpired;
+	}
+
+	/**
+	 * Check if the Task has to process this timer
+	 * @return true if some timeouts are pending
+	 */
+	boolean hasPending() {
+		return pending > 0 || !incoming.isEmpty() || !cancelled.isEmpty();
+	}
+
+	/**
+	 * Get the time until the Task has to process this timer again
+	 * @param now the current time as given by {@link System#nanoTime()}
+	 * @param max the maximum result
+	 * @return a duration in nanoseconds between 0 and max
+	 */
+	long nanosUntilNextTick(long now, long max) {
+		if(!incoming.isEmpty())
+			return 0;
+		if(pending == 0)
+			return max;
+		final long tick = nextTick();
+		if(tick > (Long.MAX_VALUE - max) / tickNanos)
+			return max;
+		long delay = tick * tickNanos - (now - startTime);
+		return (delay <= 0)? 0 : Math.min(delay, max);
+	}
+
+	/**
+	 * Expire the timeouts whose deadline is reached. Must be called by the Task.
+	 * @param now the current time as given by {@link System#nanoTime()}
+	 */
+	void expire(long now) {
+		TaskTimeout t;
+		while((t = cancelled.poll()) != null) {
+			if(t.level >= 0)
+				remove(t);
+		}
+		while((t = incoming.poll()) != null) {
+			if(!t.isCancelled())
+				schedule(t);
+		}
+
+		final long nowTick = (now - startTime) / tickNanos;
+		while(pending > 0) {
+			final long tick = nextTick();
+			if(tick > nowTick)
+				break;
+			currentTick = tick;
+
+			// cascade the timeouts of the higher levels whose slot is reached
+			for(int level=LEVELS-1; level > 0; level--) {
+				final int shift = level * SLOT_BITS;
+				if((tick & ((1L << shift) - 1)) != 0)
+					continue;
+				final int slot = (int) (tick >>> shift) & SLOT_MASK;
+				while((t = wheel[level][slot]) != null) {
+					unlink(t);
+					place(t);
+				}
+			}
+
+			final int slot = (int) tick & SLOT_MASK;
+			while((t = wheel[0][slot]) != null) {
+				remove(t);
+				if(t.expire())
+					task.runJob(t);
+			}
+		}
+
+		if(currentTick < nowTick)
+			currentTick = nowTick; // no timeout in between
+	}
+
+	/**
+	 * Get the next tick to process: the expiry of a level 0 slot or the cascade of a higher level slot.
+	 * @return a tick. Only relevant if some timeouts are pending.
+	 */
+	private long nextTick() {
+		for(int level=0; level < LEVELS; level++) {
+			final long occ = occupied[level];
+			if(occ == 0)
+				continue;
+
+			// the lowest level with a timeout always has the next tick to process
+			final int shift = level * SLOT_BITS;
+			final int current = (int) (currentTick >>> shift) & SLOT_MASK;
+			final int slot = Long.numberOfTrailingZeros((current == SLOT_MASK)? 0 : occ & (-1L << (current + 1)));
+			final long upper = (shift + SLOT_BITS >= Long.SIZE)? 0 : currentTick & (-1L << (shift + SLOT_BITS));
+			return upper | ((long) slot << shift);
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Add a timeout to the wheel. Must be called by the Task.
+	 * @param timeout a timeout which is not in the wheel
+	 */
+	private void schedule(TaskTimeout timeout) {
+		if(timeout.tick <= currentTick)
+			timeout.tick = currentTick + 1; // expired: on the next tick
+		place(timeout);
+		pending++;
+	}
+
+	/**
+	 * Link a timeout in the slot of its tick relatively to the current tick
+	 * @param timeout a timeout which is not in the wheel
+	 */
+	private void place(TaskTimeout timeout) {
+		final long diff = timeout.tick ^ currentTick;
+		final int level = (diff == 0)? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+		final int slot = (int) (timeout.tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+
+		timeout.level = level;
+		timeout.slot = slot;
+		timeout.prev = null;
+		timeout.next = wheel[level][slot];
+		if(timeout.next != null)
+			timeout.next.prev = timeout;
+		wheel[level][slot] = timeout;
+		occupied[level] |= 1L << slot;
+	}
+
+	/**
+	 * Remove a timeout from the wheel
+	 * @param timeout a timeout of the wheel
+	 */
+	private void remove(TaskTimeout timeout) {
+		unlink(timeout);
+		pending--;
+	}
+
+	/**
+	 * Unlink a timeout from its slot
+	 * @param timeout a timeout of the wheel
+	 */
+	private void unlink(TaskTimeout timeout) {
+		final int level = timeout.level;
+		final int slot = timeout.slot;
+		if(timeout.prev != null)
+			timeout.prev.next = timeout.next;
+		else
+			wheel[level][slot] = timeout.next;
+		if(timeout.next != null)
+			timeout.next.prev = timeout.prev;
+		if(wheel[level][slot] == null)
+			occupied[level] &= ~(1L << slot);
+
+		timeout.prev = null;
+		timeout.next = null;
+		timeout.level = -1;
+	}
+
+	/**
+	 * Cancel a timeout
+	 * @param timeout a cancelled timeout
+	 */
+	private void cancelled(TaskTimeout timeout) {
+		if(Task.current() != task)
+			cancelled.add(timeout);
+		else if(timeout.level >= 0)
+			remove(timeout);
+	}
+
+	/**
+	 * A timeout of a {@link TaskTimer}. Executed as a job of the Task when it expires.
+	 * @author anthony
+	 *
+	 */
+	static final class TaskTimeout implements Timeout, Runnable {
+
+		private static final int ST_INIT = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		private static final AtomicIntegerFieldUpdater<TaskTimeout> STATE = AtomicIntegerFieldUpdater.newUpdater(TaskTimeout.class, "state");
+
+		private final TaskTimer timer;
+		private final io.netty.util.TimerTask timerTask;
+		private volatile int state = ST_INIT;
+
+		// Only accessed by the Task
+		long tick;
+		int level = -1;
+		int slot;
+		TaskTimeout prev;
+		TaskTimeout next;
+
+		TaskTimeout(TaskTimer timer, io.netty.util.TimerTask timerTask, long tick) {
+			this.timer = timer;
+			this.timerTask = timerTask;
+			this.tick = tick;
+		}
+
+		/**
+		 * Mark this timeout as expired
+		 * @return true if it has to be executed, false if cancelled
+		 */
+		boolean expire() {
+			return STATE.compareAndSet(this, ST_INIT, ST_EXPIRED);
+		}
+
+		@Override
+		public void run() {
+			try {
+				timerTask.run(this);
+			} catch (Exception e) {
+				logger.error("Unexpected exception while executing timeout.", e);
+			}
+		}
+
+		@Override
+		public Timer timer() {
+			return timer;
+		}
+
+		@Override
+		public io.netty.util.TimerTask task() {
+			return timerTask;
+		}
+
+		@Override
+		public boolean isExpired() {
+			return state == ST_EXPIRED;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == ST_CANCELLED;
+		}
+
+		@Override
+		public boolean cancel() {
+			if(!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED))
+				return false;
+			timer.cancelled(this);
+			return true;
+		}
+	}
+}
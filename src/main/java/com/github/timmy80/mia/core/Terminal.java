@@ -43,12 +43,39 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	protected final T task; 
 	private State state = new InitialState();
 	
+	/**
+	 * Slot of this terminal in the {@link TerminalRegistry} of its task. -1 if not registered.
+	 */
+	int slot = -1;
+	
+	/**
+	 * Id under which this terminal is indexed by the {@link TerminalRegistry} of its task.
+	 */
+	String indexedId = null;
+	
+	/**
+	 * Metrics of the state machine. null unless enabled by {@link TaskParams#setTerminalMetrics(boolean)}.
+	 */
+	private final TerminalMetrics metrics;
+	
+	/**
+	 * Time the current state has been entered as given by {@link System#nanoTime()}. Only set when the metrics are enabled.
+	 */
+	private long stateEntryTime = 0;
+	
 	/**
 	 * Constructor
 	 * @param task parent {@link Task}
 	 */
 	public Terminal(T task) {
 		this.task = task;
+		if(task.getParams().isTerminalMetrics()) {
+			metrics = TerminalMetrics.of(getClass());
+			stateEntryTime = System.nanoTime();
+			metrics.created(state);
+		}
+		else
+			metrics = null;
 		task.registerTerminal(this);
 	}
 	
@@ -63,9 +90,17 @@ public class Terminal<T extends Task> implements ExecutionStage {
 		State prevState = this.state;
 		this.state = nextState;
 		
-		logger.debug("{} {}", this, new LogFmt()
-				.append("prevState", prevState.getName())
-				.append("event", "terminal entering new state"));
+		if(metrics != null && prevState != null) {
+			final long now = System.nanoTime();
+			metrics.transition(prevState, nextState, now - stateEntryTime);
+			stateEntryTime = now;
+		}
+		
+		if(logger.isDebugEnabled()) {
+			logger.debug("{} {}", this, new LogFmt()
+					.append("prevState", (prevState == null)? null : prevState.getName())
+					.append("event", "terminal entering new state"));
+		}
 		
 		if(prevState != null) {
 			prevState.eventLeaveState();
@@ -81,6 +116,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 		}
 		
 		nextState.setTerminal(this);
+		task.indexTerminal(this);
 		
 		try {
 			this.state.eventEntry();
@@ -198,6 +234,16 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	public  <T0> void listenFuture(CompletableFuture<T0> future, VoidFunction1<CompletableFuture<T0>> method) {
 		task.listenFuture(future, method);
 	}
+	
+	/**
+	 * Listen for promise completion and call the given method.
+	 * @param <T0> The promise type
+	 * @param promise the listened promise
+	 * @param method the method called on completion
+	 */
+	public  <T0> void listenFuture(Promise<T0> promise, VoidFunction1<Promise<T0>> method) {
+		task.listenFuture(promise, method);
+	}
 
 	//#endregion
 	
@@ -217,11 +263,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 */
 	public <R> CompletableFuture<R> callBefore(TimeLimit limit, Callable<R> callable){
 		
-		return Async.callBefore(task(), limit, () -> {
-			if(isTerminated())
-				throw new TerminatedTerminalException(this);
-			return callable.call();
-		});
+		return submit(new AsyncJob.Call<>(limit, callable));
 	}
 	
 	//***************************************************************************
@@ -245,7 +287,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runLater(VoidFunction1<T0> function, T0 arg0){
-		return runLater(() -> function.apply(arg0));
+		return runBefore(TimeLimit.noLimit(), function, arg0);
 	}
 	
 	/**
@@ -258,7 +300,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runLater(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runLater(() -> function.apply(arg0, arg1));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1);
 	}
 	
 	/**
@@ -273,7 +315,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runLater(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runLater(() -> function.apply(arg0, arg1, arg2));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -290,7 +332,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runLater(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -312,7 +354,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0> CompletableFuture<R> callLater(Function1<R, T0> function, T0 arg0){
-		return callLater(() -> function.apply(arg0));
+		return submit(new AsyncJob.Call1<>(TimeLimit.noLimit(), function, arg0));
 	}
 	
 	/**
@@ -326,7 +368,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1> CompletableFuture<R> callLater(Function2<R, T0, T1> function, T0 arg0, T1 arg1){
-		return callLater(() -> function.apply(arg0, arg1));
+		return submit(new AsyncJob.Call2<>(TimeLimit.noLimit(), function, arg0, arg1));
 	}
 	
 	/**
@@ -342,7 +384,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2> CompletableFuture<R> callLater(Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return callLater(() -> function.apply(arg0, arg1, arg2));
+		return submit(new AsyncJob.Call3<>(TimeLimit.noLimit(), function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -360,7 +402,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2, T3> CompletableFuture<R> callLater(Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return callLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(new AsyncJob.Call4<>(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3));
 	}
 	
 	/**
@@ -370,7 +412,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> executeBefore(TimeLimit limit, Runnable runnable){
-		return runBefore(limit, ()-> runnable.run());
+		return runBefore(limit, runnable::run);
 	}
 	
 	/**
@@ -380,7 +422,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> runBefore(TimeLimit limit, ThrowingRunnable runnable){
-		return callBefore(limit, ()->{ runnable.run(); return null; });
+		return submit(new AsyncJob.Run(limit, runnable));
 	}
 	
 	/**
@@ -392,7 +434,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction1<T0> function, T0 arg0){
-		return runBefore(limit, () -> function.apply(arg0));
+		return submit(new AsyncJob.Run1<>(limit, function, arg0));
 	}
 	
 	/**
@@ -406,7 +448,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runBefore(limit, () -> function.apply(arg0, arg1));
+		return submit(new AsyncJob.Run2<>(limit, function, arg0, arg1));
 	}
 	
 	/**
@@ -422,7 +464,7 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2));
+		return submit(new AsyncJob.Run3<>(limit, function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -440,7 +482,113 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(new AsyncJob.Run4<>(limit, function, arg0, arg1, arg2, arg3));
+	}
+	
+	/**
+	 * pass the given {@link Callable} to this {@link ExecutionStage}, executing it immediately if called from the Task of this Terminal.<br>
+	 * See {@link Task#callNow(Callable)}.
+	 * @param <R> Return type of the function
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public <R> CompletableFuture<R> callNow(Callable<R> callable){
+		AsyncJob<R> job = new AsyncJob.Call<>(TimeLimit.noLimit(), callable);
+		job.guard = this;
+		return task().submitInline(job);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage}, executing it immediately if called from the Task of this Terminal.<br>
+	 * See {@link Task#callNow(Callable)}.
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public CompletableFuture<Void> runNow(ThrowingRunnable runnable){
+		AsyncJob<Void> job = new AsyncJob.Run(TimeLimit.noLimit(), runnable);
+		job.guard = this;
+		return task().submitInline(job);
+	}
+	
+	/**
+	 * Submit a job to the Task of this Terminal. The job is not executed if this Terminal is terminated.
+	 * @param <R> The return Type
+	 * @param job the job
+	 * @return the job. Completed exceptionally by a TerminatedTerminalException if this Terminal is terminated at the execution time.
+	 */
+	private <R> CompletableFuture<R> submit(AsyncJob<R> job){
+		job.guard = this;
+		return Async.submit(task(), job);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage} without observing the result.<br>
+	 * The job is the only allocation. It is dropped if this Terminal is terminated at the execution time and an exception thrown by the runnable is logged.
+	 * @param runnable the {@link ThrowingRunnable}
+	 */
+	public void post(ThrowingRunnable runnable){
+		post(new AsyncJob.Run(TimeLimit.noLimit(), runnable));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 */
+	public <T0> void post(VoidFunction1<T0> function, T0 arg0){
+		post(new AsyncJob.Run1<>(TimeLimit.noLimit(), function, arg0));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 */
+	public <T0, T1> void post(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
+		post(new AsyncJob.Run2<>(TimeLimit.noLimit(), function, arg0, arg1));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 */
+	public <T0, T1, T2> void post(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
+		post(new AsyncJob.Run3<>(TimeLimit.noLimit(), function, arg0, arg1, arg2));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param <T3> Type of the forth function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 * @param arg3 the forth function arg
+	 */
+	public <T0, T1, T2, T3> void post(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
+		post(new AsyncJob.Run4<>(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3));
+	}
+	
+	private void post(AsyncJob<Void> job){
+		job.guard = this;
+		Async.post(task(), job);
 	}
 	
 	/**
@@ -461,8 +609,10 @@ public class Terminal<T extends Task> implements ExecutionStage {
 	 * @return a {@link Timeout} for the given args
 	 */
 	public Timeout newTimeout(long delay, TimeUnit unit, TimerTask task) {
-		return Async.newTimeout(task(), delay, unit, t -> {
-			runLater(task::run, t);
+		return task().newTimeout(delay, unit, t -> {
+			// expires on the Task: the Terminal is only checked
+			if(!isTerminated())
+				task.run(t);
 		});
 	}
 	
@@ -0,0 +1,138 @@
+package com.github.timmy80.mia.core;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Prometheus metrics of the state machine of a type of {@link Terminal}.<br>
+ * Enabled by {@link TaskParams#setTerminalMetrics(boolean)}. All the metrics are labelled by terminal class and state class
+ * and registered to the default Prometheus registry.<br>
+ * <br>
+ * The label children are resolved once per terminal class, state class and transition, and cached with {@link ClassValue}:
+ * recording a transition does not allocate anything nor perform any label lookup.
+ * @author anthony
+ *
+ */
+class TerminalMetrics {
+
+	/**
+	 * Label of the terminated state
+	 */
+	static final String TERMINATED = "TERMINATED";
+
+	// prometheus monitoring
+	private static final Counter transitionsCount = Counter.build("terminal_state_transitions", "Transitions of the terminals from a state to another")
+			.labelNames("terminal", "from", "to").register();
+	private static final Gauge liveGauge = Gauge.build("terminal_state_live", "Number of terminals currently in a state")
+			.labelNames("terminal", "state").register();
+	private static final Histogram dwellHisto = Histogram.build("terminal_state_dwell_seconds", "Time spent by the terminals in a state")
+			.buckets(0.0001, 0.001, 0.01, 0.1, 0.5, 1, 5, 10, 30, 60, 300, 900, 3600).labelNames("terminal", "state").register();
+
+	private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+	/**
+	 * Metrics of every terminal class
+	 */
+	private static final ClassValue<TerminalMetrics> byTerminalClass = new ClassValue<TerminalMetrics>() {
+		@Override
+		protected TerminalMetrics computeValue(Class<?> type) {
+			return new TerminalMetrics(label(type));
+		}
+	};
+
+	/**
+	 * Get the metrics of a terminal class
+	 * @param terminalClass the class of a {@link Terminal}
+	 * @return the metrics shared by all the terminals of this class
+	 */
+	static TerminalMetrics of(Class<?> terminalClass) {
+		return byTerminalClass.get(terminalClass);
+	}
+
+	/**
+	 * Get the label of a class
+	 * @param type a class
+	 * @return the simple name of the class or its name for an anonymous class
+	 */
+	static String label(Class<?> type) {
+		String name = type.getSimpleName();
+		return name.isEmpty()? type.getName() : name;
+	}
+
+	/**
+	 * The metrics of a state of this terminal class
+	 */
+	private static final class StateChildren {
+		final Gauge.Child live;
+		final Histogram.Child dwell;
+		final Counter.Child terminations;
+
+		StateChildren(Gauge.Child live, Histogram.Child dwell, Counter.Child terminations) {
+			this.live = live;
+			this.dwell = dwell;
+			this.terminations = terminations;
+		}
+	}
+
+	private final String terminalLabel;
+
+	private final ClassValue<StateChildren> states = new ClassValue<StateChildren>() {
+		@Override
+		protected StateChildren computeValue(Class<?> type) {
+			String state = label(type);
+			return new StateChildren(
+					liveGauge.labels(terminalLabel, state),
+					dwellHisto.labels(terminalLabel, state),
+					transitionsCount.labels(terminalLabel, state, TERMINATED));
+		}
+	};
+
+	/**
+	 * Transitions counters by class of the previous state then by class of the next state
+	 */
+	private final ClassValue<ClassValue<Counter.Child>> transitions = new ClassValue<ClassValue<Counter.Child>>() {
+		@Override
+		protected ClassValue<Counter.Child> computeValue(Class<?> from) {
+			final String fromLabel = label(from);
+			return new ClassValue<Counter.Child>() {
+				@Override
+				protected Counter.Child computeValue(Class<?> to) {
+					return transitionsCount.labels(terminalLabel, fromLabel, label(to));
+				}
+			};
+		}
+	};
+
+	private TerminalMetrics(String terminalLabel) {
+		this.terminalLabel = terminalLabel;
+	}
+
+	/**
+	 * Record a terminal entering its first state
+	 * @param state the initial state
+	 */
+	void created(State state) {
+		states.get(state.getClass()).live.inc();
+	}
+
+	/**
+	 * Record a transition
+	 * @param prevState the left state
+	 * @param nextState the entered state or null if the terminal is terminated
+	 * @param dwellNanos the time spent in the left state in nanoseconds
+	 */
+	void transition(State prevState, State nextState, long dwellNanos) {
+		StateChildren prev = states.get(prevState.getClass());
+		prev.live.dec();
+		prev.dwell.observe(dwellNanos / NANOSECONDS_PER_SECOND);
+
+		if(nextState == null) {
+			prev.terminations.inc();
+			return;
+		}
+
+		states.get(nextState.getClass()).live.inc();
+		transitions.get(prevState.getClass()).get(nextState.getClass()).inc();
+	}
+}
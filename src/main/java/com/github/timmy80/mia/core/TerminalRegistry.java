@@ -0,0 +1,133 @@
+package com.github.timmy80.mia.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Registry of the {@link Terminal} of a {@link Task}.<br>
+ * Every Terminal is stored in a slot of an array and remembers its slot index, so that registering and unregistering a Terminal
+ * are constant time operations. Freed slots are reused. Iterating on the slots does not allocate anything.<br>
+ * Terminals with a non null {@link Terminal#getId()} are also indexed by id.<br>
+ * <br>
+ * This class is not thread safe: it is intended to be used by the Thread of its Task.
+ * @author anthony
+ *
+ */
+class TerminalRegistry {
+
+	private Terminal<?>[] slots = new Terminal<?>[16];
+
+	/**
+	 * Stack of the free slots below {@link #highWater}
+	 */
+	private int[] freeSlots = new int[16];
+	private int freeCount = 0;
+
+	/**
+	 * Number of slots used at least once
+	 */
+	private int highWater = 0;
+
+	private int size = 0;
+
+	private final HashMap<String, Terminal<?>> byId = new HashMap<>();
+
+	/**
+	 * Add a Terminal to this registry
+	 * @param terminal the terminal to add
+	 */
+	void add(Terminal<?> terminal) {
+		if(terminal.slot >= 0)
+			return; // already registered
+
+		int slot;
+		if(freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		}
+		else {
+			if(highWater == slots.length)
+				slots = Arrays.copyOf(slots, slots.length * 2);
+			slot = highWater++;
+		}
+
+		slots[slot] = terminal;
+		terminal.slot = slot;
+		size++;
+		index(terminal);
+	}
+
+	/**
+	 * Remove a Terminal from this registry
+	 * @param terminal the terminal to remove
+	 */
+	void remove(Terminal<?> terminal) {
+		int slot = terminal.slot;
+		if(slot < 0 || slots[slot] != terminal)
+			return; // not registered
+
+		slots[slot] = null;
+		terminal.slot = -1;
+		if(freeCount == freeSlots.length)
+			freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+		freeSlots[freeCount++] = slot;
+		size--;
+
+		if(terminal.indexedId != null && byId.get(terminal.indexedId) == terminal)
+			byId.remove(terminal.indexedId);
+		terminal.indexedId = null;
+	}
+
+	/**
+	 * Update the id index of a registered Terminal if its id has changed
+	 * @param terminal a registered terminal
+	 */
+	void index(Terminal<?> terminal) {
+		if(terminal.slot < 0)
+			return; // not registered
+
+		String id = terminal.getId();
+		if(Objects.equals(id, terminal.indexedId))
+			return; // up to date
+
+		if(terminal.indexedId != null && byId.get(terminal.indexedId) == terminal)
+			byId.remove(terminal.indexedId);
+		terminal.indexedId = id;
+		if(id != null)
+			byId.put(id, terminal);
+	}
+
+	/**
+	 * Find a registered Terminal by id
+	 * @param id the id of the terminal
+	 * @return the Terminal or null if not found
+	 */
+	Terminal<?> find(String id) {
+		return byId.get(id);
+	}
+
+	/**
+	 * Get the number of slots to iterate on with {@link #get(int)}
+	 * @return a number of slots
+	 */
+	int slots() {
+		return highWater;
+	}
+
+	/**
+	 * Get the Terminal of a slot
+	 * @param slot a slot index lower than {@link #slots()}
+	 * @return a Terminal or null if the slot is free
+	 */
+	Terminal<?> get(int slot) {
+		return slots[slot];
+	}
+
+	/**
+	 * Get the number of registered terminals
+	 * @return a number of terminals
+	 */
+	int size() {
+		return size;
+	}
+}
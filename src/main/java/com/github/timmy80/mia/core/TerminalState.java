@@ -80,13 +80,7 @@ public abstract class TerminalState extends State {
 	 */
 	public <R> CompletableFuture<R> callBefore(TimeLimit limit, Callable<R> callable){
 		
-		return Async.callBefore(task(), limit, () -> {
-			if(!isActive())
-				throw new InactiveStateException(this);
-			if(terminal.isTerminated())
-				throw new TerminatedTerminalException(terminal);
-			return callable.call();
-		});
+		return submit(new AsyncJob.Call<>(limit, callable));
 	}
 	
 	//***************************************************************************
@@ -110,7 +104,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runLater(VoidFunction1<T0> function, T0 arg0){
-		return runLater(() -> function.apply(arg0));
+		return runBefore(TimeLimit.noLimit(), function, arg0);
 	}
 	
 	/**
@@ -123,7 +117,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runLater(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runLater(() -> function.apply(arg0, arg1));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1);
 	}
 	
 	/**
@@ -138,7 +132,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runLater(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runLater(() -> function.apply(arg0, arg1, arg2));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1, arg2);
 	}
 	
 	/**
@@ -155,7 +149,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runLater(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return runBefore(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3);
 	}
 	
 	/**
@@ -177,7 +171,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0> CompletableFuture<R> callLater(Function1<R, T0> function, T0 arg0){
-		return callLater(() -> function.apply(arg0));
+		return submit(new AsyncJob.Call1<>(TimeLimit.noLimit(), function, arg0));
 	}
 	
 	/**
@@ -191,7 +185,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1> CompletableFuture<R> callLater(Function2<R, T0, T1> function, T0 arg0, T1 arg1){
-		return callLater(() -> function.apply(arg0, arg1));
+		return submit(new AsyncJob.Call2<>(TimeLimit.noLimit(), function, arg0, arg1));
 	}
 	
 	/**
@@ -207,7 +201,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2> CompletableFuture<R> callLater(Function3<R, T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return callLater(() -> function.apply(arg0, arg1, arg2));
+		return submit(new AsyncJob.Call3<>(TimeLimit.noLimit(), function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -225,7 +219,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <R, T0, T1, T2, T3> CompletableFuture<R> callLater(Function4<R, T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return callLater(() -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(new AsyncJob.Call4<>(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3));
 	}
 	
 	/**
@@ -235,7 +229,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> executeBefore(TimeLimit limit, Runnable runnable){
-		return runBefore(limit, ()-> runnable.run());
+		return runBefore(limit, runnable::run);
 	}
 	
 	/**
@@ -245,7 +239,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public CompletableFuture<Void> runBefore(TimeLimit limit, ThrowingRunnable runnable){
-		return callBefore(limit, ()->{ runnable.run(); return null; });
+		return submit(new AsyncJob.Run(limit, runnable));
 	}
 	
 	/**
@@ -257,7 +251,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction1<T0> function, T0 arg0){
-		return runBefore(limit, () -> function.apply(arg0));
+		return submit(new AsyncJob.Run1<>(limit, function, arg0));
 	}
 	
 	/**
@@ -271,7 +265,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
-		return runBefore(limit, () -> function.apply(arg0, arg1));
+		return submit(new AsyncJob.Run2<>(limit, function, arg0, arg1));
 	}
 	
 	/**
@@ -287,7 +281,7 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2));
+		return submit(new AsyncJob.Run3<>(limit, function, arg0, arg1, arg2));
 	}
 	
 	/**
@@ -305,7 +299,117 @@ public abstract class TerminalState extends State {
 	 * @return A {@link CompletableFuture} for the execution
 	 */
 	public <T0, T1, T2, T3> CompletableFuture<Void> runBefore(TimeLimit limit, VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
-		return runBefore(limit, () -> function.apply(arg0, arg1, arg2, arg3));
+		return submit(new AsyncJob.Run4<>(limit, function, arg0, arg1, arg2, arg3));
+	}
+	
+	/**
+	 * pass the given {@link Callable} to this {@link ExecutionStage}, executing it immediately if called from the Task of this State.<br>
+	 * See {@link Task#callNow(Callable)}.
+	 * @param <R> Return type of the function
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public <R> CompletableFuture<R> callNow(Callable<R> callable){
+		AsyncJob<R> job = new AsyncJob.Call<>(TimeLimit.noLimit(), callable);
+		job.stateGuard = this;
+		job.guard = terminal;
+		return task().submitInline(job);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage}, executing it immediately if called from the Task of this State.<br>
+	 * See {@link Task#callNow(Callable)}.
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution. Already completed if executed inline.
+	 */
+	public CompletableFuture<Void> runNow(ThrowingRunnable runnable){
+		AsyncJob<Void> job = new AsyncJob.Run(TimeLimit.noLimit(), runnable);
+		job.stateGuard = this;
+		job.guard = terminal;
+		return task().submitInline(job);
+	}
+	
+	/**
+	 * Submit a job to the Task of this State. The job is not executed if this State is inactive or its Terminal is terminated.
+	 * @param <R> The return Type
+	 * @param job the job
+	 * @return the job
+	 */
+	private <R> CompletableFuture<R> submit(AsyncJob<R> job){
+		job.stateGuard = this;
+		job.guard = terminal;
+		return Async.submit(task(), job);
+	}
+	
+	/**
+	 * pass the given runnable to this {@link ExecutionStage} without observing the result.<br>
+	 * The job is the only allocation. It is dropped if this State is inactive or its Terminal is terminated at the execution time and an exception thrown by the runnable is logged.
+	 * @param runnable the {@link ThrowingRunnable}
+	 */
+	public void post(ThrowingRunnable runnable){
+		post(new AsyncJob.Run(TimeLimit.noLimit(), runnable));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 */
+	public <T0> void post(VoidFunction1<T0> function, T0 arg0){
+		post(new AsyncJob.Run1<>(TimeLimit.noLimit(), function, arg0));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 */
+	public <T0, T1> void post(VoidFunction2<T0, T1> function, T0 arg0, T1 arg1){
+		post(new AsyncJob.Run2<>(TimeLimit.noLimit(), function, arg0, arg1));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 */
+	public <T0, T1, T2> void post(VoidFunction3<T0, T1, T2> function, T0 arg0, T1 arg1, T2 arg2){
+		post(new AsyncJob.Run3<>(TimeLimit.noLimit(), function, arg0, arg1, arg2));
+	}
+	
+	/**
+	 * pass the given function to this {@link ExecutionStage} without observing the result.<br>
+	 * See {@link #post(ThrowingRunnable)}.
+	 * @param <T0> Type of the first function arg
+	 * @param <T1> Type of the second function arg
+	 * @param <T2> Type of the third function arg
+	 * @param <T3> Type of the forth function arg
+	 * @param function the function
+	 * @param arg0 the first function arg
+	 * @param arg1 the second function arg
+	 * @param arg2 the third function arg
+	 * @param arg3 the forth function arg
+	 */
+	public <T0, T1, T2, T3> void post(VoidFunction4<T0, T1, T2, T3> function, T0 arg0, T1 arg1, T2 arg2, T3 arg3){
+		post(new AsyncJob.Run4<>(TimeLimit.noLimit(), function, arg0, arg1, arg2, arg3));
+	}
+	
+	private void post(AsyncJob<Void> job){
+		job.stateGuard = this;
+		job.guard = terminal;
+		Async.post(task(), job);
 	}
 	
 	/**
@@ -326,8 +430,10 @@ public abstract class TerminalState extends State {
 	 * @return a {@link Timeout} for the given args
 	 */
 	public Timeout newTimeout(long delay, TimeUnit unit, TimerTask task) {
-		return Async.newTimeout(task(), delay, unit, t -> {
-			runLater(task::run, t);
+		return task().newTimeout(delay, unit, t -> {
+			// expires on the Task: the state is only checked
+			if(isActive() && !terminal.isTerminated())
+				task.run(t);
 		});
 	}
 
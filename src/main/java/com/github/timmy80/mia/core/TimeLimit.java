@@ -10,6 +10,8 @@ import java.util.concurrent.TimeUnit;
  */
 public class TimeLimit {
 
+	private static final TimeLimit NO_LIMIT = new TimeLimit(0L);
+
 	private final long before;
 	
 	/**
@@ -86,10 +88,10 @@ public class TimeLimit {
 	}
 	
 	/**
-	 * Create a specific TimeLimit which never expires (timestamp = 0)
+	 * Get the TimeLimit which never expires (timestamp = 0). The instance is shared.
 	 * @return a {@link TimeLimit}
 	 */
 	public static TimeLimit noLimit() {
-		return new TimeLimit(0L);
+		return NO_LIMIT;
 	}
 }
@@ -10,6 +10,12 @@ import io.netty.util.internal.UnstableApi;
 public class TimeLimitExceededException extends RuntimeException {
 
 	private static final long serialVersionUID = -5139094419508769646L;
+	
+	/**
+	 * Shared exception for the calls whose {@link TimeLimit} is exceeded before execution.<br>
+	 * It has no stack trace so that rejecting expired calls does not allocate anything when a Task is overloaded.
+	 */
+	static final TimeLimitExceededException EXPIRED_BEFORE_EXECUTION = new TimeLimitExceededException("TimeLimit exceeded before execution");
 
 	/**
 	 * to keep ?
@@ -44,6 +50,15 @@ public class TimeLimitExceededException extends RuntimeException {
 		this.interupted = interupted;
 	}
 	
+	/**
+	 * Constructor of a stackless and immutable exception which can be shared between calls.
+	 * @param message the detail message
+	 */
+	protected TimeLimitExceededException(String message) {
+		super(message, null, false, false);
+		this.interupted = false;
+	}
+	
 	/**
 	 * Constructor
 	 * @param interupted true if the execution has been interrupted
@@ -74,8 +89,8 @@ public class TimeLimitExceededException extends RuntimeException {
 	}
 
 	/**
-	 * Indicates if the Executor Thread as been interrupted on a blocking call during execution.
-	 * @return true is the Executor Thread as been interrupted on a blocking call during execution.
+	 * Indicates if the execution has been given up after it started, through its {@link CancellationToken} or an InterruptedException.
+	 * @return true if the call has been stopped during execution, false if it has been rejected before execution.
 	 */
 	public boolean isInterupted() {
 		return interupted;
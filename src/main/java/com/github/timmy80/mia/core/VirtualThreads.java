@@ -0,0 +1,68 @@
+package com.github.timmy80.mia.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the virtual Threads of Java 21 and later.<br>
+ * The library is built for Java 11, so the virtual Thread builder is looked up by reflection once.
+ * @author anthony
+ *
+ */
+class VirtualThreads {
+
+	private static final Method ofVirtual;
+	private static final Method name;
+	private static final Method start;
+
+	static {
+		Method wOfVirtual = null, wName = null, wStart = null;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			wOfVirtual = Thread.class.getMethod("ofVirtual");
+			wName = builder.getMethod("name", String.class);
+			wStart = builder.getMethod("start", Runnable.class);
+		} catch (ClassNotFoundException | NoSuchMethodException e) {
+			// Virtual Threads are not available in this runtime
+			wOfVirtual = null;
+		}
+		ofVirtual = wOfVirtual;
+		name = wName;
+		start = wStart;
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Check if virtual Threads are available in this runtime
+	 * @return true on Java 21 or later
+	 */
+	static boolean isSupported() {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Start a new virtual Thread
+	 * @param threadName the name of the Thread
+	 * @param runnable the code executed by the Thread
+	 * @return the started Thread
+	 * @throws UnsupportedOperationException if virtual Threads are not available
+	 */
+	static Thread start(String threadName, Runnable runnable) {
+		if(!isSupported())
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+
+		try {
+			Object builder = ofVirtual.invoke(null);
+			builder = name.invoke(builder, threadName);
+			return (Thread) start.invoke(builder, runnable);
+		} catch (InvocationTargetException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
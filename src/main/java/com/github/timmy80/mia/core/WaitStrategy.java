@@ -0,0 +1,71 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Strategy used by a {@link Task} to wait for new events between two iterations of its event loop.<br>
+ * An instance is owned by a single {@link Task}: {@link #await(long)} is only called by the Thread of the Task
+ * while {@link #signal()} may be called by any Thread.<br>
+ * <br>
+ * Available implementations:
+ * <ul>
+ * <li>{@link BlockingWaitStrategy}: park the Task until signaled. Lowest CPU usage, this is the default.</li>
+ * <li>{@link SpinYieldParkWaitStrategy}: spin, then yield, then park. Faster wakeups for a moderate CPU cost.</li>
+ * <li>{@link BusySpinWaitStrategy}: never release the CPU. Microsecond wakeups for Tasks running on dedicated cores.</li>
+ * </ul>
+ * The strategy of a Task is selected with {@link TaskParams#setWaitStrategy(java.util.function.Supplier)}.
+ * @author anthony
+ *
+ */
+public abstract class WaitStrategy {
+
+	private final AtomicBoolean posted = new AtomicBoolean(false);
+
+	/**
+	 * Default constructor
+	 */
+	public WaitStrategy() {
+
+	}
+
+	/**
+	 * Post an event and wake up the waiting Thread if required.<br>
+	 * This method may be called by any Thread.
+	 */
+	public abstract void signal();
+
+	/**
+	 * Wait until an event is posted or until the timeout is reached.<br>
+	 * This method is only called by the Thread of the owning {@link Task}. An event posted before the call, for instance while
+	 * the Task was still executing its jobs, is consumed without waiting.
+	 * @param timeoutNanos wait timeout in nanoseconds
+	 * @return true if the Thread has waited and has been woken up by a posted event, 
+	 * false if an event was already posted or if the timeout has been reached
+	 * @throws InterruptedException if the waiting Thread has been interrupted
+	 */
+	public abstract boolean await(long timeoutNanos) throws InterruptedException;
+
+	/**
+	 * Mark an event as posted.<br>
+	 * Concurrent posts are coalesced: while an event is posted and not consumed yet, posting again is a plain read.
+	 * @return True if this call posted the event, false if an event was already posted
+	 */
+	protected boolean post() {
+		// avoid the atomic write when already posted: the waiting Thread has not consumed it yet
+		return !posted.get() && posted.compareAndSet(false, true);
+	}
+
+	/**
+	 * Consume the posted event if any.
+	 * @return True if an event was posted since the last call
+	 */
+	protected boolean consumePost() {
+		// avoid the atomic write when nothing has been posted
+		return posted.get() && posted.getAndSet(false);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+}
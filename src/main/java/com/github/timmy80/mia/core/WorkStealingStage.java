@@ -0,0 +1,175 @@
+package com.github.timmy80.mia.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
+
+/**
+ * An {@link ExecutionStage} for stateless jobs (encoding, validation, hashing...) backed by a work-stealing ForkJoinPool.<br>
+ * Jobs submitted to this stage do not queue behind the events of a Task: they are spread over the idle cores.<br>
+ * <br>
+ * When a call is submitted by a {@link Task} (See {@link Task#current()}), the returned CompletableFuture is completed on this Task,
+ * so the result and the dependent stages are handled by the Thread of the Task as any other event. Otherwise the CompletableFuture
+ * is completed by the worker Thread.<br>
+ * Exception: if the submitting Task rejects the delivery (a full bounded jobs queue, see {@link TaskParams.OverflowPolicy}, or a
+ * terminated Task), the CompletableFuture is completed exceptionally with the {@link RejectedExecutionException} by the rejecting Thread:
+ * the worker Thread, or the producer evicting the delivery under {@link TaskParams.OverflowPolicy#DROP_OLDEST}. Its dependent
+ * stages are then executed outside of the Task.<br>
+ * Cancelling the returned CompletableFuture cancels the call: a job which has not started yet is never executed, a running job sees
+ * the cancellation through its {@link CancellationToken}.<br>
+ * <br>
+ * The {@link TimeLimit} of a call is honoured as by {@link Async#callBefore(Executor, TimeLimit, Callable)}.
+ * The jobs must not access the state of a Task or of a Terminal.
+ * @author anthony
+ *
+ */
+public class WorkStealingStage implements ExecutionStage {
+
+	private static final AtomicInteger poolCount = new AtomicInteger();
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor
+	 * @param parallelism the number of worker Threads
+	 */
+	public WorkStealingStage(int parallelism) {
+		if(parallelism < 1)
+			throw new IllegalArgumentException("parallelism cannot be less than 1");
+
+		final String prefix = "mia-ws-" + poolCount.incrementAndGet() + "-";
+		this.pool = new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			t.setName(prefix + t.getPoolIndex());
+			return t;
+		}, null, true); // asyncMode: FIFO order for jobs that are never joined
+	}
+
+	/**
+	 * Constructor with one worker Thread per available processor
+	 */
+	public WorkStealingStage() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public <R> CompletableFuture<R> callBefore(TimeLimit limit, Callable<R> callable) {
+		return deliver(Async.callBefore(pool, limit, callable));
+	}
+
+	/**
+	 * Deliver the outcome of a call on the submitting Task if any
+	 * @param <R> Return type of the call
+	 * @param result the future of the call
+	 * @return the given future or a future completed on the submitting Task
+	 */
+	private <R> CompletableFuture<R> deliver(CompletableFuture<R> result) {
+		final Task submitter = Task.current();
+		if(submitter == null)
+			return result;
+
+		// deliver the outcome back on the submitting Task
+		CompletableFuture<R> delivered = new CompletableFuture<R>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if(cancelled)
+					result.cancel(false);
+				return cancelled;
+			}
+		};
+		result.whenComplete((r, e) -> Async.runLater(submitter, () -> {
+			if(e != null)
+				delivered.completeExceptionally(e);
+			else
+				delivered.complete(r);
+		}).exceptionally(rejected -> {
+			// the delivery job has been rejected, dropped or never executed
+			delivered.completeExceptionally(rejected);
+			return null;
+		}));
+		return delivered;
+	}
+
+	/**
+	 * pass the given {@link Callable} to this {@link ExecutionStage}
+	 * @param <R> Return type of the function
+	 * @param callable the {@link Callable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public <R> CompletableFuture<R> callLater(Callable<R> callable) {
+		return callBefore(TimeLimit.noLimit(), callable);
+	}
+
+	/**
+	 * pass the given runnable to this {@link ExecutionStage} with a {@link TimeLimit}
+	 * @param limit the {@link TimeLimit} for the execution
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public CompletableFuture<Void> runBefore(TimeLimit limit, ThrowingRunnable runnable) {
+		return deliver(Async.runBefore(pool, limit, runnable));
+	}
+
+	/**
+	 * pass the given runnable to this {@link ExecutionStage}
+	 * @param runnable the {@link ThrowingRunnable}
+	 * @return A {@link CompletableFuture} for the execution
+	 */
+	public CompletableFuture<Void> runLater(ThrowingRunnable runnable) {
+		return runBefore(TimeLimit.noLimit(), runnable);
+	}
+
+	@Override
+	public boolean isActive() {
+		return !pool.isShutdown();
+	}
+
+	/**
+	 * Get the number of worker Threads of this stage
+	 * @return a number of Threads
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Get an estimate of the number of jobs stolen by a worker from the queue of another worker
+	 * @return a number of jobs
+	 */
+	public long getStealCount() {
+		return pool.getStealCount();
+	}
+
+	/**
+	 * Stop accepting new jobs. The pending jobs are still executed.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Wait for the pending jobs after a {@link #shutdown()}
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return true if all the jobs have been executed, false if the timeout elapsed before
+	 * @throws InterruptedException if the calling Thread is interrupted
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return pool.awaitTermination(timeout, unit);
+	}
+
+	@Override
+	public String toString() {
+		return new LogFmt()
+				.append("type", getClass().getSimpleName())
+				.append("parallelism", pool.getParallelism()).toString();
+	}
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.function.BiFunction;
 
 import com.github.timmy80.mia.core.Async;
+import com.github.timmy80.mia.core.Promise;
 import com.github.timmy80.mia.core.Task;
 import com.github.timmy80.mia.core.TimeLimit;
 
@@ -39,6 +40,7 @@ public class MessageCtx<R extends Object> {
 	private final Task publisher;
 	private final TimeLimit limit;
 	private final ResponseHandler<R> responseHandler;
+	private final Promise<R> promise;
 	
 	/**
 	 * A future completed when the response is given
@@ -48,6 +50,7 @@ public class MessageCtx<R extends Object> {
 	private long publishTime = 0L;
 	private Task handler = null;
 	private CompletableFuture<Void> completionFuture = null;
+	private boolean inline = false;
 	
 	/**
 	 * Constructor for a push (no response expected)
@@ -56,7 +59,7 @@ public class MessageCtx<R extends Object> {
 	 * @param limit The {@link TimeLimit} to handle the request
 	 */
 	public MessageCtx(String topic, Task publisher, TimeLimit limit) {
-		this(topic, publisher, limit, null);
+		this(topic, publisher, limit, (ResponseHandler<R>) null);
 	}
 	
 	/**
@@ -72,6 +75,24 @@ public class MessageCtx<R extends Object> {
 		this.publisher = publisher;
 		this.limit = limit;
 		this.responseHandler = responseHandler;
+		this.promise = null;
+	}
+	
+	/**
+	 * Constructor for a Question/Response context answered through a {@link Promise}.<br>
+	 * The response completes the promise directly: no job is submitted to the publisher when the response is replied by the publisher itself.
+	 * @param topic  the requested topic
+	 * @param publisher The publishing task
+	 * @param limit The {@link TimeLimit} to handle the request
+	 * @param promise The promise completed by the response
+	 */
+	public MessageCtx(String topic, Task publisher, TimeLimit limit, Promise<R> promise) {
+		this.type = Type.REQUEST;
+		this.topic = topic;
+		this.publisher = publisher;
+		this.limit = limit;
+		this.responseHandler = null;
+		this.promise = promise;
 	}
 
 	/**
@@ -124,6 +145,14 @@ public class MessageCtx<R extends Object> {
 		return responseHandler;
 	}
 
+	/**
+	 * Get the Promise completed by the response
+	 * @return null if the response is given to a {@link ResponseHandler}
+	 */
+	protected Promise<R> getPromise() {
+		return promise;
+	}
+
 	/**
 	 * Get the context type
 	 * @return PUSH or REQUEST
@@ -149,7 +178,8 @@ public class MessageCtx<R extends Object> {
 	}
 
 	/**
-	 * Get the completion future
+	 * Get the completion future.<br>
+	 * For a context answered through a {@link Promise}, this future is completed when the request is handled by the subscriber: the response completes the promise.
 	 * @return a CompletableFuture or null if not set
 	 */
 	public CompletableFuture<Void> getCompletionFuture() {
@@ -164,6 +194,22 @@ public class MessageCtx<R extends Object> {
 		this.completionFuture = completionFuture;
 	}
 	
+	/**
+	 * Check if the response is delivered inline when replied from the publishing Task
+	 * @return true if inline
+	 */
+	public boolean isInline() {
+		return inline;
+	}
+
+	/**
+	 * Deliver the response inline when replied from the publishing Task. See {@link Messaging#setInlineDelivery(boolean)}.
+	 * @param inline true if inline
+	 */
+	protected void setInline(boolean inline) {
+		this.inline = inline;
+	}
+	
 	/**
 	 * Check if completionFuture isDone()
 	 * @return completionFuture.isDone()
@@ -191,18 +237,29 @@ public class MessageCtx<R extends Object> {
 	 */
 	@SuppressWarnings("unchecked")
 	public void reply(Object response) {
-		if(type == Type.REQUEST)
-			Async.runBefore(publisher, getLimit(), responseHandler::eventResponseReceived, this, (R)response).handle(new BiFunction<Void, Throwable, Void>() {
-
-				@Override
-				public Void apply(Void t, Throwable u) {
-					if(u != null)
-						responseFuture.completeExceptionally(u);
-					else
-						responseFuture.complete(null);
-					return null;
-				}
-			});
+		if(type != Type.REQUEST)
+			return;
+		if(promise != null) {
+			promise.complete((R)response);
+			return;
+		}
+		
+		CompletableFuture<Void> f;
+		if(inline && publisher.inTask())
+			f = publisher.runNow(getLimit(), () -> responseHandler.eventResponseReceived(this, (R)response));
+		else
+			f = Async.runBefore(publisher, getLimit(), responseHandler::eventResponseReceived, this, (R)response);
+		f.handle(new BiFunction<Void, Throwable, Void>() {
+
+			@Override
+			public Void apply(Void t, Throwable u) {
+				if(u != null)
+					responseFuture.completeExceptionally(u);
+				else
+					responseFuture.complete(null);
+				return null;
+			}
+		});
 	}
 	
 	@Override
@@ -4,8 +4,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
 
 import com.github.timmy80.mia.core.Async;
+import com.github.timmy80.mia.core.HedgePolicy;
+import com.github.timmy80.mia.core.Promise;
+import com.github.timmy80.mia.core.RetryPolicy;
 import com.github.timmy80.mia.core.Task;
 import com.github.timmy80.mia.core.TimeLimit;
 import com.github.timmy80.mia.messaging.MessageCtx.Type;
@@ -36,6 +40,11 @@ public class Messaging<Q, R> {
 	 */
 	private volatile HashMap<String, List<Subscription<Q>>> subsriptions = new HashMap<>(); // Copy on write pointer (synchronize only on write)
 	
+	/**
+	 * Deliver the messages and the responses inline when published from the destination Task
+	 */
+	private volatile boolean inlineDelivery = false;
+	
 	/**
 	 * Default constructor
 	 */
@@ -43,6 +52,24 @@ public class Messaging<Q, R> {
 		
 	}
 	
+	/**
+	 * Check if the messages and the responses are delivered inline when published from the destination Task.
+	 * @return true if enabled
+	 */
+	public boolean isInlineDelivery() {
+		return inlineDelivery;
+	}
+	
+	/**
+	 * Deliver the messages and the responses inline when published from the destination Task (See {@link Task#runNow(TimeLimit, com.github.timmy80.mia.core.Async.ThrowingRunnable)}).<br>
+	 * The subscriber then handles the message before {@link #publish(String, Object, TimeLimit, Task)} returns, without waiting for
+	 * the jobs already queued on the Task. Messages between Tasks are not affected.
+	 * @param inlineDelivery true to enable. Default is false.
+	 */
+	public void setInlineDelivery(boolean inlineDelivery) {
+		this.inlineDelivery = inlineDelivery;
+	}
+	
 	/**
 	 * Subscribe to a topic to receive messages.
 	 * @param topicFilter A topic filter like specified by the MQTT protocol. See {@link TopicFilter} for details.
@@ -130,10 +157,25 @@ public class Messaging<Q, R> {
 		Child promCount = topicCallCount.labels(publisher.getName(), context.getTopic());
 		
 		Subscription<Q> wDest = wSubscription.get((int) (promCount.get()%wSubscription.size()));
-		CompletableFuture<Void> f = Async.runBefore(wDest.getHandlingTask(), context.getLimit(), wDest.getSubscriber()::eventReceivePublish, context, message);
+		Task destination = wDest.getHandlingTask();
+		Subscriber<Q> subscriber = wDest.getSubscriber();
+		CompletableFuture<Void> f;
+		context.setInline(inlineDelivery);
+		if(inlineDelivery && destination.inTask())
+			f = destination.runNow(context.getLimit(), () -> subscriber.eventReceivePublish(context, message));
+		else
+			f = Async.runBefore(destination, context.getLimit(), subscriber::eventReceivePublish, context, message);
 		promCount.inc();
 		messageCount.labels(publisher.getName(),context.getType().toString()).inc();
-		if(context.getType() ==  Type.REQUEST) {
+		if(context.getPromise() != null) {
+			Promise<R> promise = context.getPromise();
+			f.exceptionally((e) -> {
+				promise.fail(e);
+				return null;
+			});
+			context.setCompletionFuture(f);
+		}
+		else if(context.getType() ==  Type.REQUEST) {
 			f.exceptionally((e) -> {
 				context.responseFuture.completeExceptionally(e);
 				return null;
@@ -173,4 +215,75 @@ public class Messaging<Q, R> {
 		MessageCtx<R> context = new MessageCtx<R>(topic, publisher, limit, responseHandler);
 		return publish(context, message, publisher);
 	}
+	
+	/**
+	 * Publish a request to a topic and get its response as a {@link Promise} owned by the publishing task.<br>
+	 * The response completes the promise without any intermediate future: its continuations are executed by the publishing task,
+	 * inline when the response is replied by the publishing task itself. Cancelling the promise cancels the request:
+	 * it is not delivered to the subscriber unless its delivery has already started.
+	 * @param topic the destination topic
+	 * @param message the message
+	 * @param limit the timeout for this request
+	 * @param publisher the publishing task
+	 * @return a promise completed by the response, by the failure of the subscriber or by a 
+	 * {@link com.github.timmy80.mia.core.TimeLimitExceededException} if no response is received within the limit.
+	 * @throws InvalidTopicException if the topic does not match any subscriber
+	 */
+	public Promise<R> promise(String topic, Q message, TimeLimit limit, Task publisher) {
+		Promise<R> promise = new Promise<>(publisher, limit);
+		MessageCtx<R> context;
+		try {
+			context = publish(new MessageCtx<R>(topic, publisher, limit, promise), message, publisher);
+		} catch (RuntimeException e) {
+			promise.cancel(); // releases its timeout
+			throw e;
+		}
+		CompletableFuture<Void> delivery = context.getCompletionFuture();
+		promise.onComplete((r, e) -> {
+			if(promise.isCancelled())
+				delivery.cancel(false);
+		});
+		return promise;
+	}
+	
+	/**
+	 * Publish a request to a topic and get its response as a future
+	 * @param topic the destination topic
+	 * @param message the message
+	 * @param limit the timeout for this request
+	 * @param publisher the publishing task
+	 * @return a future completed on the publishing task by the response, by the failure of the subscriber or by a 
+	 * {@link com.github.timmy80.mia.core.TimeLimitExceededException} if no response is received within the limit.
+	 * Cancelling the future cancels the request.
+	 * @throws InvalidTopicException if the topic does not match any subscriber
+	 */
+	public CompletableFuture<R> request(String topic, Q message, TimeLimit limit, Task publisher) {
+		return promise(topic, message, limit, publisher).toCompletableFuture();
+	}
+	
+	/**
+	 * Publish a request to a topic with duplicate requests and retries (See {@link Async#hedgeBefore(java.util.concurrent.Executor, TimeLimit, HedgePolicy, IntFunction)}
+	 * and {@link Async#retryBefore(java.util.concurrent.Executor, TimeLimit, RetryPolicy, IntFunction)}). Must be called by the publishing task.<br>
+	 * The duplicates and the retries are published like any request: when multiple subscribers are subscribed to the topic, they go to the next
+	 * subscriber. The response of a request which lost the race is ignored.
+	 * @param topic the destination topic
+	 * @param message the message
+	 * @param limit the timeout shared by the requests
+	 * @param hedge the {@link HedgePolicy}. null for no duplicate request.
+	 * @param retry the {@link RetryPolicy}. null for no retry.
+	 * @param publisher the publishing task
+	 * @return a future completed on the publishing task by the first response, by the last failure or by a 
+	 * {@link com.github.timmy80.mia.core.TimeLimitExceededException} if no response is received within the limit.
+	 */
+	public CompletableFuture<R> request(String topic, Q message, TimeLimit limit, HedgePolicy hedge, RetryPolicy retry, Task publisher) {
+		final IntFunction<CompletableFuture<R>> attempt;
+		if(hedge != null)
+			attempt = n -> Async.hedgeBefore(publisher, limit, hedge, i -> request(topic, message, limit, publisher));
+		else
+			attempt = n -> request(topic, message, limit, publisher);
+		
+		if(retry == null)
+			return attempt.apply(0);
+		return Async.retryBefore(publisher, limit, retry, attempt);
+	}
 }
@@ -1,13 +1,19 @@
 package com.github.timmy80.mia.core;
 
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -170,10 +176,7 @@ public class AsyncTest {
 				@Override
 				public String call() throws Exception {
 					Thread.sleep(3500);
-					if(!Thread.interrupted())
-						throw new IllegalStateException("Sould have been interrupted!");
-					else
-						return "fail me please";
+					return "fail me please";
 				}
 			}).get();
 		} catch (ExecutionException e) {
@@ -182,4 +185,86 @@ public class AsyncTest {
 		fail("Should have ended in exception");
 	}
 
+	@Test
+	public void testPost() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(5);
+		Async.post(executor, () -> { testObject.eventWithNoArg(); done.countDown(); });
+		Async.post(executor, (String a) -> { testObject.eventWithOneArg(a); done.countDown(); }, "toto");
+		Async.post(executor, (String a, String b) -> { testObject.eventWithTwoArg(a, b); done.countDown(); }, "toto", "titi");
+		Async.post(executor, (String a, String b, String c) -> { testObject.eventWithThreeArg(a, b, c); done.countDown(); }, "toto", "titi", "tata");
+		Async.post(executor, (String a, String b, String c, String d) -> { testObject.eventWithFourArg(a, b, c, d); done.countDown(); }, "toto", "titi", "tata", "tutu");
+		Async.post(executor, () -> { throw new IllegalStateException("logged"); });
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void testSingleJob() throws InterruptedException, ExecutionException {
+		List<Runnable> submitted = new ArrayList<>();
+		Executor holder = submitted::add;
+		
+		CompletableFuture<String> f = Async.callLater(holder, (String a, String b) -> String.format("hello %s %s", a, b), "toto", "titi");
+		assertEquals(1, submitted.size());
+		assertSame(f, submitted.get(0)); // the job is the future
+		
+		submitted.get(0).run();
+		assertEquals("hello toto titi", f.get());
+		assertSame(TimeLimit.noLimit(), TimeLimit.noLimit());
+	}
+	
+	@Test
+	public void testCancelledNotExecuted() {
+		List<Runnable> submitted = new ArrayList<>();
+		Executor holder = submitted::add;
+		
+		CompletableFuture<Void> f = Async.runLater(holder, () -> { throw new IllegalStateException("should not be executed"); });
+		f.cancel(false);
+		submitted.get(0).run();
+		assertTrue(f.isCancelled());
+	}
+
+	@Test
+	public void testCancellationToken() throws InterruptedException, ExecutionException {
+		assertSame(CancellationToken.NONE, CancellationToken.current());
+		assertSame(CancellationToken.NONE, Async.callLater(executor, CancellationToken::current).get());
+		
+		AtomicBoolean interrupted = new AtomicBoolean(true);
+		CompletableFuture<Boolean> f = Async.callBefore(executor, TimeLimit.in(50), () -> {
+			CancellationToken token = CancellationToken.current();
+			assertFalse(token.isCancellationRequested());
+			while(!token.isCancellationRequested())
+				Thread.sleep(1);
+			interrupted.set(Thread.currentThread().isInterrupted());
+			return true;
+		});
+		try {
+			f.get();
+			fail("Should have ended in exception");
+		} catch(ExecutionException e) {
+			// the result of a call exceeding its limit is discarded
+			assertTrue(((TimeLimitExceededException)e.getCause()).isInterupted());
+		}
+		assertFalse(interrupted.get()); // never interrupted
+		assertSame(CancellationToken.NONE, Async.callLater(executor, CancellationToken::current).get());
+	}
+	
+	@Test
+	public void testLimitExceededDuringExecution() throws Throwable {
+		try {
+			Async.runBefore(executor, TimeLimit.in(20), () -> {
+				CancellationToken token = CancellationToken.current();
+				for(int i=0; i < 1000; i++) {
+					token.throwIfCancellationRequested();
+					Thread.sleep(1);
+				}
+			}).get();
+			fail("Should have ended in exception");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeLimitExceededException);
+			assertTrue(((TimeLimitExceededException) e.getCause()).isInterupted());
+		}
+		
+		// the next job is not affected
+		assertFalse(Async.callLater(executor, () -> Thread.currentThread().isInterrupted()).get());
+	}
+
 }
@@ -0,0 +1,182 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CombinatorTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	public static class JoinTerminal extends Terminal<TestTask> {
+
+		public class Joining extends TerminalState {
+			@Override
+			protected void eventEntry() {
+			}
+		}
+
+		public JoinTerminal(TestTask task) {
+			super(task);
+		}
+	}
+
+	static ApplicationContext appCtx;
+	static TestTask caller;
+	static TestTask worker;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+		caller = new TestTask("combinator-caller", appCtx);
+		caller.start();
+		worker = new TestTask("combinator-worker", appCtx);
+		worker.start();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	/**
+	 * Check that a join is completed on the caller Task
+	 */
+	private static <V> CompletableFuture<V> onCaller(CompletableFuture<V> join) {
+		return join.thenApply(v -> {
+			if(Task.current() != caller)
+				throw new IllegalStateException("not resumed on the caller");
+			return v;
+		});
+	}
+
+	@Test
+	public void testAllBefore() throws Exception {
+		AtomicBoolean executed = new AtomicBoolean(false);
+		TestTask idle = new TestTask("combinator-idle", appCtx); // not started: its job waits
+
+		PartialResults<Integer> results = caller.callLater(() -> {
+			TimeLimit limit = TimeLimit.in(100);
+			List<CompletableFuture<Integer>> branches = Arrays.asList(
+					worker.callBefore(limit, () -> 1),
+					worker.callBefore(limit, () -> 2),
+					Async.callBefore(idle, limit, () -> {
+						executed.set(true);
+						return 3;
+					}));
+			return onCaller(caller.allBefore(limit, branches));
+		}).get().get(1, TimeUnit.SECONDS);
+
+		assertEquals(3, results.size());
+		assertFalse(results.isComplete());
+		assertEquals(2, results.getSucceeded());
+		assertEquals(Arrays.asList(1, 2), results.getResults());
+		assertFalse(results.isDone(2));
+		assertNull(results.getResult(2));
+
+		// the loser is cancelled and never executed
+		idle.start();
+		idle.callLater(() -> null).get();
+		assertFalse(executed.get());
+		idle.stopTask();
+		idle.awaitTermination();
+	}
+
+	@Test
+	public void testAllBeforeFailure() throws Exception {
+		PartialResults<Integer> results = caller.callLater(() -> onCaller(Async.allBefore(caller, TimeLimit.in(1000), Arrays.asList(
+				worker.callLater(() -> 1),
+				worker.<Integer>callLater(() -> { throw new IllegalStateException("branch failure"); }))))
+		).get().get(1, TimeUnit.SECONDS);
+
+		assertTrue(results.isSucceeded(0));
+		assertTrue(results.isDone(1));
+		assertFalse(results.isSucceeded(1));
+		assertEquals(IllegalStateException.class, results.getFailure(1).getClass());
+	}
+
+	@Test
+	public void testAnyBefore() throws Exception {
+		CompletableFuture<Integer> never = new CompletableFuture<>();
+		Integer first = caller.callLater(() -> onCaller(caller.anyBefore(TimeLimit.in(1000), Arrays.asList(never, worker.callLater(() -> 42))))).get().get(1, TimeUnit.SECONDS);
+		assertEquals(Integer.valueOf(42), first);
+		assertTrue(never.isCancelled());
+
+		// no branch completed before the limit
+		CompletableFuture<Integer> late = new CompletableFuture<>();
+		try {
+			caller.callLater(() -> onCaller(caller.anyBefore(TimeLimit.in(50), Arrays.asList(late)))).get().get(1, TimeUnit.SECONDS);
+			fail("Should have timed out");
+		} catch(ExecutionException e) {
+			assertEquals(TimeLimitExceededException.class, e.getCause().getClass());
+		}
+		assertTrue(late.isCancelled());
+	}
+
+	@Test
+	public void testFirstSuccessful() throws Exception {
+		CompletableFuture<String> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new IllegalStateException("first"));
+		String result = caller.callLater(() -> onCaller(caller.firstSuccessful(TimeLimit.in(1000), Arrays.asList(failed, worker.callLater(() -> "ok"))))).get().get(1, TimeUnit.SECONDS);
+		assertEquals("ok", result);
+
+		// every branch failed: the last failure
+		try {
+			Async.firstSuccessful(caller, TimeLimit.in(1000), Arrays.asList(
+					failed,
+					worker.<String>callLater(() -> { throw new UnsupportedOperationException("last"); }))).get(1, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch(ExecutionException e) {
+			assertEquals(UnsupportedOperationException.class, e.getCause().getClass());
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		CompletableFuture<Integer> a = new CompletableFuture<>();
+		CompletableFuture<Integer> b = new CompletableFuture<>();
+		CompletableFuture<PartialResults<Integer>> join = Async.allBefore(caller, TimeLimit.noLimit(), Arrays.asList(a, b));
+		assertTrue(join.cancel(false));
+		assertTrue(a.isCancelled());
+		assertTrue(b.isCancelled());
+	}
+
+	@Test
+	public void testTerminatedTerminal() throws Exception {
+		CompletableFuture<Integer> branch = new CompletableFuture<>();
+		CompletableFuture<Integer> join = caller.callLater(() -> {
+			JoinTerminal terminal = new JoinTerminal(caller);
+			terminal.nextState(terminal.new Joining());
+			CompletableFuture<Integer> f = terminal.anyBefore(TimeLimit.in(1000), Arrays.asList(branch));
+			terminal.terminate();
+			return f;
+		}).get();
+
+		branch.complete(1);
+		try {
+			join.get(1, TimeUnit.SECONDS);
+			fail("Should have been rejected");
+		} catch(ExecutionException e) {
+			assertEquals(TerminatedTerminalException.class, e.getCause().getClass());
+		}
+	}
+}
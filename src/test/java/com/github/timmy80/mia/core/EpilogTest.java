@@ -68,4 +68,26 @@ public class EpilogTest {
 		assertFalse(task.isAlive()); // check task is stopped
 	}
 
+	@Test
+	public void testManyEpilogs() throws InterruptedException {
+		TestTask task = new TestTask("EPILOG-TASK-MANY");
+		task.start();
+		
+		CompletableFuture<?>[] epilogs = new CompletableFuture<?>[10000];
+		for(int i=0; i < epilogs.length; i++) {
+			epilogs[i] = new CompletableFuture<Void>();
+			task.registerEpilog(epilogs[i]);
+		}
+		assertEquals(epilogs.length, task.getPendingEpilogs());
+		
+		task.stopTask(); // request the task to stop
+		task.runLater(task::callMeToCompleteEpilog); // complete the epilog registered by the stop event
+		for(int i=0; i < epilogs.length; i++)
+			epilogs[i].complete(null);
+		
+		task.join(1000);
+		assertFalse(task.isAlive()); // check task is stopped
+		assertEquals(0, task.getPendingEpilogs());
+	}
+
 }
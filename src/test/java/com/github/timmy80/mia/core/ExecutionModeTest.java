@@ -0,0 +1,199 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+public class ExecutionModeTest {
+
+	public static class TestTask extends Task {
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		int executed = 0;
+		boolean concurrent = false;
+		boolean wrongCurrent = false;
+		CompletableFuture<Void> epilog = null;
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+
+		@Override
+		protected void eventStopRequested() {
+			if(epilog != null)
+				registerEpilog(epilog);
+		}
+
+		public void job() {
+			if(inFlight.incrementAndGet() != 1)
+				concurrent = true;
+			if(Task.current() != this)
+				wrongCurrent = true;
+			executed++;
+			inFlight.decrementAndGet();
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setPoolThreads(4);
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static TaskParams params(ExecutionMode mode) {
+		TaskParams params = new TaskParams();
+		params.setExecutionMode(mode);
+		return params;
+	}
+
+	@Test
+	public void testPooled() throws Exception {
+		TaskParams params = params(ExecutionMode.POOLED);
+		params.setMaxJobsPerIteration(10);
+
+		List<TestTask> tasks = new ArrayList<>();
+		for(int i=0; i < 1000; i++) {
+			TestTask task = new TestTask("pooled-" + i, appCtx, params);
+			task.start();
+			tasks.add(task);
+		}
+
+		// submit from several threads so that the jobs of a task compete for the pool
+		List<CompletableFuture<Void>> last = new ArrayList<>();
+		Thread[] producers = new Thread[4];
+		for(int p=0; p < producers.length; p++) {
+			producers[p] = new Thread(() -> {
+				for(int j=0; j < 25; j++)
+					for(TestTask task : tasks)
+						task.runLater(task::job);
+			});
+			producers[p].start();
+		}
+		for(Thread producer : producers)
+			producer.join();
+		for(TestTask task : tasks)
+			last.add(task.runLater(task::job));
+		CompletableFuture.allOf(last.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		for(TestTask task : tasks) {
+			assertEquals(101, task.executed);
+			assertFalse(task.concurrent);
+			assertFalse(task.wrongCurrent);
+			assertTrue(task.isRunning());
+			assertFalse(task.isAlive()); // no platform Thread of its own
+		}
+		assertTrue(appCtx.watchdogCheck(1000));
+
+		for(TestTask task : tasks)
+			task.stopTask();
+		for(TestTask task : tasks) {
+			task.awaitTermination();
+			assertFalse(task.isRunning());
+		}
+	}
+
+	@Test
+	public void testPooledEpilog() throws Exception {
+		TestTask task = new TestTask("pooled-epilog", appCtx, params(ExecutionMode.POOLED));
+		task.epilog = new CompletableFuture<>();
+		assertFalse(task.isRunning());
+		task.start();
+		assertThrows(IllegalThreadStateException.class, task::start);
+
+		task.stopTask();
+		Thread.sleep(50);
+		assertTrue(task.isRunning()); // waiting for the epilog
+		assertFalse(task.getTerminationFuture().isDone());
+
+		task.epilog.complete(null);
+		task.getTerminationFuture().get(1, TimeUnit.SECONDS);
+		assertFalse(task.isRunning());
+	}
+
+	@Test
+	public void testEventLoop() throws Exception {
+		TestTask task = new TestTask("event-loop", appCtx, params(ExecutionMode.EVENT_LOOP));
+		task.start();
+		EventLoop loop = task.getEventLoop();
+		assertNotNull(loop);
+		assertSame(loop, task.getEventloopgroup());
+
+		assertTrue(task.callLater(loop::inEventLoop).get(1, TimeUnit.SECONDS));
+
+		// both ends of a connection opened by the Task are handled by its EventLoop
+		CompletableFuture<Channel> accepted = new CompletableFuture<>();
+		ServerSocketChannel server = (ServerSocketChannel) task.callLater(() -> task.asyncOpenServerSocket("127.0.0.1", 0, new ChannelInitializer<SocketChannel>() {
+			@Override
+			protected void initChannel(SocketChannel ch) {
+				accepted.complete(ch);
+			}
+		})).get(1, TimeUnit.SECONDS).sync().channel();
+		Channel client = task.callLater(() -> task.asyncOpenClientSocket("127.0.0.1", server.localAddress().getPort(), new ChannelInitializer<SocketChannel>() {
+			@Override
+			protected void initChannel(SocketChannel ch) {
+			}
+		})).get(1, TimeUnit.SECONDS).sync().channel();
+
+		assertSame(loop, server.eventLoop());
+		assertSame(loop, client.eventLoop());
+		assertSame(loop, accepted.get(1, TimeUnit.SECONDS).eventLoop());
+
+		client.close().sync();
+		server.close().sync();
+		task.stopTask();
+		task.awaitTermination();
+		assertFalse(task.isRunning());
+	}
+
+	@Test
+	public void testVirtualThread() throws Exception {
+		if(!VirtualThreads.isSupported()) {
+			assertThrows(IllegalArgumentException.class, () -> new TestTask("virtual", appCtx, params(ExecutionMode.VIRTUAL_THREAD)));
+			return;
+		}
+
+		TestTask task = new TestTask("virtual", appCtx, params(ExecutionMode.VIRTUAL_THREAD));
+		task.start();
+		CompletableFuture<Void> last = null;
+		for(int i=0; i < 100; i++)
+			last = task.runLater(task::job);
+		last.get(1, TimeUnit.SECONDS);
+
+		assertEquals(100, task.executed);
+		assertFalse(task.wrongCurrent);
+		assertTrue(task.isRunning());
+
+		task.stopTask();
+		task.awaitTermination();
+		assertFalse(task.isRunning());
+	}
+}
@@ -0,0 +1,220 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HedgeRetryTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	static ApplicationContext appCtx;
+	static TestTask caller;
+	static TestTask worker;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+		caller = new TestTask("hedge-caller", appCtx);
+		caller.start();
+		worker = new TestTask("hedge-worker", appCtx);
+		worker.start();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static HedgePolicy hedgePolicy(String name) {
+		HedgePolicy policy = new HedgePolicy(name);
+		policy.setInitialDelay(20, TimeUnit.MILLISECONDS);
+		return policy;
+	}
+
+	@Test
+	public void testHedgeWon() throws Exception {
+		HedgePolicy policy = hedgePolicy("test-won");
+		CompletableFuture<String> silent = new CompletableFuture<>();
+
+		String result = caller.callLater(() -> Async.hedgeBefore(caller, TimeLimit.in(1000), policy, i -> {
+			if(i == 0)
+				return silent;
+			return worker.callLater(() -> "duplicate");
+		}).thenApply(r -> {
+			if(Task.current() != caller)
+				throw new IllegalStateException("not resumed on the caller");
+			return r;
+		})).get().get(1, TimeUnit.SECONDS);
+
+		assertEquals("duplicate", result);
+		assertTrue(silent.isCancelled());
+		assertEquals(1, policy.getHedgesSent());
+		assertEquals(1, policy.getHedgesWon());
+	}
+
+	@Test
+	public void testNoHedge() throws Exception {
+		HedgePolicy policy = hedgePolicy("test-fast");
+		AtomicInteger attempts = new AtomicInteger();
+
+		String result = caller.callLater(() -> Async.hedgeBefore(caller, TimeLimit.in(1000), policy, i -> {
+			attempts.incrementAndGet();
+			return worker.callLater(() -> "first");
+		})).get().get(1, TimeUnit.SECONDS);
+
+		assertEquals("first", result);
+		Thread.sleep(50); // past the delay
+		assertEquals(1, attempts.get());
+		assertEquals(0, policy.getHedgesSent());
+	}
+
+	@Test
+	public void testHedgeFailures() throws Exception {
+		HedgePolicy policy = hedgePolicy("test-failures");
+		policy.setInitialDelay(1, TimeUnit.SECONDS);
+
+		// the duplicate is sent as soon as the first request fails
+		long start = System.nanoTime();
+		try {
+			caller.callLater(() -> Async.hedgeBefore(caller, TimeLimit.in(5000), policy, i -> worker.<String>callLater(() -> {
+				throw new IOException("failure " + i);
+			}))).get().get(1, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch(ExecutionException e) {
+			assertEquals("failure 1", e.getCause().getMessage());
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, policy.getHedgesSent());
+	}
+
+	@Test
+	public void testHedgeTimeLimit() throws Exception {
+		HedgePolicy policy = hedgePolicy("test-limit");
+		CompletableFuture<String> first = new CompletableFuture<>();
+		CompletableFuture<String> second = new CompletableFuture<>();
+		try {
+			caller.callLater(() -> Async.hedgeBefore(caller, TimeLimit.in(100), policy, i -> (i == 0)? first : second)).get().get(1, TimeUnit.SECONDS);
+			fail("Should have timed out");
+		} catch(ExecutionException e) {
+			assertEquals(TimeLimitExceededException.class, e.getCause().getClass());
+		}
+		assertTrue(first.isCancelled());
+		assertTrue(second.isCancelled());
+	}
+
+	@Test
+	public void testAdaptiveDelay() {
+		HedgePolicy policy = new HedgePolicy("test-adaptive");
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(10), policy.getDelayNanos());
+
+		// 90% at 1ms, 10% at 20ms: the 95th percentile is in the slow mode
+		for(int i=0; i < 1000; i++)
+			policy.record((i % 10 == 0)? 20 : 1, TimeUnit.MILLISECONDS);
+		long delay = policy.getDelayNanos();
+		assertTrue("delay too short: " + delay, delay >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertTrue("delay too long: " + delay, delay <= TimeUnit.MILLISECONDS.toNanos(20) * 9 / 8);
+
+		// the latencies drop: the delay follows within a few windows
+		for(int i=0; i < 5000; i++)
+			policy.record(2, TimeUnit.MILLISECONDS);
+		delay = policy.getDelayNanos();
+		assertTrue("delay not adapted: " + delay, delay < TimeUnit.MILLISECONDS.toNanos(3));
+	}
+
+	@Test
+	public void testBuckets() {
+		Random random = new Random(42);
+		for(int i=0; i < 10000; i++) {
+			long value = random.nextLong() >>> (1 + random.nextInt(63));
+			int bucket = HedgePolicy.bucket(value);
+			assertTrue(value <= HedgePolicy.upperBound(bucket));
+			assertTrue(bucket == 0 || value > HedgePolicy.upperBound(bucket - 1));
+		}
+		assertEquals(Long.MAX_VALUE, HedgePolicy.upperBound(HedgePolicy.bucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testRetry() throws Exception {
+		RetryPolicy policy = new RetryPolicy("test-retry");
+		policy.setBackoff(1, TimeUnit.MILLISECONDS);
+
+		String result = caller.callLater(() -> Async.retryBefore(caller, TimeLimit.in(1000), policy, i -> worker.callLater(() -> {
+			if(i < 2)
+				throw new IOException("transient");
+			return "attempt " + i;
+		}))).get().get(1, TimeUnit.SECONDS);
+		assertEquals("attempt 2", result);
+		assertEquals(2, policy.getRetries());
+
+		// not transient
+		AtomicInteger attempts = new AtomicInteger();
+		try {
+			caller.callLater(() -> Async.retryBefore(caller, TimeLimit.in(1000), policy, i -> worker.<String>callLater(() -> {
+				attempts.incrementAndGet();
+				throw new IllegalStateException("permanent");
+			}))).get().get(1, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch(ExecutionException e) {
+			assertEquals(IllegalStateException.class, e.getCause().getClass());
+		}
+		assertEquals(1, attempts.get());
+		assertEquals(2, policy.getRetries());
+	}
+
+	@Test
+	public void testRetryWithoutBackoff() throws Exception {
+		RetryPolicy policy = new RetryPolicy("test-no-backoff");
+		policy.setBackoff(0, TimeUnit.MILLISECONDS);
+
+		// the backoff may expire on the caller before the worker completing the attempt stores its timeout
+		for(int n=0; n < 200; n++) {
+			String result = caller.callLater(() -> Async.retryBefore(caller, TimeLimit.in(1000), policy, i -> worker.callLater(() -> {
+				if(i == 0)
+					throw new IOException("transient");
+				return "attempt " + i;
+			}))).get().get(1, TimeUnit.SECONDS);
+			assertEquals("attempt 1", result);
+		}
+	}
+
+	@Test
+	public void testRetryBudget() throws Exception {
+		RetryPolicy policy = new RetryPolicy("test-budget");
+		policy.setBackoff(500, TimeUnit.MILLISECONDS);
+		policy.setMaxBackoff(500, TimeUnit.MILLISECONDS);
+		AtomicInteger attempts = new AtomicInteger();
+
+		// the backoff does not fit in the time limit
+		try {
+			caller.callLater(() -> Async.retryBefore(caller, TimeLimit.in(100), policy, i -> worker.<String>callLater(() -> {
+				attempts.incrementAndGet();
+				throw new IOException("transient");
+			}))).get().get(1, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch(ExecutionException e) {
+			assertEquals(IOException.class, e.getCause().getClass());
+		}
+		assertEquals(1, attempts.get());
+		assertEquals(0, policy.getRetries());
+	}
+}
@@ -0,0 +1,163 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+
+public class JobsQueueTest {
+
+	static final int CAPACITY = 4;
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setTaskParams("reject", taskParams(OverflowPolicy.REJECT));
+		params.setTaskParams("drop-oldest", taskParams(OverflowPolicy.DROP_OLDEST));
+		params.setTaskParams("block", taskParams(OverflowPolicy.BLOCK));
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	static TaskParams taskParams(OverflowPolicy policy) {
+		TaskParams params = new TaskParams();
+		params.setJobsCapacity(CAPACITY);
+		params.setOverflowPolicy(policy);
+		return params;
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Test
+	public void testArrayJobQueue() {
+		ArrayJobQueue<Integer> queue = new ArrayJobQueue<>(3);
+		assertEquals(4, queue.capacity());
+		for(int round=0; round < 3; round++) {
+			for(int i=0; i < 4; i++)
+				assertTrue(queue.offer(i));
+			assertFalse(queue.offer(4));
+			assertEquals(4, queue.size());
+			for(int i=0; i < 4; i++)
+				assertEquals(Integer.valueOf(i), queue.poll());
+			assertNull(queue.poll());
+			assertTrue(queue.isEmpty());
+		}
+
+		// a single slot cannot tell a written slot from a free one
+		ArrayJobQueue<Integer> single = new ArrayJobQueue<>(1);
+		assertEquals(2, single.capacity());
+		assertTrue(single.offer(0));
+		assertTrue(single.offer(1));
+		assertFalse(single.offer(2));
+		assertEquals(Integer.valueOf(0), single.poll());
+		assertEquals(Integer.valueOf(1), single.poll());
+		assertNull(single.poll());
+	}
+
+	@Test
+	public void testArrayJobQueueIterator() {
+		ArrayJobQueue<Integer> queue = new ArrayJobQueue<>(4);
+		assertEquals("[]", queue.toString());
+		for(int i=0; i < 6; i++) { // wraps around the slots
+			queue.offer(i);
+			if(i < 3)
+				queue.poll();
+		}
+		assertEquals("[3, 4, 5]", queue.toString());
+		assertTrue(queue.contains(4));
+		assertFalse(queue.contains(2));
+		assertFalse(queue.remove(Integer.valueOf(2)));
+
+		Iterator<Integer> it = queue.iterator();
+		assertEquals(Integer.valueOf(3), it.next());
+		queue.poll();
+		queue.poll(); // polled after the creation of the iterator: skipped
+		queue.offer(6);
+		assertEquals(Integer.valueOf(5), it.next());
+		assertEquals(Integer.valueOf(6), it.next());
+		assertFalse(it.hasNext());
+		assertThrows(UnsupportedOperationException.class, () -> it.remove());
+	}
+
+	@Test
+	public void testReject() throws InterruptedException, ExecutionException {
+		TestTask task = new TestTask("reject", appCtx);
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for(int i=0; i <= CAPACITY; i++) {
+			final int value = i;
+			futures.add(task.callLater(() -> value));
+		}
+
+		// the last job is rejected
+		assertTrue(futures.get(CAPACITY).isCompletedExceptionally());
+		try {
+			futures.get(CAPACITY).get();
+			fail("Should have been rejected");
+		} catch(ExecutionException e) {
+			assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+		}
+
+		task.start();
+		for(int i=0; i < CAPACITY; i++)
+			assertEquals(Integer.valueOf(i), futures.get(i).get());
+	}
+
+	@Test
+	public void testDropOldest() throws InterruptedException, ExecutionException {
+		TestTask task = new TestTask("drop-oldest", appCtx);
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for(int i=0; i <= CAPACITY; i++) {
+			final int value = i;
+			futures.add(task.callLater(() -> value));
+		}
+
+		// the first job is dropped
+		assertTrue(futures.get(0).isCompletedExceptionally());
+
+		task.start();
+		for(int i=1; i <= CAPACITY; i++)
+			assertEquals(Integer.valueOf(i), futures.get(i).get());
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		TestTask task = new TestTask("block", appCtx);
+		for(int i=0; i < CAPACITY; i++)
+			task.runLater(() -> {});
+
+		// the producer is blocked until the task starts
+		CompletableFuture<CompletableFuture<Void>> producer = CompletableFuture.supplyAsync(() -> task.runLater(() -> {}));
+		Thread.sleep(50);
+		assertFalse(producer.isDone());
+
+		task.start();
+		producer.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS);
+	}
+}
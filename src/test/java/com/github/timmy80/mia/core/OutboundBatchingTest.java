@@ -0,0 +1,161 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+
+public class OutboundBatchingTest {
+
+	static final int COUNT = 50;
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static TestTask newTask(String name, ExecutionMode mode, boolean batching) {
+		TaskParams params = new TaskParams();
+		params.setExecutionMode(mode);
+		params.setOutboundBatching(batching);
+		TestTask task = new TestTask(name, appCtx, params);
+		task.start();
+		return task;
+	}
+
+	private static void checkBatched(ExecutionMode mode) throws Exception {
+		TestTask producer = newTask("batching-producer-" + mode, mode, true);
+		TestTask a = newTask("batching-a-" + mode, ExecutionMode.THREAD, false);
+		TestTask b = newTask("batching-b-" + mode, ExecutionMode.THREAD, false);
+		final List<Integer> receivedA = new ArrayList<>();
+		final List<Integer> receivedB = new ArrayList<>();
+		final CompletableFuture<Boolean> jobDone = new CompletableFuture<>();
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+		producer.runLater(() -> {
+			for(int i=0; i < COUNT; i++) {
+				final int value = i;
+				futures.add(a.runLater(() -> {
+					if(!jobDone.isDone())
+						throw new IllegalStateException("executed before the end of the producer job");
+					receivedA.add(value);
+				}));
+				futures.add(b.runLater(() -> receivedB.add(value)));
+			}
+			Thread.sleep(50); // the destinations would have executed some jobs by now
+			jobDone.complete(true);
+		}).get(1, TimeUnit.SECONDS);
+
+		for(CompletableFuture<Void> f : futures)
+			f.get(1, TimeUnit.SECONDS);
+		List<Integer> expected = new ArrayList<>();
+		for(int i=0; i < COUNT; i++)
+			expected.add(i);
+		assertEquals(expected, receivedA);
+		assertEquals(expected, receivedB);
+
+		producer.stopTask();
+		a.stopTask();
+		b.stopTask();
+		producer.awaitTermination();
+		a.awaitTermination();
+		b.awaitTermination();
+	}
+
+	@Test
+	public void testThread() throws Exception {
+		checkBatched(ExecutionMode.THREAD);
+	}
+
+	@Test
+	public void testPooled() throws Exception {
+		checkBatched(ExecutionMode.POOLED);
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		TestTask producer = newTask("not-batching-producer", ExecutionMode.THREAD, false);
+		TestTask destination = newTask("not-batching-destination", ExecutionMode.THREAD, false);
+
+		// the job is executed while the producer job is still running
+		CompletableFuture<Void> executed = new CompletableFuture<>();
+		producer.runLater(() -> {
+			destination.runLater(() -> executed.complete(null));
+			executed.get(1, TimeUnit.SECONDS);
+		}).get(2, TimeUnit.SECONDS);
+
+		producer.stopTask();
+		destination.stopTask();
+		producer.awaitTermination();
+		destination.awaitTermination();
+	}
+
+	@Test
+	public void testOverflow() throws Exception {
+		TestTask producer = newTask("batching-overflow-producer", ExecutionMode.THREAD, true);
+		TaskParams params = new TaskParams();
+		params.setJobsCapacity(4);
+		params.setOverflowPolicy(OverflowPolicy.REJECT);
+		TestTask destination = new TestTask("batching-overflow-destination", appCtx, params); // not started: nothing is consumed
+
+		List<CompletableFuture<Integer>> futures = producer.callLater(() -> {
+			List<CompletableFuture<Integer>> submitted = new ArrayList<>();
+			for(int i=0; i < 6; i++) {
+				final int value = i;
+				submitted.add(destination.callLater(() -> value));
+			}
+			for(CompletableFuture<Integer> f : submitted)
+				assertFalse("rejected before the flush", f.isDone());
+			return submitted;
+		}).get(1, TimeUnit.SECONDS);
+
+		// the jobs beyond the capacity are rejected by the flush
+		for(int i=4; i < 6; i++) {
+			try {
+				futures.get(i).get(1, TimeUnit.SECONDS);
+				fail("Should have been rejected");
+			} catch(ExecutionException e) {
+				assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+			}
+		}
+
+		destination.start();
+		for(int i=0; i < 4; i++)
+			assertEquals(Integer.valueOf(i), futures.get(i).get(1, TimeUnit.SECONDS));
+
+		producer.stopTask();
+		destination.stopTask();
+		producer.awaitTermination();
+		destination.awaitTermination();
+	}
+}
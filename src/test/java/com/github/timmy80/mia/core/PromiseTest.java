@@ -0,0 +1,204 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+public class PromiseTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	static ApplicationContext appCtx;
+	static TestTask owner;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		TaskParams full = new TaskParams();
+		full.setJobsCapacity(2);
+		full.setOverflowPolicy(OverflowPolicy.REJECT);
+		params.setTaskParams("promise-full", full);
+		appCtx = ApplicationContext.getInstance(params);
+		owner = new TestTask("promise-owner", appCtx);
+		owner.start();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Test
+	public void testForeignCompletion() throws Exception {
+		Promise<String> promise = owner.newPromise(TimeLimit.noLimit());
+		CompletableFuture<String> result = promise.thenApply(s -> {
+			if(Task.current() != owner)
+				throw new IllegalStateException("not executed by the owner");
+			return s + "bar";
+		}).toCompletableFuture();
+
+		assertTrue(promise.complete("foo"));
+		assertFalse(promise.complete("baz"));
+		assertEquals("foobar", result.get(1, TimeUnit.SECONDS));
+		assertEquals("foo", promise.getNow(null));
+	}
+
+	@Test
+	public void testInlineContinuation() throws Exception {
+		List<String> events = owner.callLater(() -> {
+			List<String> calls = new ArrayList<>();
+			Promise<String> promise = owner.newPromise(TimeLimit.in(5000));
+			promise.thenApply(s -> s + "bar").onComplete((s, t) -> calls.add(s));
+			promise.complete("foo");
+			calls.add("completed");
+			// already completed: executed right away
+			promise.onComplete((s, t) -> calls.add("late " + s));
+			return calls;
+		}).get(1, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList("foobar", "completed", "late foo"), events);
+	}
+
+	@Test
+	public void testTimeLimit() throws Exception {
+		Promise<String> promise = owner.newPromise(TimeLimit.in(50));
+		CompletableFuture<Integer> derived = promise.thenApply(String::length).toCompletableFuture();
+		try {
+			derived.get(1, TimeUnit.SECONDS);
+			fail("Should have timed out");
+		} catch(ExecutionException e) {
+			assertEquals(TimeLimitExceededException.class, e.getCause().getClass());
+		}
+		assertTrue(promise.getCause() instanceof TimeLimitExceededException);
+		assertFalse(promise.complete("too late"));
+	}
+
+	@Test
+	public void testComposition() throws Exception {
+		Promise<String> promise = owner.newPromise(TimeLimit.noLimit());
+		CompletableFuture<String> result = promise.<String>thenCompose(s -> {
+			throw new IOException(s);
+		}).exceptionally(t -> "recovered from " + t.getMessage())
+		  .thenCompose(s -> Promise.of(owner, TimeLimit.noLimit(), CompletableFuture.completedFuture(s + "!")))
+		  .toCompletableFuture();
+
+		promise.complete("failure");
+		assertEquals("recovered from failure!", result.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testInterop() throws Exception {
+		// from a CompletableFuture
+		CompletableFuture<String> future = new CompletableFuture<>();
+		Promise<String> fromFuture = Promise.of(owner, TimeLimit.noLimit(), future);
+		future.completeExceptionally(new IOException("failed"));
+		try {
+			fromFuture.toCompletableFuture().get(1, TimeUnit.SECONDS);
+			fail("Should have failed");
+		} catch(ExecutionException e) {
+			assertEquals(IOException.class, e.getCause().getClass());
+		}
+
+		// from a Netty future
+		DefaultPromise<String> nettyPromise = new DefaultPromise<>(GlobalEventExecutor.INSTANCE);
+		Promise<String> fromNetty = Promise.of(owner, TimeLimit.noLimit(), nettyPromise);
+		nettyPromise.setSuccess("netty");
+		assertEquals("netty", fromNetty.toCompletableFuture().get(1, TimeUnit.SECONDS));
+
+		// cancelled through a CompletableFuture
+		Promise<String> promise = owner.newPromise(TimeLimit.noLimit());
+		promise.toCompletableFuture().cancel(false);
+		assertTrue(promise.isCancelled());
+		try {
+			promise.getNow(null);
+			fail("Should have been cancelled");
+		} catch(CancellationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testListenFuture() throws Exception {
+		Promise<String> promise = owner.newPromise(TimeLimit.noLimit());
+		CompletableFuture<String> listened = new CompletableFuture<>();
+		owner.listenFuture(promise, p -> listened.complete(p.getNow(null) + " on " + Task.current().getName()));
+		promise.complete("done");
+		assertEquals("done on promise-owner", listened.get(1, TimeUnit.SECONDS));
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) throws Exception {
+		try {
+			future.get(1, TimeUnit.SECONDS);
+			fail("Should have been rejected");
+		} catch(ExecutionException e) {
+			assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+		}
+	}
+
+	@Test
+	public void testRejectedContinuations() throws Exception {
+		TestTask full = new TestTask("promise-full", appCtx);
+		full.start();
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			Promise<String> promise = full.newPromise(TimeLimit.noLimit());
+			CompletableFuture<Integer> derived = promise.thenApply(String::length).toCompletableFuture();
+			full.runLater(() -> release.await());
+			while(full.getMetrics().getJobsDepth() > 0) // the blocking job is running
+				Thread.sleep(1);
+			full.runLater(() -> {});
+			full.runLater(() -> {}); // the jobs queue is full
+
+			assertTrue(promise.complete("foo")); // the rejection does not escape to the completing Thread
+			assertRejected(derived);
+		} finally {
+			release.countDown();
+		}
+		full.stopTask();
+		full.awaitTermination();
+	}
+
+	@Test
+	public void testTerminatedOwner() throws Exception {
+		TestTask terminated = new TestTask("promise-terminated", appCtx);
+		terminated.start();
+		Promise<String> promise = terminated.newPromise(TimeLimit.noLimit());
+		CompletableFuture<String> derived = promise.toCompletableFuture();
+		terminated.stopTask();
+		terminated.awaitTermination();
+
+		assertTrue(promise.complete("foo"));
+		assertRejected(derived);
+
+		// the timeout of a new promise would never expire
+		Promise<String> late = terminated.newPromise(TimeLimit.in(5000));
+		assertTrue(late.getCause() instanceof RejectedExecutionException);
+	}
+}
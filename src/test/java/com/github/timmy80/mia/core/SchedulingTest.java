@@ -0,0 +1,163 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.OverflowPolicy;
+import com.github.timmy80.mia.core.TaskParams.SchedulingPolicy;
+
+public class SchedulingTest {
+
+	public static class TestTask extends Task {
+
+		final List<String> executed = new ArrayList<>();
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+
+		public void record(String job) {
+			executed.add(job);
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TaskParams taskParams = new TaskParams();
+		taskParams.setSchedulingPolicy(SchedulingPolicy.EARLIEST_DEADLINE_FIRST);
+		taskParams.setNoLimitDelay(1000);
+
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskParams(taskParams);
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Test
+	public void testEarliestDeadlineFirst() throws Exception {
+		TestTask task = new TestTask("edf", appCtx);
+		task.runLater(task::record, "nolimit-1");
+		task.runLater(task::record, "nolimit-2");
+		CompletableFuture<Void> last = task.runBefore(TimeLimit.in(60000), task::record, "60s");
+		task.runBefore(TimeLimit.in(500), task::record, "500ms");
+		task.runLater(task::record, "nolimit-3");
+
+		task.start();
+		last.get();
+
+		assertEquals(Arrays.asList("500ms", "nolimit-1", "nolimit-2", "nolimit-3", "60s"), task.executed);
+		assertEquals(2, task.getMetrics().getJobsReordered());
+	}
+
+	@Test
+	public void testEarliestDeadlineFirstBounded() throws Exception {
+		TaskParams params = new TaskParams();
+		params.setSchedulingPolicy(SchedulingPolicy.EARLIEST_DEADLINE_FIRST);
+		params.setJobsCapacity(4);
+		params.setOverflowPolicy(OverflowPolicy.REJECT);
+		TestTask task = new TestTask("edf-bounded", appCtx, params);
+		Semaphore started = new Semaphore(0);
+		Semaphore permits = new Semaphore(0);
+		Async.ThrowingRunnable blocking = () -> {
+			started.release();
+			permits.acquire();
+		};
+		task.start();
+
+		CompletableFuture<Void> last;
+		try {
+			task.runLater(blocking);
+			started.acquire();
+			for(int i=0; i < 4; i++)
+				task.runLater(blocking);
+
+			// the scheduler holds the 4 queued jobs and executes the first one
+			permits.release();
+			started.acquire();
+			for(int i=0; i < 4; i++)
+				task.runLater(blocking);
+
+			// the scheduler is full: a single job leaves the queue, which only has room for one more job
+			permits.release();
+			started.acquire();
+			assertEquals(6, task.getMetrics().getJobsDepth()); // 3 held, 3 queued
+			last = task.runLater(blocking);
+			assertFalse(last.isCompletedExceptionally());
+			CompletableFuture<Void> rejected = task.runLater(blocking);
+			assertTrue(rejected.isCompletedExceptionally());
+			assertEquals(RejectedExecutionException.class, rejected.handle((r, e) -> e).get().getClass());
+		} finally {
+			permits.release(100);
+		}
+		last.get();
+		assertEquals(0, task.getMetrics().getJobsDepth());
+		task.stopTask();
+	}
+
+	@Test
+	public void testShedExpiredJobs() throws Exception {
+		TestTask task = new TestTask("shed", appCtx, new TaskParams());
+		List<CompletableFuture<Void>> expired = new ArrayList<>();
+		for(int i=0; i < 10; i++)
+			expired.add(task.runBefore(TimeLimit.in(1), task::record, "expired"));
+		CompletableFuture<Void> last = task.runLater(task::record, "nolimit");
+
+		Thread.sleep(10); // let the jobs expire
+		task.start();
+		last.get();
+
+		assertEquals(Arrays.asList("nolimit"), task.executed);
+		assertEquals(10, task.getMetrics().getJobsShed());
+		Throwable shared = null;
+		for(CompletableFuture<Void> f : expired) {
+			Throwable cause = f.handle((r, e) -> e).get();
+			assertTrue(cause instanceof TimeLimitExceededException);
+			assertEquals(0, cause.getStackTrace().length);
+			assertTrue(shared == null || shared == cause);
+			shared = cause;
+		}
+	}
+
+	@Test
+	public void testIterationBudget() throws Exception {
+		TaskParams params = new TaskParams();
+		params.setMaxJobsPerIteration(10);
+		TestTask task = new TestTask("budget", appCtx, params);
+		CompletableFuture<Void> last = null;
+		for(int i=0; i < 100; i++)
+			last = task.runLater(task::record, "job");
+
+		task.start();
+		last.get();
+
+		assertEquals(100, task.executed.size());
+		assertTrue(task.getMetrics().getBudgetExhausted() >= 9);
+		assertTrue(task.getMetrics().getIterations() >= 9);
+		assertTrue(task.getLastScanTime() > 0);
+	}
+}
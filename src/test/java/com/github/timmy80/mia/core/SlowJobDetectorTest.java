@@ -0,0 +1,149 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+
+public class SlowJobDetectorTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	public static class SlowTerminal extends Terminal<TestTask> {
+
+		public class Working extends TerminalState {
+			@Override
+			protected void eventEntry() {
+			}
+		}
+
+		public SlowTerminal(TestTask task) {
+			super(task);
+		}
+
+		public Callable<Void> slowJob() {
+			return () -> {
+				if(isTerminated())
+					return null;
+				Thread.sleep(300);
+				return null;
+			};
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static TestTask newTask(String name, ExecutionMode mode) {
+		TaskParams params = new TaskParams();
+		params.setExecutionMode(mode);
+		params.setSlowJobThreshold(50, TimeUnit.MILLISECONDS);
+		return new TestTask(name, appCtx, params);
+	}
+
+	@Test
+	public void testSlowJob() throws Exception {
+		TestTask task = newTask("slow-job", ExecutionMode.THREAD);
+		task.start();
+
+		for(int i=0; i < 1000; i++)
+			task.runLater(() -> {});
+		task.runLater(() -> Thread.sleep(300)).get();
+		assertEquals(1, task.getMetrics().getSlowJobs()); // once per incident
+
+		task.runLater(() -> Thread.sleep(300)).get();
+		assertEquals(2, task.getMetrics().getSlowJobs());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testPooled() throws Exception {
+		TestTask task = newTask("slow-job-pooled", ExecutionMode.POOLED);
+		task.start();
+
+		task.runLater(() -> Thread.sleep(300)).get();
+		assertEquals(1, task.getMetrics().getSlowJobs());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testOrigin() throws Exception {
+		TestTask task = newTask("slow-job-origin", ExecutionMode.THREAD);
+		task.start();
+
+		SlowTerminal terminal = task.callLater(() -> {
+			SlowTerminal t = new SlowTerminal(task);
+			t.nextState(t.new Working());
+			return t;
+		}).get();
+
+		AsyncJob<Void> job = new AsyncJob.Call<>(TimeLimit.noLimit(), terminal.slowJob());
+		assertSame(terminal, SlowJobDetector.findOrigin(job.target(), 0));
+		assertEquals(SlowTerminal.class.getName() + "$$Lambda", SlowJobDetector.jobClass(job.target()));
+		assertNull(SlowJobDetector.findOrigin((Callable<Void>) () -> null, 0));
+		Callable<Void> user = terminal.slowJob();
+		assertSame(user, SlowJobDetector.unwrap(new AsyncJob.Call<>(TimeLimit.noLimit(), () -> user.call()).target()));
+
+		terminal.callLater(terminal.slowJob()).get();
+		assertEquals(1, task.getMetrics().getSlowJobs());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testPeriod() throws Exception {
+		SlowJobDetector detector = SlowJobDetector.getInstance();
+		TestTask slow = newTask("slow-job-period", ExecutionMode.THREAD);
+		TaskParams params = new TaskParams();
+		params.setSlowJobThreshold(4, TimeUnit.MILLISECONDS);
+		TestTask fast = new TestTask("slow-job-period-fast", appCtx, params);
+		slow.start();
+		fast.start();
+		slow.runLater(() -> {}).get();
+		fast.runLater(() -> {}).get();
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(1), detector.getPeriodNanos());
+
+		fast.stopTask();
+		fast.awaitTermination();
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(50) / 4, detector.getPeriodNanos()); // back to the lowest remaining threshold
+
+		slow.stopTask();
+		slow.awaitTermination();
+		assertEquals(Long.MAX_VALUE, detector.getPeriodNanos());
+		Thread sampler = Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals("mia-slow-job-detector")).findAny().get();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(sampler.getState() != Thread.State.WAITING && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertEquals(Thread.State.WAITING, sampler.getState()); // parked without timeout
+	}
+}
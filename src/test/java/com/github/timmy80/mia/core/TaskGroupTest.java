@@ -0,0 +1,139 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TaskGroupTest {
+
+	public static class ShardTask extends Task {
+
+		/**
+		 * Last sequence number seen per key. Only accessed by this shard.
+		 */
+		final HashMap<String, Integer> lastSeq = new HashMap<>();
+		boolean outOfOrder = false;
+		int executed = 0;
+
+		public ShardTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+
+		public void record(String key, int seq) {
+			Integer last = lastSeq.put(key, seq);
+			if(last != null && last != seq - 1)
+				outOfOrder = true;
+			executed++;
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setDefaultTaskGroupShards(2);
+		params.setTaskGroupShards("sessions", 4);
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Test
+	public void testKeyAffinity() throws Exception {
+		TaskGroup<ShardTask> group = new TaskGroup<>("sessions", appCtx, ShardTask::new);
+		assertEquals(4, group.size());
+		assertSame(group, appCtx.getTaskGroup("sessions"));
+		assertEquals("sessions-3", group.getShard(3).getName());
+		group.start();
+
+		List<CompletableFuture<Void>> calls = new ArrayList<>();
+		for(int seq=0; seq < 100; seq++) {
+			for(int k=0; k < 50; k++) {
+				String key = "key-" + k;
+				final int s = seq;
+				calls.add(group.runLater(key, () -> ((ShardTask) Task.current()).record(key, s)));
+			}
+		}
+		CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+		int total = 0;
+		for(ShardTask shard : group.getShards()) {
+			assertFalse(shard.outOfOrder);
+			assertTrue(shard.executed > 0); // every shard gets some keys
+			for(String key : shard.lastSeq.keySet())
+				assertSame(shard, group.shard(key)); // a key is only executed by its shard
+			total += shard.executed;
+		}
+		assertEquals(5000, total);
+
+		CompletableFuture<Void> epilog = new CompletableFuture<>();
+		group.registerEpilog(epilog);
+		group.stop();
+		Thread.sleep(50);
+		assertTrue(group.isRunning());
+		epilog.complete(null);
+		group.getTerminationFuture().get(1, TimeUnit.SECONDS);
+		assertFalse(group.getShard(0).isRunning());
+	}
+
+	@Test
+	public void testDefaultShards() throws Exception {
+		TaskGroup<ShardTask> group = new TaskGroup<>("default-group", appCtx, ShardTask::new);
+		assertEquals(2, group.size());
+		assertThrows(IllegalArgumentException.class, () -> new TaskGroup<>("default-group", appCtx, ShardTask::new));
+	}
+
+	@Test
+	public void testNameReleased() throws Exception {
+		// a shard name clash: the group and the shards created so far are unregistered
+		new ShardTask("clash-1", appCtx);
+		assertThrows(IllegalArgumentException.class, () -> new TaskGroup<>("clash", appCtx, ShardTask::new));
+		assertNull(appCtx.getTaskGroup("clash"));
+		new ShardTask("clash-0", appCtx);
+
+		// all the shards have ended
+		TaskGroup<ShardTask> group = new TaskGroup<>("released", appCtx, ShardTask::new);
+		group.start();
+		group.stop();
+		group.getTerminationFuture().get(1, TimeUnit.SECONDS);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while(appCtx.getTaskGroup("released") != null && System.nanoTime() - deadline < 0)
+			Thread.sleep(1);
+		assertNull(appCtx.getTaskGroup("released"));
+		assertEquals(2, new TaskGroup<>("released", appCtx, ShardTask::new).size());
+	}
+
+	@Test
+	public void testJumpConsistentHash() {
+		int moved = 0;
+		for(long key=0; key < 10000; key++) {
+			int before = TaskGroup.jumpConsistentHash(key, 10);
+			int after = TaskGroup.jumpConsistentHash(key, 11);
+			assertTrue(before >= 0 && before < 10);
+			assertEquals(before, TaskGroup.jumpConsistentHash(key, 10)); // stable
+			if(before != after) {
+				assertEquals(10, after); // a key only moves to the new shard
+				moved++;
+			}
+		}
+		// about 1/11 of the keys move
+		assertTrue(moved > 700 && moved < 1100);
+	}
+}
@@ -0,0 +1,125 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.prometheus.client.CollectorRegistry;
+
+public class TaskMetricsTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		TaskParams params = new TaskParams();
+		params.setMetricsSampling(1);
+		TestTask task = new TestTask("metrics", appCtx, params);
+
+		CompletableFuture<Void> last = null;
+		for(int i=0; i < 100; i++)
+			last = task.runLater(() -> Thread.sleep(0, 1000));
+		assertEquals(100, task.getMetrics().getJobsDepth());
+		assertEquals(100.0, CollectorRegistry.defaultRegistry.getSampleValue("task_jobs_depth", new String[] {"task"}, new String[] {"metrics"}), 0);
+
+		task.start();
+		last.get();
+		task.runLater(() -> {}).get(); // the metrics of the previous jobs are recorded
+		awaitIdle(task);
+		task.runLater(() -> {}).get(); // wakes up the idle Task
+
+		TaskMetrics metrics = task.getMetrics();
+		assertEquals(0, metrics.getJobsDepth());
+		assertTrue(metrics.getSampledJobs() >= 100);
+		assertTrue(metrics.getWakeups() >= 1);
+		assertTrue(CollectorRegistry.defaultRegistry.getSampleValue("task_job_queue_wait_seconds_count", new String[] {"task"}, new String[] {"metrics"}) >= 100);
+
+		String[] perTask = new String[] {"task_job_queue_wait_seconds_count", "task_job_execution_seconds_count", "task_wakeups_total",
+				"task_iteration_duration_seconds_count", "task_iteration_jobs_count", "task_jobs_reordered_total", "task_jobs_shed_total",
+				"task_iteration_budget_exhausted_total", "task_slow_jobs_total"};
+		for(String name : perTask)
+			assertNotNull(name, CollectorRegistry.defaultRegistry.getSampleValue(name, new String[] {"task"}, new String[] {"metrics"}));
+
+		task.stopTask();
+		task.awaitTermination();
+		assertNull(CollectorRegistry.defaultRegistry.getSampleValue("task_jobs_depth", new String[] {"task"}, new String[] {"metrics"}));
+		for(String name : perTask) // released with the Task
+			assertNull(name, CollectorRegistry.defaultRegistry.getSampleValue(name, new String[] {"task"}, new String[] {"metrics"}));
+		assertTrue(metrics.getSampledJobs() >= 100);
+	}
+
+	/**
+	 * Wait until the Thread of a Task is waiting for events
+	 */
+	private static void awaitIdle(Task task) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(task.getState() != Thread.State.TIMED_WAITING) {
+			assertTrue("task not idle", System.nanoTime() - deadline < 0);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void testTimerWakeups() throws Exception {
+		TestTask task = new TestTask("metrics-timer", appCtx, new TaskParams());
+		task.start();
+		task.runLater(() -> {}).get();
+
+		// timer ticks are not counted as wakeups
+		CountDownLatch fired = new CountDownLatch(5);
+		task.runLater(() -> {
+			for(int i=1; i <= 5; i++)
+				task.newTimeout(20 * i, TimeUnit.MILLISECONDS, t -> fired.countDown());
+		}).get();
+		awaitIdle(task);
+		long wakeups = task.getMetrics().getWakeups();
+		assertTrue(fired.await(5, TimeUnit.SECONDS));
+		assertEquals(wakeups, task.getMetrics().getWakeups());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testSamplingDisabled() throws Exception {
+		TaskParams params = new TaskParams();
+		params.setMetricsSampling(0);
+		TestTask task = new TestTask("metrics-disabled", appCtx, params);
+		task.start();
+		for(int i=0; i < 100; i++)
+			task.runLater(() -> {});
+		task.runLater(() -> {}).get();
+		task.runLater(() -> {}).get();
+
+		assertEquals(0, task.getMetrics().getSampledJobs());
+		assertTrue(task.getMetrics().getIterations() >= 1);
+	}
+}
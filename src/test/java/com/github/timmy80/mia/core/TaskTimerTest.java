@@ -0,0 +1,182 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.timmy80.mia.core.TaskParams.ExecutionMode;
+
+import io.netty.util.Timeout;
+
+public class TaskTimerTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	public static class TimerTerminal extends Terminal<TestTask> {
+
+		public class Waiting extends TerminalState {
+			@Override
+			protected void eventEntry() {
+			}
+		}
+
+		public TimerTerminal(TestTask task) {
+			super(task);
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static TestTask newTask(String name, ExecutionMode mode, long tickMicros) {
+		TaskParams params = new TaskParams();
+		params.setExecutionMode(mode);
+		params.setTimerTick(tickMicros, TimeUnit.MICROSECONDS);
+		TestTask task = new TestTask(name, appCtx, params);
+		task.start();
+		return task;
+	}
+
+	private static void checkExpiresOnTask(TestTask task) throws Exception {
+		CompletableFuture<Long> fired = new CompletableFuture<>();
+		final long begin = System.nanoTime();
+		Timeout timeout = task.newTimeout(20, t -> {
+			if(Task.current() == task)
+				fired.complete(System.nanoTime() - begin);
+			else
+				fired.completeExceptionally(new IllegalStateException("not on the Task"));
+		});
+		long elapsed = fired.get(1, TimeUnit.SECONDS);
+		assertTrue("expired too early", elapsed >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertTrue(timeout.isExpired());
+		assertSame(task.getTimer(), timeout.timer());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testThread() throws Exception {
+		checkExpiresOnTask(newTask("timer-thread", ExecutionMode.THREAD, 1000));
+	}
+
+	@Test
+	public void testPooled() throws Exception {
+		checkExpiresOnTask(newTask("timer-pooled", ExecutionMode.POOLED, 1000));
+	}
+
+	@Test
+	public void testEventLoop() throws Exception {
+		checkExpiresOnTask(newTask("timer-event-loop", ExecutionMode.EVENT_LOOP, 1000));
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+		// 100us ticks: delays up to 1.5s span three levels of the wheel
+		TestTask task = newTask("timer-order", ExecutionMode.THREAD, 100);
+		final int count = 300;
+		final List<long[]> expired = new ArrayList<>();
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		final Random random = new Random(42);
+
+		task.runLater(() -> {
+			for(int i=0; i < count; i++) {
+				final long delay = TimeUnit.MILLISECONDS.toNanos(random.nextInt(1500));
+				final long[] deadline = new long[2]; // the deadline is within these bounds
+				deadline[0] = System.nanoTime() + delay;
+				task.newTimeout(delay, TimeUnit.NANOSECONDS, t -> {
+					assertTrue("expired too early", System.nanoTime() >= deadline[0]);
+					expired.add(deadline);
+					if(expired.size() == count)
+						done.complete(null);
+				});
+				deadline[1] = System.nanoTime() + delay;
+			}
+		}).get();
+
+		done.get(5, TimeUnit.SECONDS);
+		// the deadlines within a tick expire in any order
+		for(int i=1; i < count; i++)
+			assertTrue("expired out of order", expired.get(i - 1)[0] - expired.get(i)[1] < TimeUnit.MICROSECONDS.toNanos(100));
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		TestTask task = newTask("timer-cancel", ExecutionMode.THREAD, 1000);
+		CompletableFuture<Void> cancelled = new CompletableFuture<>();
+		CompletableFuture<Void> fired = new CompletableFuture<>();
+
+		// cancelled by another Thread
+		Timeout foreign = task.newTimeout(30, t -> cancelled.complete(null));
+		assertTrue(foreign.cancel());
+		assertFalse(foreign.cancel());
+		assertTrue(foreign.isCancelled());
+
+		// cancelled by the Task
+		Timeout owned = task.callLater(() -> {
+			Timeout t = task.newTimeout(30, x -> cancelled.complete(null));
+			t.cancel();
+			return t;
+		}).get();
+		assertTrue(owned.isCancelled());
+
+		task.newTimeout(60, t -> fired.complete(null));
+		fired.get(1, TimeUnit.SECONDS);
+		assertFalse(cancelled.isDone());
+		assertFalse(foreign.isExpired());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+
+	@Test
+	public void testTerminated() throws Exception {
+		TestTask task = newTask("timer-terminal", ExecutionMode.THREAD, 1000);
+		CompletableFuture<Void> terminalFired = new CompletableFuture<>();
+		CompletableFuture<Void> fired = new CompletableFuture<>();
+
+		task.runLater(() -> {
+			TimerTerminal terminal = new TimerTerminal(task);
+			terminal.nextState(terminal.new Waiting());
+			terminal.newTimeout(20, t -> terminalFired.complete(null));
+			terminal.terminate();
+		}).get();
+
+		task.newTimeout(50, t -> fired.complete(null));
+		fired.get(1, TimeUnit.SECONDS);
+		assertFalse("timeout of a terminated Terminal", terminalFired.isDone());
+
+		task.stopTask();
+		task.awaitTermination();
+	}
+}
@@ -2,6 +2,10 @@ package com.github.timmy80.mia.core;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.lang3.NotImplementedException;
@@ -13,6 +17,7 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.github.timmy80.mia.core.Async.ThrowingRunnable;
 
 public class TerminalEventsTest {
 	
@@ -145,4 +150,73 @@ public class TerminalEventsTest {
 		});
 	}
 
+	@Test
+	public void testPost() throws InterruptedException, ExecutionException {
+		TestTerminal t = task.callLater(task::createTestTerminal).get();
+		t.runLater(t::nextState, t.s1).get();
+		
+		List<String> calls = new ArrayList<>();
+		t.post(calls::add, "terminal");
+		t.s2.post(calls::add, "active state");
+		t.s1.post(calls::add, "inactive state"); // dropped
+		t.s2.runLater(t.s2::callMeOnce).get();
+		t.post(calls::add, "terminated"); // dropped
+		task.runLater(() -> {}).get();
+		
+		assertEquals(Arrays.asList("terminal", "active state"), task.callLater(() -> new ArrayList<>(calls)).get());
+	}
+	
+	@Test
+	public void testNow() throws InterruptedException, ExecutionException {
+		TestTerminal t = task.callLater(task::createTestTerminal).get();
+		t.runLater(t::nextState, t.s1).get();
+		assertFalse(task.inTask());
+		
+		List<String> calls = new ArrayList<>();
+		task.runLater(() -> {
+			assertTrue(task.inTask());
+			task.runLater(calls::add, "queued");
+			assertTrue(task.runNow(() -> calls.add("task")).isDone()); // executed before the queued job
+			assertTrue(t.runNow(() -> calls.add("terminal")).isDone());
+			assertTrue(t.s2.runNow(() -> calls.add("active state")).isDone());
+			assertTrue(t.s1.runNow(() -> calls.add("inactive state")).isCompletedExceptionally());
+		}).get();
+		task.runLater(() -> {}).get();
+		assertEquals(Arrays.asList("task", "terminal", "active state", "queued"), task.callLater(() -> new ArrayList<>(calls)).get());
+		
+		// called from another Thread: queued
+		assertEquals("later", task.callNow(() -> "later").get());
+		
+		t.s2.runLater(t.s2::callMeOnce).get();
+		assertThrows(TerminatedTerminalException.class, () -> {
+			try {
+				task.callLater(() -> t.runNow(t::iWillNeverBeCalled)).get().get();
+			} catch (ExecutionException e) {
+				throw e.getCause();
+			}
+		});
+	}
+	
+	@Test
+	public void testNowDepth() throws InterruptedException, ExecutionException {
+		final int maxDepth = task.getParams().getMaxInlineDepth();
+		final int[] depth = new int[2]; // current, max
+		final int[] runs = new int[1];
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		
+		// a job recursing through inline calls is queued beyond the max depth
+		ThrowingRunnable[] recurse = new ThrowingRunnable[1];
+		recurse[0] = () -> {
+			depth[1] = Math.max(depth[1], ++depth[0]);
+			if(++runs[0] < 3 * maxDepth)
+				task.runNow(recurse[0]);
+			else
+				done.complete(null);
+			depth[0]--;
+		};
+		task.runLater(recurse[0]).get();
+		done.get();
+		assertEquals(maxDepth + 1, task.callLater(() -> depth[1]).get().intValue());
+	}
+
 }
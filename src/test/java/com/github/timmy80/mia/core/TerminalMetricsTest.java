@@ -0,0 +1,113 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.prometheus.client.CollectorRegistry;
+
+public class TerminalMetricsTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx, TaskParams params) throws IllegalArgumentException {
+			super(name, appCtx, params);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	public static class MetricsTerminal extends Terminal<TestTask> {
+
+		public class Connecting extends TerminalState {
+			@Override
+			protected void eventEntry() {
+			}
+		}
+
+		public class Connected extends TerminalState {
+			@Override
+			protected void eventEntry() {
+			}
+		}
+
+		public MetricsTerminal(TestTask task) {
+			super(task);
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		appCtx = ApplicationContext.getInstance(new ApplicationContextParams());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private static double value(String name, String... labels) {
+		String[] names = (labels.length == 3)? new String[] {"terminal", "from", "to"} : new String[] {"terminal", "state"};
+		Double value = CollectorRegistry.defaultRegistry.getSampleValue(name, names, labels);
+		return (value == null)? 0 : value;
+	}
+
+	@Test
+	public void testTransitions() throws Exception {
+		TaskParams params = new TaskParams();
+		params.setTerminalMetrics(true);
+		TestTask task = new TestTask("terminal-metrics", appCtx, params);
+		task.start();
+
+		task.callLater(() -> {
+			List<MetricsTerminal> terminals = new ArrayList<>();
+			for(int i=0; i < 100; i++) {
+				MetricsTerminal t = new MetricsTerminal(task);
+				t.nextState(t.new Connecting());
+				terminals.add(t);
+			}
+			assertEquals(100, value("terminal_state_live", "MetricsTerminal", "Connecting"), 0);
+
+			for(MetricsTerminal t : terminals)
+				t.nextState(t.new Connected());
+			for(int i=0; i < 40; i++)
+				terminals.get(i).terminate();
+			return null;
+		}).get();
+
+		assertEquals(100, value("terminal_state_transitions_total", "MetricsTerminal", "InitialState", "Connecting"), 0);
+		assertEquals(100, value("terminal_state_transitions_total", "MetricsTerminal", "Connecting", "Connected"), 0);
+		assertEquals(40, value("terminal_state_transitions_total", "MetricsTerminal", "Connected", TerminalMetrics.TERMINATED), 0);
+		assertEquals(0, value("terminal_state_live", "MetricsTerminal", "InitialState"), 0);
+		assertEquals(0, value("terminal_state_live", "MetricsTerminal", "Connecting"), 0);
+		assertEquals(60, value("terminal_state_live", "MetricsTerminal", "Connected"), 0);
+		assertEquals(100, value("terminal_state_dwell_seconds_count", "MetricsTerminal", "Connecting"), 0);
+		assertEquals(40, value("terminal_state_dwell_seconds_count", "MetricsTerminal", "Connected"), 0);
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		TestTask task = new TestTask("terminal-no-metrics", appCtx, new TaskParams());
+		task.start();
+
+		double before = value("terminal_state_transitions_total", "MetricsTerminal", "InitialState", "Connecting");
+		task.callLater(() -> {
+			MetricsTerminal t = new MetricsTerminal(task);
+			t.nextState(t.new Connecting());
+			t.terminate();
+			return null;
+		}).get();
+
+		assertEquals(before, value("terminal_state_transitions_total", "MetricsTerminal", "InitialState", "Connecting"), 0);
+	}
+}
@@ -0,0 +1,96 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TerminalRegistryTest {
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name) throws IllegalArgumentException {
+			super(name);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+	}
+
+	public static class IdTerminal extends Terminal<TestTask> {
+
+		private String id = null;
+
+		public IdTerminal(TestTask task) {
+			super(task);
+		}
+
+		public void open(String id) {
+			this.id = id;
+			nextState(new TerminalState() {
+				@Override
+				protected void eventEntry() {
+				}
+			});
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+	}
+
+	public static TestTask task = null;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		task = new TestTask("TEST-TERM-REGISTRY");
+		task.start();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		task.stopTask();
+		task.join();
+	}
+
+	@Test
+	public void testRegisterUnregister() throws Exception {
+		task.callLater(() -> {
+			int before = task.getTerminalCount();
+			List<IdTerminal> terminals = new ArrayList<>();
+			for(int i=0; i < 10000; i++) {
+				IdTerminal t = new IdTerminal(task);
+				t.open("t-" + i);
+				terminals.add(t);
+			}
+			assertEquals(before + 10000, task.getTerminalCount());
+			assertSame(terminals.get(1234), task.findTerminal("t-1234"));
+
+			// terminate every other terminal
+			for(int i=0; i < terminals.size(); i+=2)
+				terminals.get(i).terminate();
+			assertEquals(before + 5000, task.getTerminalCount());
+			assertNull(task.findTerminal("t-1234"));
+			assertSame(terminals.get(1235), task.findTerminal("t-1235"));
+
+			// freed slots are reused
+			IdTerminal reused = new IdTerminal(task);
+			assertTrue(reused.slot < 10000);
+			reused.open("reused");
+			assertSame(reused, task.findTerminal("reused"));
+
+			reused.terminate();
+			for(int i=1; i < terminals.size(); i+=2)
+				terminals.get(i).terminate();
+			assertEquals(before, task.getTerminalCount());
+			assertNull(task.findTerminal("t-1235"));
+			return null;
+		}).get();
+	}
+}
@@ -0,0 +1,175 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WaitStrategyTest {
+
+	static final int ROUND_TRIPS = 200;
+
+	public static class TestTask extends Task {
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+
+		public long nanoTime() {
+			return System.nanoTime();
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setTaskParams("blocking", taskParams(BlockingWaitStrategy::new));
+		params.setTaskParams("spin-yield-park", taskParams(SpinYieldParkWaitStrategy::new));
+		params.setTaskParams("busy-spin", taskParams(BusySpinWaitStrategy::new));
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	static TaskParams taskParams(Supplier<WaitStrategy> waitStrategy) {
+		TaskParams params = new TaskParams();
+		params.setWaitStrategy(waitStrategy);
+		return params;
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+	}
+
+	private void roundTrips(String name, Class<? extends WaitStrategy> expected) throws InterruptedException, ExecutionException, TimeoutException {
+		TestTask task = new TestTask(name, appCtx);
+		assertEquals(expected, task.getWaitStrategy().getClass());
+		task.start();
+
+		long total = 0;
+		for(int i=0; i < ROUND_TRIPS; i++) {
+			long begin = System.nanoTime();
+			long executed = task.callLater(task::nanoTime).get(1, TimeUnit.SECONDS);
+			total += executed - begin;
+		}
+		System.out.println(String.format("%s: average wakeup latency %dus", task.getWaitStrategy(), TimeUnit.NANOSECONDS.toMicros(total / ROUND_TRIPS)));
+
+		task.stopTask();
+		task.join(1000);
+		assertFalse(task.isAlive());
+	}
+
+	@Test
+	public void testBlocking() throws InterruptedException, ExecutionException, TimeoutException {
+		roundTrips("blocking", BlockingWaitStrategy.class);
+	}
+
+	@Test
+	public void testSpinYieldPark() throws InterruptedException, ExecutionException, TimeoutException {
+		roundTrips("spin-yield-park", SpinYieldParkWaitStrategy.class);
+	}
+
+	@Test
+	public void testBusySpin() throws InterruptedException, ExecutionException, TimeoutException {
+		roundTrips("busy-spin", BusySpinWaitStrategy.class);
+	}
+
+	/**
+	 * Only a post consumed after waiting is reported as a wakeup
+	 */
+	private void wokenUp(WaitStrategy strategy) throws InterruptedException {
+		assertFalse(strategy.await(TimeUnit.MILLISECONDS.toNanos(1))); // timeout
+
+		strategy.signal(); // posted before waiting
+		assertFalse(strategy.await(TimeUnit.SECONDS.toNanos(1)));
+
+		Thread producer = new Thread(() -> {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+			strategy.signal();
+		}, "producer");
+		producer.start();
+		assertTrue(strategy.await(TimeUnit.SECONDS.toNanos(5)));
+		producer.join();
+	}
+
+	@Test
+	public void testWokenUp() throws InterruptedException {
+		wokenUp(new BlockingWaitStrategy());
+		wokenUp(new SpinYieldParkWaitStrategy(10, 1));
+		wokenUp(new BusySpinWaitStrategy());
+	}
+
+	/**
+	 * Producers post events while the consumer keeps going to sleep. A lost wakeup leaves the event posted, so the following
+	 * signals are coalesced with it and the consumer sleeps until its timeout.
+	 */
+	private void noLostWakeup(WaitStrategy strategy) throws InterruptedException {
+		final int producers = 4;
+		final int signals = 20000;
+		final AtomicLong produced = new AtomicLong();
+		final AtomicLong consumed = new AtomicLong();
+
+		Thread consumer = new Thread(() -> {
+			try {
+				long seen = 0;
+				while(seen < producers * signals) {
+					strategy.await(TimeUnit.SECONDS.toNanos(30));
+					seen = produced.get();
+					consumed.set(seen);
+				}
+			} catch (InterruptedException e) {
+				// stopped
+			}
+		}, "consumer");
+		consumer.start();
+
+		List<Thread> threads = new ArrayList<>();
+		for(int p=0; p < producers; p++) {
+			Thread producer = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for(int i=0; i < signals; i++) {
+					produced.incrementAndGet();
+					strategy.signal();
+					if(random.nextInt(64) == 0)
+						LockSupport.parkNanos(random.nextInt(50000)); // let the consumer sleep
+				}
+			}, "producer-" + p);
+			threads.add(producer);
+			producer.start();
+		}
+		for(Thread producer : threads)
+			producer.join();
+
+		consumer.join(10000);
+		consumer.interrupt();
+		assertEquals(strategy + " lost a wakeup", producers * signals, consumed.get());
+	}
+
+	@Test
+	public void testBlockingNoLostWakeup() throws InterruptedException {
+		noLostWakeup(new BlockingWaitStrategy());
+	}
+
+	@Test
+	public void testSpinYieldParkNoLostWakeup() throws InterruptedException {
+		noLostWakeup(new SpinYieldParkWaitStrategy(10, 1));
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.github.timmy80.mia.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WorkStealingStageTest {
+
+	public static class TestTask extends Task {
+
+		int delivered = 0;
+		boolean wrongThread = false;
+
+		public TestTask(String name, ApplicationContext appCtx) throws IllegalArgumentException {
+			super(name, appCtx);
+		}
+
+		@Override
+		public void eventStartTask() {
+		}
+
+		/**
+		 * Submit CPU bound jobs to the stage and count the results on this Task
+		 */
+		public CompletableFuture<Void> burst(int count) {
+			WorkStealingStage stage = getAppCtx().getWorkStealingStage();
+			List<CompletableFuture<Integer>> results = new ArrayList<>();
+			for(int i=0; i < count; i++) {
+				final int n = i;
+				CompletableFuture<Integer> result = stage.callLater(() -> {
+					if(Task.current() != null)
+						throw new IllegalStateException("executed by a Task");
+					return Integer.toBinaryString(n).hashCode();
+				});
+				result.thenAccept(r -> {
+					if(Thread.currentThread() != this)
+						wrongThread = true;
+					delivered++;
+				});
+				results.add(result);
+			}
+			return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]));
+		}
+	}
+
+	static ApplicationContext appCtx;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ApplicationContextParams params = new ApplicationContextParams();
+		params.setWorkStealingThreads(4);
+		appCtx = ApplicationContext.getInstance(params);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		appCtx.stop();
+		appCtx.join();
+		assertFalse(appCtx.getWorkStealingStage().isActive());
+	}
+
+	@Test
+	public void testDeliveryOnSubmitter() throws Exception {
+		TestTask task = new TestTask("ws-submitter", appCtx);
+		task.start();
+
+		task.callLater(() -> task.burst(1000)).get().get(5, TimeUnit.SECONDS);
+		assertEquals(1000, (int) task.callLater(() -> task.delivered).get());
+		assertFalse(task.wrongThread);
+		assertEquals(4, appCtx.getWorkStealingStage().getParallelism());
+	}
+
+	@Test
+	public void testTimeLimit() throws Exception {
+		WorkStealingStage stage = appCtx.getWorkStealingStage();
+
+		// not submitted by a Task: completed by the worker
+		assertEquals(42, (int) stage.callLater(() -> 42).get());
+
+		try {
+			stage.runBefore(TimeLimit.in(50), () -> {
+				CancellationToken token = CancellationToken.current();
+				for(int i=0; i < 1000; i++) {
+					token.throwIfCancellationRequested();
+					Thread.sleep(1);
+				}
+			}).get();
+			fail("TimeLimitExceededException expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeLimitExceededException);
+		}
+
+		// the worker is not interrupted by the TimeLimit
+		assertEquals(43, (int) stage.callBefore(TimeLimit.in(1000), () -> { Thread.sleep(10); return 43; }).get());
+		assertFalse(stage.callLater(() -> Thread.currentThread().isInterrupted()).get());
+	}
+
+	@Test
+	public void testCancelDelivered() throws Exception {
+		WorkStealingStage stage = new WorkStealingStage(1);
+		TestTask task = new TestTask("ws-cancel", appCtx);
+		task.start();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> blocking = stage.runLater(release::await);
+		AtomicBoolean executed = new AtomicBoolean(false);
+		CompletableFuture<Void> delivered = task.callLater(() -> stage.runLater(() -> executed.set(true))).get();
+
+		assertTrue(delivered.cancel(false));
+		release.countDown();
+		blocking.get();
+		stage.callLater(() -> null).get(); // the cancelled job is behind the blocking one
+		assertFalse(executed.get());
+
+		stage.shutdown();
+		assertTrue(stage.awaitTermination(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testDeliveryToTerminatedTask() throws Exception {
+		WorkStealingStage stage = new WorkStealingStage(1);
+		TestTask task = new TestTask("ws-terminated", appCtx);
+		task.start();
+
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Integer> delivered = task.callLater(() -> stage.callLater(() -> {
+			release.await();
+			return 42;
+		})).get();
+		task.stopTask();
+		task.awaitTermination();
+		release.countDown();
+
+		try {
+			delivered.get(1, TimeUnit.SECONDS);
+			fail("RejectedExecutionException expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+
+		stage.shutdown();
+		assertTrue(stage.awaitTermination(1, TimeUnit.SECONDS));
+	}
+}
@@ -2,7 +2,14 @@ package com.github.timmy80.mia.messaging;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,6 +17,8 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.github.timmy80.mia.core.HedgePolicy;
+import com.github.timmy80.mia.core.Task;
 import com.github.timmy80.mia.core.TimeLimit;
 import com.github.timmy80.mia.core.LogFmt;
 
@@ -141,5 +150,91 @@ public class MessagingTest {
 		theTask.unsubscribe("+/matching/topic", sub2);
 		theSecondTask.unsubscribe("#", sub1);
 	}
+	
+	@Test
+	public void testInlineDelivery() throws InterruptedException, ExecutionException {
+		Messaging<String, String> messaging = new Messaging<>();
+		messaging.setInlineDelivery(true);
+		MessagingTestTask task = new MessagingTestTask("the-inline-task", messaging);
+		task.start();
+		task.subscribe("inline", (message, payload) -> message.reply(payload));
+		
+		List<String> events = task.callLater(() -> {
+			List<String> calls = new ArrayList<>();
+			task.publish("inline", "foo", TimeLimit.in(5000), (message, payload) -> calls.add(payload));
+			calls.add("published");
+			return calls;
+		}).get();
+		assertEquals(Arrays.asList("foo", "published"), events);
+		
+		// published from another Thread: queued
+		messaging.publish("inline", "bar", TimeLimit.in(5000), theTask).join();
+		
+		task.stopTask();
+		task.awaitTermination();
+	}
+	
+	@Test
+	public void testHedgedRequest() throws InterruptedException, ExecutionException {
+		Subscriber<String> silent = (message, payload) -> {};
+		Subscriber<String> replying = (message, payload) -> message.reply("pong");
+		theTask.subscribe("hedged/topic", silent);
+		theSecondTask.subscribe("hedged/topic", replying);
+		
+		HedgePolicy policy = new HedgePolicy("messaging-test");
+		policy.setInitialDelay(20, TimeUnit.MILLISECONDS);
+		Messaging<String, String> messaging = theTask.getMessaging();
+		for(int i=0; i < 4; i++) {
+			String response = theTask.callLater(() -> messaging.request("hedged/topic", "ping", TimeLimit.in(5000), policy, null, theTask)).get().get();
+			assertEquals("pong", response);
+		}
+		assertTrue(policy.getHedgesSent() > 0);
+		assertEquals(policy.getHedgesSent(), policy.getHedgesWon());
+		
+		theTask.unsubscribe("hedged/topic", silent);
+		theSecondTask.unsubscribe("hedged/topic", replying);
+	}
+	
+	@Test
+	public void testPromise() throws InterruptedException, ExecutionException {
+		Messaging<String, String> messaging = theTask.getMessaging();
+		String response = theSecondTask.callLater(() -> messaging.promise("test/nominal/string", "foo", TimeLimit.in(5000), theSecondTask)
+				.thenApply(r -> r + " on " + Task.current().getName())
+				.toCompletableFuture()).get().get();
+		assertEquals("bar on the-second-task", response);
+		
+		try {
+			messaging.promise("no/subscriber", "foo", TimeLimit.in(5000), theTask);
+			fail("Should have thrown");
+		} catch(InvalidTopicException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCancelPromise() throws Exception {
+		Messaging<String, String> messaging = theTask.getMessaging();
+		MessagingTestTask task = new MessagingTestTask("the-busy-task", messaging);
+		task.start();
+		AtomicInteger received = new AtomicInteger();
+		Subscriber<String> sub = (message, payload) -> received.incrementAndGet();
+		task.subscribe("cancelled/topic", sub);
+		
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			task.runLater(() -> release.await());
+			CompletableFuture<String> f = messaging.request("cancelled/topic", "foo", TimeLimit.in(5000), theSecondTask);
+			assertTrue(f.cancel(false));
+			theSecondTask.runLater(() -> {}).get(); // the cancellation is propagated by the publishing task
+		} finally {
+			release.countDown();
+		}
+		task.runLater(() -> {}).get();
+		assertEquals(0, received.get());
+		
+		task.unsubscribe("cancelled/topic", sub);
+		task.stopTask();
+		task.awaitTermination();
+	}
 
 }